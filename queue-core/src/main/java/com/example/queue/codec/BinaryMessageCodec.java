@@ -0,0 +1,81 @@
+package com.example.queue.codec;
+
+import com.example.queue.model.QueueMessage;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 二进制消息编解码器
+ * 二进制消息以一个帧保存在Redis列表元素中，消息体原样放在元数据之后：
+ * <pre>
+ * #BIN &lt;4字节元数据长度&gt; &lt;元数据JSON（不含body）&gt; &lt;原始消息体&gt;
+ * </pre>
+ * 编码只拷贝一次消息体到帧中，解码只拷贝一次消息体到新数组中。
+ * 帧头与JSON文本和 #ENV 信封不会冲突，同一个队列中可以混合存放。
+ */
+public class BinaryMessageCodec {
+
+    public static final byte[] MAGIC = "#BIN".getBytes(StandardCharsets.US_ASCII);
+
+    public static final String CONTENT_TYPE = "application/octet-stream";
+
+    private static final int HEADER_LENGTH = MAGIC.length + Integer.BYTES;
+
+    private final ObjectMapper metadataMapper;
+
+    public BinaryMessageCodec(ObjectMapper objectMapper) {
+        this.metadataMapper = objectMapper.copy().addMixIn(QueueMessage.class, WithoutBody.class);
+    }
+
+    /**
+     * 编码二进制消息
+     */
+    public byte[] encode(QueueMessage message) throws JsonProcessingException {
+        byte[] metadata = metadataMapper.writeValueAsBytes(message);
+        byte[] body = message.getBody();
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_LENGTH + metadata.length + body.length);
+        frame.put(MAGIC).putInt(metadata.length).put(metadata).put(body);
+        return frame.array();
+    }
+
+    /**
+     * 解码二进制帧
+     */
+    public QueueMessage decode(byte[] frame) throws IOException {
+        int metadataLength = ByteBuffer.wrap(frame, MAGIC.length, Integer.BYTES).getInt();
+        if (metadataLength < 0 || HEADER_LENGTH + metadataLength > frame.length) {
+            throw new IOException("二进制消息帧长度错误: " + metadataLength);
+        }
+        QueueMessage message = metadataMapper.readValue(frame, HEADER_LENGTH, metadataLength, QueueMessage.class);
+        message.setBody(Arrays.copyOfRange(frame, HEADER_LENGTH + metadataLength, frame.length));
+        return message;
+    }
+
+    /**
+     * 是否为二进制帧
+     */
+    public static boolean isBinary(byte[] raw) {
+        if (raw == null || raw.length < HEADER_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (raw[i] != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 元数据序列化时忽略消息体
+     */
+    @JsonIgnoreProperties({"body"})
+    private abstract static class WithoutBody {
+    }
+}
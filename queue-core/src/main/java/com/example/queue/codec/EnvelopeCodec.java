@@ -0,0 +1,191 @@
+package com.example.queue.codec;
+
+import com.example.queue.model.QueueMessage;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 消息信封编解码器
+ * 把多条消息打包成一个带帧头的信封：
+ * <pre>
+ * #ENV:&lt;count&gt;\n&lt;json1&gt;\n&lt;json2&gt;...
+ * </pre>
+ * Jackson 输出的 JSON 不包含裸换行，因此换行可以直接作为分隔符。
+ * 不带帧头的元素按单条 JSON 消息处理，兼容未打包的旧数据。
+ */
+public class EnvelopeCodec {
+
+    public static final String ENVELOPE_PREFIX = "#ENV:";
+
+    public static final String CONTENT_TYPE = "application/x-queue-envelope";
+
+    public static final String COUNT_HEADER = "x-envelope-count";
+
+    private final ObjectMapper objectMapper;
+    private final int maxMessages;
+    private final int maxBytes;
+
+    public EnvelopeCodec(ObjectMapper objectMapper, int maxMessages, int maxBytes) {
+        this.objectMapper = objectMapper;
+        this.maxMessages = Math.max(1, maxMessages);
+        this.maxBytes = Math.max(1, maxBytes);
+    }
+
+    /**
+     * 按条数和字节上限把消息打包成若干信封
+     * 超过字节上限的单条消息独占一个信封
+     */
+    public List<Frame> pack(List<QueueMessage> messages) throws JsonProcessingException {
+        List<Frame> frames = new ArrayList<>();
+        List<String> pending = new ArrayList<>();
+        int pendingBytes = 0;
+        // 信封中最晚的过期时间，有消息不过期时为null
+        Long pendingExpireAt = null;
+
+        for (QueueMessage message : messages) {
+            if (message == null) {
+                continue;
+            }
+            String json = objectMapper.writeValueAsString(message);
+            int bytes = utf8Length(json) + 1;
+            if (!pending.isEmpty() && (pending.size() >= maxMessages || pendingBytes + bytes > maxBytes)) {
+                frames.add(frame(pending, pendingExpireAt));
+                pending = new ArrayList<>();
+                pendingBytes = 0;
+            }
+            Long expireAt = message.getExpireAt();
+            pendingExpireAt = pending.isEmpty() ? expireAt
+                    : (pendingExpireAt != null && expireAt != null ? Math.max(pendingExpireAt, expireAt) : null);
+            pending.add(json);
+            pendingBytes += bytes;
+        }
+        if (!pending.isEmpty()) {
+            frames.add(frame(pending, pendingExpireAt));
+        }
+        return frames;
+    }
+
+    /**
+     * 解包：信封返回其中全部消息，普通元素返回单条消息
+     */
+    public List<QueueMessage> unpack(String raw) throws JsonProcessingException {
+        if (raw == null) {
+            return Collections.emptyList();
+        }
+        if (!isEnvelope(raw)) {
+            return Collections.singletonList(objectMapper.readValue(raw, QueueMessage.class));
+        }
+
+        int headerEnd = raw.indexOf('\n');
+        if (headerEnd < 0) {
+            return Collections.emptyList();
+        }
+        List<QueueMessage> messages = new ArrayList<>(countOf(raw));
+        int start = headerEnd + 1;
+        while (start < raw.length()) {
+            int end = raw.indexOf('\n', start);
+            if (end < 0) {
+                end = raw.length();
+            }
+            if (end > start) {
+                messages.add(objectMapper.readValue(raw.substring(start, end), QueueMessage.class));
+            }
+            start = end + 1;
+        }
+        return messages;
+    }
+
+    /**
+     * 是否为信封
+     */
+    public static boolean isEnvelope(String raw) {
+        return raw != null && raw.startsWith(ENVELOPE_PREFIX);
+    }
+
+    /**
+     * 读取信封帧头中的消息条数，普通元素返回1
+     */
+    public static int countOf(String raw) {
+        if (!isEnvelope(raw)) {
+            return 1;
+        }
+        int headerEnd = raw.indexOf('\n');
+        if (headerEnd < 0) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(raw.substring(ENVELOPE_PREFIX.length(), headerEnd));
+        } catch (NumberFormatException e) {
+            return 1;
+        }
+    }
+
+    private static Frame frame(List<String> jsons, Long expireAt) {
+        if (jsons.size() == 1) {
+            return new Frame(jsons.get(0), 1, expireAt);
+        }
+        StringBuilder builder = new StringBuilder(ENVELOPE_PREFIX).append(jsons.size());
+        for (String json : jsons) {
+            builder.append('\n').append(json);
+        }
+        return new Frame(builder.toString(), jsons.size(), expireAt);
+    }
+
+    private static int utf8Length(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * 编码后的信封
+     */
+    public static final class Frame {
+
+        private final String payload;
+        private final int count;
+
+        /**
+         * 信封中最晚的过期时间（纪元毫秒），有消息不过期时为null
+         */
+        private final Long expireAt;
+
+        public Frame(String payload, int count) {
+            this(payload, count, null);
+        }
+
+        public Frame(String payload, int count, Long expireAt) {
+            this.payload = payload;
+            this.count = count;
+            this.expireAt = expireAt;
+        }
+
+        public String getPayload() {
+            return payload;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public Long getExpireAt() {
+            return expireAt;
+        }
+    }
+}
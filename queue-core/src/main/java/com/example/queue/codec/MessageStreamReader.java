@@ -0,0 +1,136 @@
+package com.example.queue.codec;
+
+import com.example.queue.model.QueueMessage;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 消息流读取器
+ * 从输入流中逐条读取消息，任何时刻只持有当前一条消息，读取任意长度的流内存占用不变。支持两种格式：
+ * <ul>
+ *   <li>NDJSON：每行一个消息JSON对象，用Jackson流式解析器逐个读取根对象</li>
+ *   <li>帧序列：每条消息为 &lt;4字节帧长度&gt; &lt;#BIN 二进制帧&gt;，消息体不做转码</li>
+ * </ul>
+ */
+public abstract class MessageStreamReader implements Closeable {
+
+    /**
+     * NDJSON的内容类型
+     */
+    public static final String NDJSON_CONTENT_TYPE = "application/x-ndjson";
+
+    /**
+     * 长度前缀二进制帧序列的内容类型
+     */
+    public static final String FRAMES_CONTENT_TYPE = "application/x-queue-frames";
+
+    /**
+     * 读取下一条消息
+     * @return 消息，流结束时返回null
+     * @throws IOException 读取失败或格式错误，之后不能继续读取
+     */
+    public abstract QueueMessage next() throws IOException;
+
+    /**
+     * 当前位置描述，读取失败时与异常信息一起报告
+     */
+    public abstract String position();
+
+    public static MessageStreamReader ndjson(InputStream in, ObjectMapper objectMapper) throws IOException {
+        return new NdjsonReader(objectMapper.getFactory().createParser(in), objectMapper);
+    }
+
+    public static MessageStreamReader frames(InputStream in, ObjectMapper objectMapper, int maxFrameBytes) {
+        return new FrameReader(new DataInputStream(new BufferedInputStream(in)), new BinaryMessageCodec(objectMapper), maxFrameBytes);
+    }
+
+    private static final class NdjsonReader extends MessageStreamReader {
+
+        private final JsonParser parser;
+        private final ObjectMapper objectMapper;
+
+        private NdjsonReader(JsonParser parser, ObjectMapper objectMapper) {
+            this.parser = parser;
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        public QueueMessage next() throws IOException {
+            // 根级的多个JSON值之间只需要空白分隔，换行即可作为记录边界
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                return null;
+            }
+            if (token != JsonToken.START_OBJECT) {
+                throw new IOException("每行应为一个JSON对象，实际为 " + token);
+            }
+            return objectMapper.readValue(parser, QueueMessage.class);
+        }
+
+        @Override
+        public String position() {
+            return "第" + parser.getCurrentLocation().getLineNr() + "行";
+        }
+
+        @Override
+        public void close() throws IOException {
+            parser.close();
+        }
+    }
+
+    private static final class FrameReader extends MessageStreamReader {
+
+        private final DataInputStream in;
+        private final BinaryMessageCodec codec;
+        private final int maxFrameBytes;
+        private long frames;
+
+        private FrameReader(DataInputStream in, BinaryMessageCodec codec, int maxFrameBytes) {
+            this.in = in;
+            this.codec = codec;
+            this.maxFrameBytes = maxFrameBytes;
+        }
+
+        @Override
+        public QueueMessage next() throws IOException {
+            int first = in.read();
+            if (first < 0) {
+                return null;
+            }
+            byte[] frame;
+            try {
+                int length = (first << 24) | (in.readUnsignedByte() << 16) | (in.readUnsignedByte() << 8) | in.readUnsignedByte();
+                if (length < BinaryMessageCodec.MAGIC.length + Integer.BYTES || length > maxFrameBytes) {
+                    throw new IOException("帧长度错误: " + length);
+                }
+                frame = new byte[length];
+                in.readFully(frame);
+            } catch (EOFException e) {
+                throw new EOFException("帧不完整");
+            }
+            if (!BinaryMessageCodec.isBinary(frame)) {
+                throw new IOException("不是二进制消息帧");
+            }
+            frames++;
+            return codec.decode(frame);
+        }
+
+        @Override
+        public String position() {
+            return "第" + (frames + 1) + "帧";
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
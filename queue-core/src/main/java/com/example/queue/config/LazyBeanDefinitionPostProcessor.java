@@ -0,0 +1,40 @@
+package com.example.queue.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 把指定名称的Bean定义改为延迟初始化
+ * 后端模块用它推迟Spring Boot自动配置的连接工厂、客户端资源和模板的创建，
+ * 这些Bean在第一次创建对应类型的队列时才实例化，启动时不建立连接、不创建IO线程。
+ * 不存在的Bean名称直接忽略。
+ */
+@Slf4j
+public class LazyBeanDefinitionPostProcessor implements BeanFactoryPostProcessor {
+
+    private final List<String> beanNames;
+
+    public LazyBeanDefinitionPostProcessor(String... beanNames) {
+        this.beanNames = Arrays.asList(beanNames);
+    }
+
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) throws BeansException {
+        List<String> lazyBeans = new ArrayList<>();
+        for (String beanName : beanNames) {
+            if (beanFactory.containsBeanDefinition(beanName)) {
+                BeanDefinition definition = beanFactory.getBeanDefinition(beanName);
+                definition.setLazyInit(true);
+                lazyBeans.add(beanName);
+            }
+        }
+        log.debug("延迟初始化: {}", lazyBeans);
+    }
+}
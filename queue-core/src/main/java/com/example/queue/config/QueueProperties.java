@@ -0,0 +1,757 @@
+package com.example.queue.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 队列配置属性
+ * 对应 application.yml 中的 queue 配置段
+ */
+@Data
+@ConfigurationProperties(prefix = "queue")
+public class QueueProperties {
+
+    /**
+     * 默认队列类型
+     */
+    private String defaultType = "java";
+
+    /**
+     * 默认队列名称
+     */
+    private String defaultName = "default-queue";
+
+    /**
+     * 队列路由配置
+     */
+    private Router router = new Router();
+
+    /**
+     * Redis队列配置
+     */
+    private Redis redis = new Redis();
+
+    /**
+     * RabbitMQ队列配置
+     */
+    private Rabbitmq rabbitmq = new Rabbitmq();
+
+    /**
+     * 堆外内存队列配置
+     */
+    private OffHeap offHeap = new OffHeap();
+
+    /**
+     * 扇出发布配置
+     */
+    private FanOut fanOut = new FanOut();
+
+    /**
+     * 后端健康跟踪、熔断与故障转移配置
+     */
+    private Resilience resilience = new Resilience();
+
+    /**
+     * 消费失败重试配置
+     */
+    private Retry retry = new Retry();
+
+    /**
+     * 消费端按键有序并行配置
+     */
+    private Ordering ordering = new Ordering();
+
+    /**
+     * HTTP长轮询与流式接收配置
+     */
+    private LongPoll longPoll = new LongPoll();
+
+    /**
+     * 生产端限流配置
+     */
+    private RateLimit rateLimit = new RateLimit();
+
+    /**
+     * 进程内队列快照配置
+     */
+    private Snapshot snapshot = new Snapshot();
+
+
+    @Data
+    public static class Router {
+
+        /**
+         * 是否启用队列路由
+         */
+        private boolean enabled = true;
+
+        /**
+         * 最大队列服务数量
+         */
+        private int maxQueueServices = 10;
+    }
+
+    @Data
+    public static class Redis {
+
+        /**
+         * 是否启用Redis后端，queue-redis模块在classpath上时默认启用
+         */
+        private boolean enabled = true;
+
+        /**
+         * 信封打包配置
+         */
+        private Envelope envelope = new Envelope();
+
+        /**
+         * 写后缓冲配置
+         */
+        private WriteBehind writeBehind = new WriteBehind();
+
+        /**
+         * 接收预取配置
+         */
+        private Prefetch prefetch = new Prefetch();
+
+        /**
+         * Redis Streams队列配置
+         */
+        private Stream stream = new Stream();
+
+        /**
+         * 分片配置
+         */
+        private Sharding sharding = new Sharding();
+
+        /**
+         * 阻塞等待分发器配置
+         */
+        private WaitDispatcher waitDispatcher = new WaitDispatcher();
+
+        /**
+         * 优先级通道配置
+         */
+        private Priority priority = new Priority();
+    }
+
+    @Data
+    public static class Rabbitmq {
+
+        /**
+         * 是否启用RabbitMQ后端，queue-rabbitmq模块在classpath上时默认启用
+         */
+        private boolean enabled = true;
+
+        /**
+         * 信封打包配置
+         */
+        private Envelope envelope = new Envelope();
+
+        /**
+         * 拉取消费者配置
+         */
+        private PullConsumer consumer = new PullConsumer();
+    }
+
+    /**
+     * 信封打包配置
+     * 开启后批量发送会把多条小消息打包成一个Redis元素或一条AMQP消息
+     */
+    @Data
+    public static class Envelope {
+
+        /**
+         * 是否启用信封模式
+         */
+        private boolean enabled = false;
+
+        /**
+         * 单个信封最多包含的消息数
+         */
+        private int maxMessages = 100;
+
+        /**
+         * 单个信封最大字节数
+         */
+        private int maxBytes = 64 * 1024;
+    }
+
+    /**
+     * 写后缓冲配置
+     * 开启后发送只写入本地有界缓冲并立即返回，由后台线程批量写入Redis
+     */
+    @Data
+    public static class WriteBehind {
+
+        /**
+         * 是否启用写后缓冲
+         */
+        private boolean enabled = false;
+
+        /**
+         * 缓冲容量（条），写满后发送失败
+         */
+        private int capacity = 10000;
+
+        /**
+         * 每批最多写入的消息数
+         */
+        private int batchSize = 500;
+
+        /**
+         * 凑批等待时间（毫秒）
+         */
+        private long flushIntervalMs = 5;
+
+        /**
+         * 批次写入失败后的重试次数，超过后落盘
+         */
+        private int maxRetries = 3;
+
+        /**
+         * 本地落盘目录，关闭时未能写入Redis的消息保存在此，下次启动时重放
+         */
+        private String spoolDir = "./data/write-behind";
+    }
+
+    /**
+     * 接收预取配置
+     * 开启后后台线程批量弹出消息放入本地缓冲，接收直接从内存返回
+     */
+    @Data
+    public static class Prefetch {
+
+        /**
+         * 是否启用预取
+         */
+        private boolean enabled = false;
+
+        /**
+         * 最小预取深度
+         */
+        private int minDepth = 10;
+
+        /**
+         * 最大预取深度
+         */
+        private int maxDepth = 1000;
+
+        /**
+         * 本地缓冲保留的消费时长（毫秒），预取深度 = 消费速率 × 该时长
+         */
+        private long targetBufferMs = 200;
+
+        /**
+         * 队列为空时阻塞等待新消息的时长（秒）
+         */
+        private long blockSeconds = 1;
+    }
+
+    /**
+     * RabbitMQ拉取消费者配置
+     * 开启后接收由长期订阅（basic.consume）填充的本地缓冲提供，替代逐条 basic.get
+     */
+    @Data
+    public static class PullConsumer {
+
+        /**
+         * 是否启用拉取消费者
+         */
+        private boolean enabled = false;
+
+        /**
+         * 预取数量（basic.qos），即本地缓冲最多持有的未确认投递数
+         */
+        private int prefetchCount = 250;
+
+        /**
+         * 累计多少条已取走的投递后批量确认，不超过预取数量的一半
+         */
+        private int ackBatchSize = 100;
+
+        /**
+         * 批量确认的最长间隔（毫秒）
+         */
+        private long ackIntervalMs = 100;
+    }
+
+    /**
+     * Redis Streams队列配置
+     */
+    @Data
+    public static class Stream {
+
+        /**
+         * 流的近似最大长度（XADD MAXLEN ~）
+         */
+        private long maxLen = 1_000_000;
+
+        /**
+         * 消费者组名称
+         */
+        private String group = "queue-router";
+
+        /**
+         * 消费者名称，为空时按主机名和进程号生成
+         */
+        private String consumer;
+
+        /**
+         * 每次XREADGROUP读取的条数
+         */
+        private int readCount = 100;
+
+        /**
+         * 累计多少条后批量XACK
+         */
+        private int ackBatchSize = 100;
+
+        /**
+         * 批量XACK的最长间隔（毫秒）
+         */
+        private long ackIntervalMs = 100;
+
+        /**
+         * 待确认消息空闲多久后被XAUTOCLAIM认领（毫秒）
+         */
+        private long claimMinIdleMs = 60_000;
+
+        /**
+         * XAUTOCLAIM执行间隔（毫秒）
+         */
+        private long claimIntervalMs = 30_000;
+    }
+
+    /**
+     * Redis分片配置
+     * 分片数大于1时一个逻辑队列分散到多个带哈希标签的列表键上，使其落在不同的集群槽位
+     */
+    @Data
+    public static class Sharding {
+
+        /**
+         * 分片数，1表示不分片
+         */
+        private int shards = 1;
+
+        /**
+         * 生产者选择分片的策略：round-robin 轮询，hash 按消息ID哈希
+         */
+        private String strategy = "round-robin";
+    }
+
+    /**
+     * Redis优先级通道配置
+     * 按消息优先级写入少量按优先级划分的列表键，消费者按从高到低的顺序弹出
+     */
+    @Data
+    public static class Priority {
+
+        /**
+         * 优先级通道数，1表示不启用
+         */
+        private int lanes = 1;
+
+        /**
+         * 最大优先级，优先级 0..maxPriority 均匀映射到各通道，超出范围的按边界处理；数值越大越优先（与AMQP一致）
+         */
+        private int maxPriority = 9;
+
+        /**
+         * 防饥饿间隔：按消息条数计，每N条消息中有一条先从较低的通道取，各较低通道轮流获得这次机会；0表示严格按优先级
+         */
+        private int fairnessInterval = 10;
+    }
+
+    /**
+     * Redis阻塞等待分发器配置
+     * 开启后所有Redis队列的阻塞接收共享少量专用连接上的多键BRPOP，不再每个等待者占用一个连接
+     */
+    @Data
+    public static class WaitDispatcher {
+
+        /**
+         * 是否启用阻塞等待分发器
+         */
+        private boolean enabled = false;
+
+        /**
+         * 专用连接数（工作线程数），应小于连接池上限
+         */
+        private int connections = 2;
+
+        /**
+         * 每次多键BRPOP的阻塞时长（秒）
+         */
+        private long blockSeconds = 1;
+    }
+
+    /**
+     * 堆外内存队列配置
+     */
+    @Data
+    public static class OffHeap {
+
+        /**
+         * 直接内存块大小（字节）
+         */
+        private int chunkSize = 4 * 1024 * 1024;
+
+        /**
+         * 每个队列的直接内存上限（字节），达到后发送失败
+         */
+        private long maxBytes = 256L * 1024 * 1024;
+    }
+
+    /**
+     * 扇出发布配置
+     * 一条消息并行发送到多个队列键（type:name），按确认策略判定成功
+     */
+    @Data
+    public static class FanOut {
+
+        /**
+         * 并行发送线程数
+         */
+        private int threads = 8;
+
+        /**
+         * 等待发送的目标数上限，队列已满时新的目标立即判定失败
+         */
+        private int queueCapacity = 1000;
+
+        /**
+         * 预定义的扇出组，键为组名
+         */
+        private Map<String, Group> groups = new LinkedHashMap<>();
+    }
+
+    /**
+     * 扇出组
+     */
+    @Data
+    public static class Group {
+
+        /**
+         * 目标队列键列表，如 redis:orders、rabbitmq:orders
+         */
+        private List<String> targets = new ArrayList<>();
+
+        /**
+         * 确认策略：all 全部成功，any 任一成功，或数字N表示N个成功
+         */
+        private String ack = "all";
+
+        /**
+         * 每个目标的默认超时（毫秒）
+         */
+        private long timeoutMs = 1000;
+
+        /**
+         * 按目标覆盖的超时（毫秒），键为队列键
+         */
+        private Map<String, Long> targetTimeoutMs = new LinkedHashMap<>();
+    }
+
+    /**
+     * 后端健康跟踪、熔断与故障转移配置
+     * 只对 failover 中配置了备用队列键的主队列生效
+     */
+    @Data
+    public static class Resilience {
+
+        /**
+         * 是否启用
+         */
+        private boolean enabled = false;
+
+        /**
+         * 主队列键到备用队列键的映射，如 redis:orders -> java:orders-failover
+         */
+        private Map<String, String> failover = new LinkedHashMap<>();
+
+        /**
+         * 统计窗口（毫秒），错误率、慢调用率和延迟分位数按窗口滚动
+         */
+        private long windowMs = 10000;
+
+        /**
+         * 窗口内至少多少次调用才判断是否熔断
+         */
+        private int minCalls = 20;
+
+        /**
+         * 错误率阈值，达到后熔断
+         */
+        private double errorRateThreshold = 0.5;
+
+        /**
+         * 慢调用阈值（毫秒）
+         */
+        private long slowCallMs = 500;
+
+        /**
+         * 慢调用率阈值，达到后熔断
+         */
+        private double slowCallRateThreshold = 0.5;
+
+        /**
+         * 熔断持续时间（毫秒），之后放行一次探测调用
+         */
+        private long openMs = 5000;
+
+        /**
+         * 探测调用的最长等待时间（毫秒），超过仍未报告结果时按失败处理并重新熔断
+         */
+        private long halfOpenTimeoutMs = 5000;
+
+        /**
+         * 主队列发送超时（毫秒），超时按失败计并转到备用队列；0表示在调用线程上直接发送
+         */
+        private long sendTimeoutMs = 1000;
+
+        /**
+         * 主队列发送线程数上限，线程用满时直接转到备用队列
+         */
+        private int threads = 16;
+
+        /**
+         * 备用队列积压回迁到主队列的检查间隔（毫秒）
+         */
+        private long drainIntervalMs = 1000;
+
+        /**
+         * 每次回迁的最大消息数
+         */
+        private int drainBatch = 100;
+
+        /**
+         * 对冲发送配置
+         */
+        private Hedge hedge = new Hedge();
+    }
+
+    /**
+     * 对冲发送配置
+     * 主队列在延迟分位数时间内没有完成时，向备用队列再发一份，先成功者返回
+     */
+    @Data
+    public static class Hedge {
+
+        /**
+         * 是否启用
+         */
+        private boolean enabled = false;
+
+        /**
+         * 对冲延迟取主队列发送耗时的哪个分位数
+         */
+        private double percentile = 99.0;
+
+        /**
+         * 对冲延迟下限（毫秒），样本不足时也使用该值
+         */
+        private long minDelayMs = 5;
+
+        /**
+         * 对冲延迟上限（毫秒）
+         */
+        private long maxDelayMs = 200;
+    }
+
+    /**
+     * 消费失败重试配置
+     * 失败的消息按指数退避加抖动延迟后发回原队列，超过最大次数进入死信队列
+     */
+    @Data
+    public static class Retry {
+
+        /**
+         * 是否启用，未启用时消费者保持原有行为
+         */
+        private boolean enabled = false;
+
+        /**
+         * 最大处理次数（含第一次），达到后进入死信队列
+         */
+        private int maxAttempts = 5;
+
+        /**
+         * 第一次重试的延迟（毫秒）
+         */
+        private long initialDelayMs = 1000;
+
+        /**
+         * 退避倍数
+         */
+        private double multiplier = 2.0;
+
+        /**
+         * 延迟上限（毫秒）
+         */
+        private long maxDelayMs = 60000;
+
+        /**
+         * 抖动比例，实际延迟在 [delay * (1 - jitter), delay] 内均匀分布
+         */
+        private double jitter = 0.5;
+
+        /**
+         * 死信队列名后缀，死信队列键为 原队列键 + 后缀
+         */
+        private String deadLetterSuffix = "-dlq";
+
+        /**
+         * 等待重试的消息数上限，超过后直接进入死信队列
+         */
+        private int maxPending = 100000;
+    }
+
+    /**
+     * 生产端限流配置
+     * 按队列键限制通过路由器发送的速率，运行时可通过 /api/ratelimit 调整。
+     * 扇出发布的每个目标同样按目标队列键限流；重试发回原队列和发往死信队列的消息不受限流，
+     * 它们是已经入队过的消息，被限流拒绝会直接丢失
+     */
+    @Data
+    public static class RateLimit {
+
+        /**
+         * 是否启用
+         */
+        private boolean enabled = false;
+
+        /**
+         * 各队列键的限流规则，键为队列键（如 redis:orders）
+         */
+        private Map<String, Limit> limits = new LinkedHashMap<>();
+    }
+
+    /**
+     * 单个队列键的限流规则
+     */
+    @Data
+    public static class Limit {
+
+        /**
+         * 每秒允许发送的消息数
+         */
+        private double permitsPerSecond = 1000;
+
+        /**
+         * 允许的突发消息数，smooth 模式下忽略
+         */
+        private int burst = 100;
+
+        /**
+         * 超限处理方式：reject 立即拒绝，wait 最多等待 max-wait-ms，smooth 按固定间隔匀速放行
+         */
+        private String mode = "reject";
+
+        /**
+         * wait / smooth 模式的最长等待时间（毫秒），需要等待更久时拒绝
+         */
+        private long maxWaitMs = 100;
+    }
+
+    /**
+     * 消费端按键有序并行配置
+     * 消息按排序键哈希到若干串行通道并行处理，同一个键的消息按到达顺序处理，
+     * 投递在它之前的全部投递都处理完成后才按水位线确认
+     */
+    @Data
+    public static class Ordering {
+
+        /**
+         * 是否启用，未启用时消费者在监听线程上逐条处理并自动确认
+         */
+        private boolean enabled = false;
+
+        /**
+         * 串行通道数，0表示使用CPU核数
+         */
+        private int lanes = 0;
+
+        /**
+         * 排序键所在的消息头，没有该消息头的消息按消息ID分散，不保证相互顺序
+         */
+        private String keyHeader = "ordering-key";
+
+        /**
+         * 关闭时等待通道中已接收消息处理完成的时间（毫秒）
+         */
+        private long shutdownTimeoutMs = 10000;
+    }
+
+    /**
+     * HTTP长轮询与流式接收配置
+     * 等待中的请求不占用Servlet线程，由一个分发线程在消息到达通知或轮询发现消息时完成
+     */
+    @Data
+    public static class LongPoll {
+
+        /**
+         * 同时等待的请求数上限，超过后新的等待请求直接失败
+         */
+        private int maxWaiters = 10000;
+
+        /**
+         * 单次等待的超时上限（毫秒）
+         */
+        private long maxTimeoutMs = 60000;
+
+        /**
+         * 不支持到达通知的后端（Redis、RabbitMQ基本模式）的最短轮询间隔（毫秒），没有消息时按倍数退避
+         */
+        private long minPollIntervalMs = 10;
+
+        /**
+         * 最长轮询间隔（毫秒），支持到达通知的后端也按此间隔兜底检查
+         */
+        private long maxPollIntervalMs = 500;
+
+        /**
+         * 流式接收每次取出的最大消息数，上一批写出之后才取下一批
+         */
+        private int streamBatchSize = 100;
+
+        /**
+         * 流式接收没有消息时发送心跳的间隔（毫秒），同时用于发现已断开的连接
+         */
+        private long streamHeartbeatMs = 15000;
+    }
+
+    /**
+     * 进程内队列快照配置
+     * 关闭时把 java / off-heap 队列中的消息写入快照文件，启动时恢复
+     */
+    @Data
+    public static class Snapshot {
+
+        /**
+         * 是否启用
+         */
+        private boolean enabled = false;
+
+        /**
+         * 快照目录
+         */
+        private String directory = "data/snapshots";
+
+        /**
+         * 读写缓冲区大小（字节）
+         */
+        private int bufferSize = 1024 * 1024;
+
+        /**
+         * 恢复快照时每次放回队列的消息数，也是恢复期间内存中最多保留的消息数
+         */
+        private int batchSize = 1024;
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.queue.core;
+
+import com.example.queue.metrics.QueueMetrics;
+import com.example.queue.model.QueueMessage;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+/**
+ * 队列服务抽象类
+ */
+@Slf4j
+public abstract class AbstractQueueService implements QueueService {
+    
+    protected final String queueName;
+    protected final String queueType;
+    
+    /**
+     * 延迟指标，由工厂在创建后注入
+     */
+    protected QueueMetrics metrics;
+    
+    /**
+     * 消息到达通知的回调，只在支持到达通知的后端上登记
+     */
+    private final List<Runnable> arrivalListeners = new CopyOnWriteArrayList<>();
+    
+    public AbstractQueueService(String queueName, String queueType) {
+        this.queueName = queueName;
+        this.queueType = queueType;
+    }
+    
+    public void setMetrics(QueueMetrics metrics) {
+        this.metrics = metrics;
+    }
+    
+    @Override
+    public boolean sendBytes(byte[] body) {
+        if (body == null) {
+            log.warn("消息体不能为空");
+            return false;
+        }
+        return sendMessage(QueueMessage.ofBytes(UUID.randomUUID().toString(), body));
+    }
+    
+    @Override
+    public CompletableFuture<Boolean> sendMessageAsync(QueueMessage message) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return sendMessage(message);
+            } catch (Exception e) {
+                log.error("异步发送消息失败: {}", e.getMessage(), e);
+                return false;
+            }
+        });
+    }
+    
+    @Override
+    public int sendMessages(List<QueueMessage> messages) {
+        if (messages == null || messages.isEmpty()) {
+            return 0;
+        }
+        
+        int successCount = 0;
+        for (QueueMessage message : messages) {
+            try {
+                if (sendMessage(message)) {
+                    successCount++;
+                }
+            } catch (Exception e) {
+                log.error("批量发送消息失败: {}", e.getMessage(), e);
+            }
+        }
+        
+        log.info("批量发送消息完成，成功: {}/{}", successCount, messages.size());
+        return successCount;
+    }
+    
+    @Override
+    public List<QueueMessage> receiveMessages(int maxMessages) {
+        List<QueueMessage> messages = new ArrayList<>();
+        for (int i = 0; i < maxMessages; i++) {
+            QueueMessage message = receiveMessage();
+            if (message == null) {
+                break;
+            }
+            messages.add(message);
+        }
+        return messages;
+    }
+    
+    @Override
+    public boolean isEmpty() {
+        return getQueueSize() == 0;
+    }
+    
+    @Override
+    public String getQueueType() {
+        return queueType;
+    }
+    
+    @Override
+    public void shutdown() {
+        // 默认没有需要释放的资源
+    }
+    
+    @Override
+    public boolean addArrivalListener(Runnable listener) {
+        if (!isArrivalNotifying()) {
+            return false;
+        }
+        arrivalListeners.add(listener);
+        return true;
+    }
+    
+    /**
+     * 后端能否在消息到达时调用 {@link #signalArrival()}，默认不能
+     */
+    protected boolean isArrivalNotifying() {
+        return false;
+    }
+    
+    /**
+     * 通知到达监听者有新消息可以接收，在消息入队成功之后调用
+     */
+    protected void signalArrival() {
+        for (Runnable listener : arrivalListeners) {
+            try {
+                listener.run();
+            } catch (RuntimeException e) {
+                log.warn("到达通知回调失败: {}", e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * 队列键，与路由器中的键一致（type:name）
+     */
+    protected String getQueueKey() {
+        for (QueueType type : QueueType.values()) {
+            if (type.name().equalsIgnoreCase(queueType)) {
+                return type.getValue() + ":" + queueName;
+            }
+        }
+        return queueType.toLowerCase() + ":" + queueName;
+    }
+    
+    /**
+     * 发送前写入入队时间
+     */
+    protected void stampEnqueueTime(QueueMessage message) {
+        if (message != null) {
+            message.setEnqueueTimeNanos(QueueMetrics.epochNanos());
+        }
+    }
+    
+    /**
+     * 出队时记录排队时间
+     */
+    protected QueueMessage recordDwell(QueueMessage message) {
+        if (message != null && metrics != null) {
+            metrics.recordDwell(getQueueKey(), message.getEnqueueTimeNanos());
+        }
+        return message;
+    }
+    
+    /**
+     * 从出队的消息中移除已过期的消息并计数
+     * @param messages 可修改的消息列表
+     * @return 移除的条数
+     */
+    protected int removeExpired(List<QueueMessage> messages) {
+        if (messages.isEmpty()) {
+            return 0;
+        }
+        long now = System.currentTimeMillis();
+        int before = messages.size();
+        messages.removeIf(message -> message.isExpired(now));
+        int expired = before - messages.size();
+        recordExpired(expired);
+        return expired;
+    }
+    
+    /**
+     * 记录出队时丢弃的过期消息数
+     */
+    protected void recordExpired(long count) {
+        if (count <= 0) {
+            return;
+        }
+        if (metrics != null) {
+            metrics.recordExpired(getQueueKey(), count);
+        }
+        log.debug("队列[{}] 丢弃过期消息: {}", queueName, count);
+    }
+    
+    /**
+     * 记录操作日志
+     */
+    protected void logOperation(String operation, Object... params) {
+        // 无参数时 String.format("%s") 会抛出异常，导致调用方（如clearQueue）误报失败
+        String detail = params.length == 0 ? "" : Arrays.stream(params).map(String::valueOf).collect(Collectors.joining(", "));
+        log.info("队列[{}] {}: {}", queueName, operation, detail);
+    }
+}
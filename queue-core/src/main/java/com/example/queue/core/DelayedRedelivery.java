@@ -0,0 +1,18 @@
+package com.example.queue.core;
+
+import com.example.queue.model.QueueMessage;
+
+/**
+ * 支持延迟重新投递的队列
+ * 消息在延迟期间由后端持久保存，到期后回到本队列，进程崩溃或重启不会丢失等待中的消息
+ */
+public interface DelayedRedelivery {
+
+    /**
+     * 把消息交给后端保存，delayMs 毫秒后重新投递到本队列
+     * @param message 消息
+     * @param delayMs 延迟（毫秒）
+     * @return 后端确认接管后返回true，失败时返回false，调用方仍持有消息
+     */
+    boolean sendDelayed(QueueMessage message, long delayMs);
+}
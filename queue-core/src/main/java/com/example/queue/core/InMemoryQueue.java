@@ -0,0 +1,36 @@
+package com.example.queue.core;
+
+import com.example.queue.model.QueueMessage;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 进程内队列
+ * 消息只存在于本进程内存中，重启前需要写入快照、启动时恢复
+ */
+public interface InMemoryQueue {
+
+    /**
+     * 停止接收新消息，之后的发送返回失败
+     */
+    void stopIntake();
+
+    /**
+     * 按顺序遍历当前的全部消息，不取出
+     * @param action 对每条消息执行的操作
+     */
+    void forEachMessage(Consumer<QueueMessage> action);
+
+    /**
+     * 清空队列
+     * @return 是否成功
+     */
+    boolean clearQueue();
+
+    /**
+     * 按顺序放回快照中的消息，保留原入队时间
+     * @param messages 消息列表
+     */
+    void restore(List<QueueMessage> messages);
+}
@@ -17,6 +17,13 @@ public interface QueueService {
      */
     boolean sendMessage(QueueMessage message);
     
+    /**
+     * 发送二进制消息，消息体数组由队列直接引用，调用方发送后不应再修改
+     * @param body 消息体
+     * @return 是否发送成功
+     */
+    boolean sendBytes(byte[] body);
+    
     /**
      * 异步发送消息到队列
      * @param message 消息
@@ -74,4 +81,19 @@ public interface QueueService {
      * @return 队列类型
      */
     String getQueueType();
+    
+    /**
+     * 关闭队列服务，停止后台线程并处理本地缓冲中的消息
+     */
+    void shutdown();
+    
+    /**
+     * 登记消息到达通知
+     * 有新消息可以接收时在发送线程（或后端的投递线程）上回调，回调只应做轻量的唤醒，不应在其中接收消息
+     * @param listener 回调
+     * @return 后端是否支持到达通知，不支持时调用方需要自行轮询
+     */
+    default boolean addArrivalListener(Runnable listener) {
+        return false;
+    }
 }
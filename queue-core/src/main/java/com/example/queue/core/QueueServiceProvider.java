@@ -0,0 +1,31 @@
+package com.example.queue.core;
+
+import java.util.Set;
+
+/**
+ * 队列后端提供者
+ * 每个后端模块（queue-redis、queue-rabbitmq）提供一个实现并注册到工厂，
+ * 工厂按队列类型选择提供者创建队列服务，核心模块不依赖任何后端的客户端。
+ * 提供者应在首次创建队列服务时才初始化连接等资源，未使用的后端不产生启动开销。
+ */
+public interface QueueServiceProvider {
+
+    /**
+     * 支持的队列类型
+     */
+    Set<QueueType> getSupportedTypes();
+
+    /**
+     * 创建队列服务
+     * @param queueName 队列名称
+     * @param queueType 队列类型，属于 {@link #getSupportedTypes()}
+     * @return 队列服务实例
+     */
+    QueueService createQueueService(String queueName, QueueType queueType);
+
+    /**
+     * 关闭提供者持有的共享资源，在所有队列服务关闭之后调用
+     */
+    default void shutdown() {
+    }
+}
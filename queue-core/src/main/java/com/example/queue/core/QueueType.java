@@ -10,11 +10,21 @@ public enum QueueType {
      */
     JAVA("java"),
     
+    /**
+     * 堆外内存队列
+     */
+    OFF_HEAP("off-heap"),
+    
     /**
      * Redis队列
      */
     REDIS("redis"),
     
+    /**
+     * Redis Streams队列（消费者组）
+     */
+    REDIS_STREAM("redis-stream"),
+    
     /**
      * RabbitMQ队列
      */
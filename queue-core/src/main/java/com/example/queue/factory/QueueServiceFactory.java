@@ -0,0 +1,161 @@
+package com.example.queue.factory;
+
+import com.example.queue.config.QueueProperties;
+import com.example.queue.core.AbstractQueueService;
+import com.example.queue.core.InMemoryQueue;
+import com.example.queue.core.QueueService;
+import com.example.queue.core.QueueServiceProvider;
+import com.example.queue.core.QueueType;
+import com.example.queue.impl.JavaQueueService;
+import com.example.queue.impl.OffHeapQueueService;
+import com.example.queue.metrics.QueueMetrics;
+import com.example.queue.snapshot.QueueSnapshotStore;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 队列服务工厂
+ * Java和堆外队列内置，其他类型由classpath上的后端模块通过 {@link QueueServiceProvider} 提供
+ */
+@Slf4j
+public class QueueServiceFactory {
+    
+    private final QueueProperties properties;
+    private final QueueMetrics metrics;
+    
+    /**
+     * 外部后端提供者，按队列类型索引
+     */
+    private final Map<QueueType, QueueServiceProvider> providers = new EnumMap<>(QueueType.class);
+    
+    /**
+     * 进程内队列快照存储，未启用时为null
+     */
+    private final QueueSnapshotStore snapshotStore;
+    
+    public QueueServiceFactory() {
+        this(new QueueProperties(), new QueueMetrics(), Collections.emptyList());
+    }
+    
+    public QueueServiceFactory(QueueProperties properties, QueueMetrics metrics, List<QueueServiceProvider> providers) {
+        this.properties = properties;
+        this.metrics = metrics;
+        this.snapshotStore = properties.getSnapshot().isEnabled() ? new QueueSnapshotStore(properties.getSnapshot()) : null;
+        for (QueueServiceProvider provider : providers) {
+            for (QueueType queueType : provider.getSupportedTypes()) {
+                QueueServiceProvider previous = this.providers.put(queueType, provider);
+                if (previous != null) {
+                    throw new IllegalStateException("队列类型重复注册: " + queueType.getValue());
+                }
+            }
+        }
+        log.info("可用队列类型: {}", getAvailableTypes());
+    }
+    
+    /**
+     * 当前可以创建的队列类型
+     */
+    public Set<QueueType> getAvailableTypes() {
+        Set<QueueType> types = new LinkedHashSet<>();
+        types.add(QueueType.JAVA);
+        types.add(QueueType.OFF_HEAP);
+        types.addAll(providers.keySet());
+        return types;
+    }
+    
+    /**
+     * 创建队列服务
+     * @param queueName 队列名称
+     * @param queueType 队列类型
+     * @return 队列服务实例
+     */
+    public QueueService createQueueService(String queueName, QueueType queueType) {
+        if (queueName == null || queueName.trim().isEmpty()) {
+            throw new IllegalArgumentException("队列名称不能为空");
+        }
+        
+        log.info("创建队列服务: name={}, type={}", queueName, queueType);
+        
+        QueueService queueService = doCreateQueueService(queueName, queueType);
+        if (queueService instanceof AbstractQueueService) {
+            ((AbstractQueueService) queueService).setMetrics(metrics);
+        }
+        // 进程内队列在交给调用方之前恢复快照
+        if (snapshotStore != null && queueService instanceof InMemoryQueue) {
+            snapshotStore.restore(queueType.getValue() + ":" + queueName, (InMemoryQueue) queueService);
+        }
+        return queueService;
+    }
+    
+    /**
+     * 把进程内队列中的消息写入快照，调用前应先停止该队列接收
+     * @param queueKey 队列键
+     * @param queueService 队列服务，不是进程内队列或未启用快照时忽略
+     */
+    public void saveSnapshot(String queueKey, QueueService queueService) {
+        if (snapshotStore == null || !(queueService instanceof InMemoryQueue)) {
+            return;
+        }
+        try {
+            snapshotStore.save(queueKey, (InMemoryQueue) queueService);
+        } catch (Exception e) {
+            // 写入失败时消息仍留在队列中，进程退出后丢失，与未启用快照时关闭的结果相同
+            log.error("写入队列快照失败: {}, {}", queueKey, e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * 快照目录中已有快照的队列键，未启用快照时为空
+     */
+    public List<String> getSnapshotQueueKeys() {
+        return snapshotStore != null ? snapshotStore.listQueueKeys() : Collections.emptyList();
+    }
+    
+    private QueueService doCreateQueueService(String queueName, QueueType queueType) {
+        switch (queueType) {
+            case JAVA:
+                return new JavaQueueService(queueName);
+                
+            case OFF_HEAP:
+                return new OffHeapQueueService(queueName, properties.getOffHeap());
+                
+            default:
+                QueueServiceProvider provider = providers.get(queueType);
+                if (provider == null) {
+                    throw new IllegalStateException("队列类型未启用: " + queueType.getValue()
+                            + "，请引入对应的后端模块并确认未在配置中关闭");
+                }
+                return provider.createQueueService(queueName, queueType);
+        }
+    }
+    
+    /**
+     * 创建队列服务（使用字符串类型）
+     * @param queueName 队列名称
+     * @param queueTypeString 队列类型字符串
+     * @return 队列服务实例
+     */
+    public QueueService createQueueService(String queueName, String queueTypeString) {
+        QueueType queueType = QueueType.fromString(queueTypeString);
+        return createQueueService(queueName, queueType);
+    }
+    
+    /**
+     * 关闭各后端提供者持有的共享资源，应在所有队列服务关闭之后调用
+     */
+    public void shutdown() {
+        for (QueueServiceProvider provider : new LinkedHashSet<>(providers.values())) {
+            try {
+                provider.shutdown();
+            } catch (Exception e) {
+                log.error("关闭队列后端失败: {}", e.getMessage(), e);
+            }
+        }
+    }
+}
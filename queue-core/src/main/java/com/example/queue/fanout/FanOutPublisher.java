@@ -0,0 +1,236 @@
+package com.example.queue.fanout;
+
+import com.example.queue.config.QueueProperties;
+import com.example.queue.core.QueueService;
+import com.example.queue.model.QueueMessage;
+import com.example.queue.ratelimit.TokenBucket;
+import com.example.queue.router.QueueRouter;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 扇出发布器
+ * 一条消息并行发送到多个队列键，每个目标各自超时；成功数达到确认策略要求（全部、任一或N个）时立即判定成功，
+ * 剩余目标已不可能满足要求时立即判定失败。发布延迟取决于最慢的必需目标，而不是各目标耗时之和。
+ * 判定完成后仍在发送的目标继续在后台完成，结果只记录日志。
+ * 发送线程池的等待队列有界，队列已满时目标立即判定失败；等待中已超时的目标在轮到执行时不再发送。
+ * 每个目标按其队列键的限流规则申请发送：被拒绝时立即判定为限流，需要等待时延迟提交，不占用发送线程。
+ */
+@Slf4j
+public class FanOutPublisher {
+
+    private final QueueRouter queueRouter;
+    private final QueueProperties.FanOut config;
+    private final ThreadPoolExecutor executor;
+
+    public FanOutPublisher(QueueRouter queueRouter, QueueProperties queueProperties) {
+        this.queueRouter = queueRouter;
+        this.config = queueProperties.getFanOut();
+        AtomicInteger threadIndex = new AtomicInteger();
+        int threads = Math.max(1, config.getThreads());
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, config.getQueueCapacity())), runnable -> {
+            Thread thread = new Thread(runnable, "fan-out-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, (runnable, pool) -> ((SendTask) runnable).reject());
+    }
+
+    /**
+     * 按预定义的扇出组发布
+     */
+    public FanOutResult publish(String groupName, QueueMessage message) {
+        QueueProperties.Group group = config.getGroups().get(groupName);
+        if (group == null) {
+            throw new IllegalArgumentException("扇出组不存在: " + groupName);
+        }
+        return publish(message, group.getTargets(), group.getAck(), group.getTimeoutMs(), group.getTargetTimeoutMs());
+    }
+
+    /**
+     * 发布到指定目标，阻塞到确认策略判定完成
+     */
+    public FanOutResult publish(QueueMessage message, List<String> targets, String ack, long timeoutMs,
+                                Map<String, Long> targetTimeoutMs) {
+        try {
+            return publishAsync(message, targets, ack, timeoutMs, targetTimeoutMs).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("扇出发布被中断", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("扇出发布失败: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * 发布到指定目标，返回在确认策略判定完成时完成的Future
+     * @param ack all / any / 数字N
+     * @param targetTimeoutMs 按目标覆盖的超时，可为null
+     */
+    public CompletableFuture<FanOutResult> publishAsync(QueueMessage message, List<String> targets, String ack,
+                                                        long timeoutMs, Map<String, Long> targetTimeoutMs) {
+        if (message == null || targets == null || targets.isEmpty()) {
+            throw new IllegalArgumentException("消息和目标队列不能为空");
+        }
+        int required = requiredAcks(ack, targets.size());
+        Map<String, Long> overrides = targetTimeoutMs != null ? targetTimeoutMs : Collections.emptyMap();
+
+        // 先解析全部目标，队列键错误时不发送任何一份
+        List<QueueService> services = new ArrayList<>(targets.size());
+        for (String target : targets) {
+            services.add(queueRouter.getQueueService(target));
+        }
+
+        long startNanos = System.nanoTime();
+        FanOutResult result = new FanOutResult();
+        result.setMessageId(message.getMessageId());
+        result.setRequiredAcks(required);
+        targets.forEach(target -> result.getTargets().put(target, FanOutResult.PENDING));
+
+        CompletableFuture<FanOutResult> completion = new CompletableFuture<>();
+        Object monitor = new Object();
+        int[] counts = new int[2]; // [成功数, 失败数]
+
+        for (int i = 0; i < targets.size(); i++) {
+            String target = targets.get(i);
+            QueueService service = services.get(i);
+            QueueMessage copy = message.copy();
+            long timeout = overrides.getOrDefault(target, timeoutMs);
+
+            SendTask task = new SendTask(service, copy);
+            long waitNanos = queueRouter.getRateLimiter().reserve(target, 1);
+            task.sent.orTimeout(timeout, TimeUnit.MILLISECONDS)
+                    .whenComplete((sent, error) -> {
+                        String status = error != null
+                                ? (error instanceof TimeoutException ? FanOutResult.TIMEOUT
+                                : error instanceof RateLimitedException ? FanOutResult.RATE_LIMITED : FanOutResult.FAILED)
+                                : (Boolean.TRUE.equals(sent) ? FanOutResult.SENT : FanOutResult.FAILED);
+                        synchronized (monitor) {
+                            if (completion.isDone()) {
+                                log.info("扇出目标在判定后完成: messageId={}, target={}, status={}",
+                                        message.getMessageId(), target, status);
+                                return;
+                            }
+                            result.getTargets().put(target, status);
+                            if (FanOutResult.SENT.equals(status)) {
+                                counts[0]++;
+                            } else {
+                                counts[1]++;
+                            }
+                            boolean satisfied = counts[0] >= required;
+                            boolean impossible = targets.size() - counts[1] < required;
+                            if (satisfied || impossible) {
+                                result.setSuccess(satisfied);
+                                result.setAcks(counts[0]);
+                                result.setElapsedMs((System.nanoTime() - startNanos) / 1_000_000.0);
+                                // 交出快照，之后完成的目标不再修改返回给调用方的结果
+                                FanOutResult snapshot = new FanOutResult();
+                                snapshot.setMessageId(result.getMessageId());
+                                snapshot.setSuccess(result.isSuccess());
+                                snapshot.setRequiredAcks(required);
+                                snapshot.setAcks(result.getAcks());
+                                snapshot.setElapsedMs(result.getElapsedMs());
+                                snapshot.getTargets().putAll(result.getTargets());
+                                completion.complete(snapshot);
+                            }
+                        }
+                    });
+            if (waitNanos == TokenBucket.REJECTED) {
+                task.sent.completeExceptionally(new RateLimitedException());
+            } else if (waitNanos > 0) {
+                CompletableFuture.delayedExecutor(waitNanos, TimeUnit.NANOSECONDS, executor).execute(task);
+            } else {
+                executor.execute(task);
+            }
+        }
+
+        return completion.whenComplete((fanOutResult, error) -> {
+            if (fanOutResult != null && !fanOutResult.isSuccess()) {
+                log.warn("扇出发布未满足确认策略: messageId={}, acks={}/{}, targets={}",
+                        fanOutResult.getMessageId(), fanOutResult.getAcks(), required, fanOutResult.getTargets());
+            }
+        });
+    }
+
+    /**
+     * 解析确认策略
+     */
+    static int requiredAcks(String ack, int targetCount) {
+        if (ack == null || ack.trim().isEmpty() || "all".equalsIgnoreCase(ack.trim())) {
+            return targetCount;
+        }
+        if ("any".equalsIgnoreCase(ack.trim())) {
+            return 1;
+        }
+        try {
+            int required = Integer.parseInt(ack.trim());
+            if (required < 1 || required > targetCount) {
+                throw new IllegalArgumentException("确认数应在1到" + targetCount + "之间: " + ack);
+            }
+            return required;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("未知的确认策略: " + ack);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * 目标被限流拒绝
+     */
+    private static final class RateLimitedException extends RuntimeException {
+        private RateLimitedException() {
+            super("扇出目标被限流", null, false, false);
+        }
+    }
+
+    /**
+     * 发送到单个目标的任务，结果写入 sent
+     */
+    private static final class SendTask implements Runnable {
+        private final QueueService service;
+        private final QueueMessage message;
+        private final CompletableFuture<Boolean> sent = new CompletableFuture<>();
+
+        private SendTask(QueueService service, QueueMessage message) {
+            this.service = service;
+            this.message = message;
+        }
+
+        @Override
+        public void run() {
+            // 在等待队列中已经超时的目标不再发送
+            if (sent.isDone()) {
+                return;
+            }
+            try {
+                sent.complete(service.sendMessage(message));
+            } catch (Throwable e) {
+                sent.completeExceptionally(e);
+            }
+        }
+
+        /**
+         * 线程池已满或已关闭时立即判定失败
+         */
+        private void reject() {
+            sent.completeExceptionally(new RejectedExecutionException("扇出发送队列已满"));
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.queue.fanout;
+
+import lombok.Data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 扇出发布结果
+ */
+@Data
+public class FanOutResult {
+
+    /**
+     * 目标状态：成功
+     */
+    public static final String SENT = "SENT";
+
+    /**
+     * 目标状态：发送失败
+     */
+    public static final String FAILED = "FAILED";
+
+    /**
+     * 目标状态：被该队列键的限流规则拒绝
+     */
+    public static final String RATE_LIMITED = "RATE_LIMITED";
+
+    /**
+     * 目标状态：超时
+     */
+    public static final String TIMEOUT = "TIMEOUT";
+
+    /**
+     * 目标状态：判定完成时仍在发送
+     */
+    public static final String PENDING = "PENDING";
+
+    private String messageId;
+
+    /**
+     * 是否满足确认策略
+     */
+    private boolean success;
+
+    /**
+     * 需要的成功目标数
+     */
+    private int requiredAcks;
+
+    /**
+     * 判定完成时的成功目标数
+     */
+    private int acks;
+
+    /**
+     * 从开始发送到判定完成的耗时（毫秒）
+     */
+    private double elapsedMs;
+
+    /**
+     * 各目标状态，键为队列键
+     */
+    private Map<String, String> targets = new LinkedHashMap<>();
+}
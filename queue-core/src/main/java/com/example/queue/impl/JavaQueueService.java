@@ -0,0 +1,205 @@
+package com.example.queue.impl;
+
+import com.example.queue.core.AbstractQueueService;
+import com.example.queue.core.InMemoryQueue;
+import com.example.queue.model.CompactMessage;
+import com.example.queue.model.QueueMessage;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Java内置队列实现
+ * 队列中保存紧凑表示 {@link CompactMessage}，出队时才还原为消息对象；
+ * 头部的过期消息在出队时连续丢弃，只比较过期时间，不还原消息对象
+ */
+@Slf4j
+public class JavaQueueService extends AbstractQueueService implements InMemoryQueue {
+    
+    private final BlockingQueue<CompactMessage> queue;
+    
+    /**
+     * 停止接收后发送直接失败，保证快照之后不再有新消息进入
+     */
+    private volatile boolean intakeStopped;
+    
+    public JavaQueueService(String queueName) {
+        super(queueName, "JAVA");
+        this.queue = new LinkedBlockingQueue<>();
+        log.info("初始化Java队列: {}", queueName);
+    }
+    
+    @Override
+    public boolean sendMessage(QueueMessage message) {
+        try {
+            if (message == null) {
+                log.warn("消息不能为空");
+                return false;
+            }
+            if (intakeStopped) {
+                log.warn("队列已停止接收消息: {}", queueName);
+                return false;
+            }
+            
+            stampEnqueueTime(message);
+            boolean result = queue.offer(CompactMessage.of(message));
+            if (result) {
+                signalArrival();
+                logOperation("发送消息", "messageId=" + message.getMessageId());
+            } else {
+                log.warn("队列已满，无法添加消息");
+            }
+            return result;
+        } catch (Exception e) {
+            log.error("发送消息失败: {}", e.getMessage(), e);
+            return false;
+        }
+    }
+    
+    @Override
+    public QueueMessage receiveMessage() {
+        try {
+            QueueMessage message = materialize(pollLive());
+            if (message != null) {
+                logOperation("接收消息", "messageId=" + message.getMessageId());
+            }
+            return recordDwell(message);
+        } catch (Exception e) {
+            log.error("接收消息失败: {}", e.getMessage(), e);
+            return null;
+        }
+    }
+    
+    @Override
+    public QueueMessage receiveMessage(long timeoutSeconds) {
+        try {
+            QueueMessage message = materialize(pollLive(TimeUnit.SECONDS.toNanos(timeoutSeconds)));
+            if (message != null) {
+                logOperation("接收消息(超时)", "messageId=" + message.getMessageId(), "timeout=" + timeoutSeconds);
+            }
+            return recordDwell(message);
+        } catch (InterruptedException e) {
+            log.warn("接收消息被中断: {}", e.getMessage());
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            log.error("接收消息失败: {}", e.getMessage(), e);
+            return null;
+        }
+    }
+    
+    @Override
+    public List<QueueMessage> receiveMessages(int maxMessages) {
+        List<QueueMessage> messages = new ArrayList<>(Math.max(0, maxMessages));
+        List<CompactMessage> compacts = new ArrayList<>(Math.max(0, maxMessages));
+        long now = System.currentTimeMillis();
+        int expired = 0;
+        while (messages.size() < maxMessages) {
+            compacts.clear();
+            queue.drainTo(compacts, maxMessages - messages.size());
+            if (compacts.isEmpty()) {
+                break;
+            }
+            for (CompactMessage compact : compacts) {
+                if (compact.isExpired(now)) {
+                    expired++;
+                } else {
+                    messages.add(recordDwell(compact.toMessage()));
+                }
+            }
+        }
+        recordExpired(expired);
+        return messages;
+    }
+    
+    @Override
+    public long getQueueSize() {
+        return queue.size();
+    }
+    
+    @Override
+    public boolean clearQueue() {
+        try {
+            queue.clear();
+            logOperation("清空队列");
+            return true;
+        } catch (Exception e) {
+            log.error("清空队列失败: {}", e.getMessage(), e);
+            return false;
+        }
+    }
+    
+    @Override
+    public void stopIntake() {
+        intakeStopped = true;
+    }
+    
+    /**
+     * 队列迭代器是弱一致的，遍历期间的并发接收不受影响；
+     * 遍历期间被接收走的消息可能仍出现在快照中，恢复后会重复投递一次
+     */
+    @Override
+    public void forEachMessage(Consumer<QueueMessage> action) {
+        for (CompactMessage compact : queue) {
+            action.accept(compact.toMessage());
+        }
+    }
+    
+    @Override
+    protected boolean isArrivalNotifying() {
+        return true;
+    }
+    
+    @Override
+    public void restore(List<QueueMessage> messages) {
+        for (QueueMessage message : messages) {
+            queue.offer(CompactMessage.of(message));
+        }
+        if (!messages.isEmpty()) {
+            signalArrival();
+        }
+        logOperation("恢复快照", "count=" + messages.size());
+    }
+    
+    /**
+     * 取出第一条未过期的消息，之前的过期消息全部丢弃
+     */
+    private CompactMessage pollLive() {
+        long now = System.currentTimeMillis();
+        int expired = 0;
+        CompactMessage compact;
+        while ((compact = queue.poll()) != null && compact.isExpired(now)) {
+            expired++;
+        }
+        recordExpired(expired);
+        return compact;
+    }
+    
+    /**
+     * 在超时时间内等待第一条未过期的消息
+     */
+    private CompactMessage pollLive(long timeoutNanos) throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutNanos;
+        int expired = 0;
+        try {
+            while (true) {
+                CompactMessage compact = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (compact == null || !compact.isExpired(System.currentTimeMillis())) {
+                    return compact;
+                }
+                expired++;
+            }
+        } finally {
+            recordExpired(expired);
+        }
+    }
+    
+    private static QueueMessage materialize(CompactMessage compact) {
+        return compact != null ? compact.toMessage() : null;
+    }
+}
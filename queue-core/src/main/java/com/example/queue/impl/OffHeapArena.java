@@ -0,0 +1,275 @@
+package com.example.queue.impl;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+/**
+ * 堆外记录环
+ * 由固定大小的直接内存块组成，记录格式为 4字节长度 + 8字节过期时间（纪元毫秒） + 内容，按写入顺序追加、按相同顺序读出。
+ * 过期时间放在记录头中，跳过过期记录只移动读位置，不拷贝也不反序列化内容。
+ * 当前块剩余空间放不下一条记录时写入跳转标记并换到下一块；读完的块回到空闲池供后续写入复用，
+ * 空闲池之外的块立即释放。超过单块大小的记录独占一个按需分配的块。
+ * 堆上只保存块引用和读写位置，非线程安全，由调用方加锁。
+ */
+@Slf4j
+public class OffHeapArena {
+
+    private static final int LENGTH_BYTES = Integer.BYTES;
+
+    private static final int HEADER_BYTES = LENGTH_BYTES + Long.BYTES;
+
+    /**
+     * 不过期的记录头中写入的过期时间
+     */
+    public static final long NO_EXPIRY = Long.MAX_VALUE;
+
+    /**
+     * 块内跳转标记：本块剩余部分没有记录
+     */
+    private static final int SKIP = -1;
+
+    /**
+     * 空闲池最多保留的块数
+     */
+    private static final int MAX_POOLED_CHUNKS = 2;
+
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (Exception e) {
+            log.warn("无法主动释放直接内存，将由GC回收: {}", e.getMessage());
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private final int chunkSize;
+    private final long maxBytes;
+    private final Deque<ByteBuffer> chunks = new ArrayDeque<>();
+    private final Deque<ByteBuffer> freeChunks = new ArrayDeque<>();
+
+    private int readPosition;
+    private int writePosition;
+    private long recordCount;
+    private long usedBytes;
+    private long allocatedBytes;
+
+    public OffHeapArena(int chunkSize, long maxBytes) {
+        this.chunkSize = Math.max(1024, chunkSize);
+        this.maxBytes = Math.max(this.chunkSize, maxBytes);
+    }
+
+    /**
+     * 追加一条不过期的记录
+     * @return 超过内存上限时返回false
+     */
+    public boolean write(byte[] record) {
+        return write(record, NO_EXPIRY);
+    }
+
+    /**
+     * 追加一条记录
+     * @param expireAtMillis 过期时间（纪元毫秒），{@link #NO_EXPIRY} 表示不过期
+     * @return 超过内存上限时返回false
+     */
+    public boolean write(byte[] record, long expireAtMillis) {
+        int needed = HEADER_BYTES + record.length;
+        ByteBuffer tail = chunks.peekLast();
+        if (tail == null || tail.capacity() - writePosition < needed) {
+            ByteBuffer next = acquire(Math.max(chunkSize, needed));
+            if (next == null) {
+                return false;
+            }
+            if (tail != null && tail.capacity() - writePosition >= LENGTH_BYTES) {
+                tail.putInt(writePosition, SKIP);
+            }
+            chunks.addLast(next);
+            tail = next;
+            writePosition = 0;
+        }
+
+        tail.putInt(writePosition, record.length);
+        tail.putLong(writePosition + LENGTH_BYTES, expireAtMillis);
+        ByteBuffer target = tail.duplicate();
+        target.position(writePosition + HEADER_BYTES);
+        target.put(record);
+        writePosition += needed;
+        usedBytes += needed;
+        recordCount++;
+        return true;
+    }
+
+    /**
+     * 取出最早的一条记录
+     * @return 没有记录时返回null
+     */
+    public byte[] read() {
+        if (recordCount == 0) {
+            return null;
+        }
+        ByteBuffer head = seekHead();
+        int length = head.getInt(readPosition);
+        byte[] record = new byte[length];
+        ByteBuffer source = head.duplicate();
+        source.position(readPosition + HEADER_BYTES);
+        source.get(record);
+        advance(length);
+        return record;
+    }
+
+    /**
+     * 按顺序遍历全部记录（含已过期的），不移动读位置
+     * @param action 对每条记录内容执行的操作
+     */
+    public void forEach(Consumer<byte[]> action) {
+        Iterator<ByteBuffer> iterator = chunks.iterator();
+        ByteBuffer chunk = iterator.hasNext() ? iterator.next() : null;
+        int position = readPosition;
+        for (long remaining = recordCount; remaining > 0; ) {
+            if (chunk.capacity() - position < LENGTH_BYTES || chunk.getInt(position) == SKIP) {
+                chunk = iterator.next();
+                position = 0;
+                continue;
+            }
+            int length = chunk.getInt(position);
+            byte[] record = new byte[length];
+            ByteBuffer source = chunk.duplicate();
+            source.position(position + HEADER_BYTES);
+            source.get(record);
+            action.accept(record);
+            position += HEADER_BYTES + length;
+            remaining--;
+        }
+    }
+
+    /**
+     * 从头部开始连续丢弃已过期的记录，遇到第一条未过期的记录为止
+     * @param nowMillis 当前时间（纪元毫秒）
+     * @return 丢弃的记录数
+     */
+    public int skipExpired(long nowMillis) {
+        int skipped = 0;
+        while (recordCount > 0) {
+            ByteBuffer head = seekHead();
+            if (head.getLong(readPosition + LENGTH_BYTES) > nowMillis) {
+                break;
+            }
+            advance(head.getInt(readPosition));
+            skipped++;
+        }
+        return skipped;
+    }
+
+    /**
+     * 定位到最早一条记录所在的块，调用前需确认还有记录
+     */
+    private ByteBuffer seekHead() {
+        ByteBuffer head = chunks.peekFirst();
+        while (head.capacity() - readPosition < LENGTH_BYTES || head.getInt(readPosition) == SKIP) {
+            // 本块已读完，还有记录说明后面一定还有块
+            recycle(chunks.pollFirst());
+            head = chunks.peekFirst();
+            readPosition = 0;
+        }
+        return head;
+    }
+
+    private void advance(int length) {
+        readPosition += HEADER_BYTES + length;
+        usedBytes -= HEADER_BYTES + length;
+        recordCount--;
+
+        if (recordCount == 0) {
+            // 已空：只剩写入块，从头复用
+            while (chunks.size() > 1) {
+                recycle(chunks.pollFirst());
+            }
+            readPosition = 0;
+            writePosition = 0;
+        }
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * 记录占用的字节数（含记录头）
+     */
+    public long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * 已分配的直接内存字节数（含空闲池）
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * 释放全部直接内存
+     */
+    public void release() {
+        for (ByteBuffer chunk : chunks) {
+            free(chunk);
+        }
+        for (ByteBuffer chunk : freeChunks) {
+            free(chunk);
+        }
+        chunks.clear();
+        freeChunks.clear();
+        readPosition = 0;
+        writePosition = 0;
+        recordCount = 0;
+        usedBytes = 0;
+        allocatedBytes = 0;
+    }
+
+    private ByteBuffer acquire(int size) {
+        if (size == chunkSize && !freeChunks.isEmpty()) {
+            return freeChunks.pollFirst();
+        }
+        if (allocatedBytes + size > maxBytes) {
+            return null;
+        }
+        allocatedBytes += size;
+        return ByteBuffer.allocateDirect(size);
+    }
+
+    private void recycle(ByteBuffer chunk) {
+        if (chunk.capacity() == chunkSize && freeChunks.size() < MAX_POOLED_CHUNKS) {
+            freeChunks.addLast(chunk);
+        } else {
+            free(chunk);
+        }
+    }
+
+    private void free(ByteBuffer chunk) {
+        allocatedBytes -= chunk.capacity();
+        if (INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invoke(UNSAFE, chunk);
+        } catch (Exception e) {
+            log.debug("释放直接内存失败: {}", e.getMessage());
+        }
+    }
+}
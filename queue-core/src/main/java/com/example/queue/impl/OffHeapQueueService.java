@@ -0,0 +1,312 @@
+package com.example.queue.impl;
+
+import com.example.queue.codec.BinaryMessageCodec;
+import com.example.queue.config.QueueProperties;
+import com.example.queue.core.AbstractQueueService;
+import com.example.queue.core.InMemoryQueue;
+import com.example.queue.model.QueueMessage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * 堆外内存队列实现
+ * 消息序列化后写入 {@link OffHeapArena} 的直接内存块，堆上只有块引用和读写位置，
+ * 积压多少消息堆占用都基本不变；接收时才反序列化。
+ * 过期时间写在记录头中，头部的过期记录在出队时连续跳过，不反序列化。
+ */
+@Slf4j
+public class OffHeapQueueService extends AbstractQueueService implements InMemoryQueue {
+
+    private final ObjectMapper objectMapper;
+    private final BinaryMessageCodec binaryCodec;
+    private final OffHeapArena arena;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private volatile boolean intakeStopped;
+
+    public OffHeapQueueService(String queueName) {
+        this(queueName, new QueueProperties.OffHeap());
+    }
+
+    public OffHeapQueueService(String queueName, QueueProperties.OffHeap config) {
+        super(queueName, "OFF_HEAP");
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.registerModule(new com.fasterxml.jackson.datatype.jsr310.JavaTimeModule());
+        this.objectMapper.disable(com.fasterxml.jackson.databind.SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        this.binaryCodec = new BinaryMessageCodec(objectMapper);
+        this.arena = new OffHeapArena(config.getChunkSize(), config.getMaxBytes());
+        log.info("初始化堆外队列: {}, 块大小: {}, 内存上限: {}", queueName, config.getChunkSize(), config.getMaxBytes());
+    }
+
+    @Override
+    public boolean sendMessage(QueueMessage message) {
+        try {
+            if (message == null) {
+                log.warn("消息不能为空");
+                return false;
+            }
+            if (intakeStopped) {
+                log.warn("队列已停止接收消息: {}", queueName);
+                return false;
+            }
+
+            stampEnqueueTime(message);
+            boolean result = write(message);
+            if (result) {
+                logOperation("发送消息", "messageId=" + message.getMessageId());
+            } else {
+                log.warn("堆外队列已达内存上限，无法添加消息");
+            }
+            return result;
+        } catch (Exception e) {
+            log.error("发送消息失败: {}", e.getMessage(), e);
+            return false;
+        }
+    }
+
+    @Override
+    public QueueMessage receiveMessage() {
+        try {
+            byte[] record;
+            int expired;
+            lock.lock();
+            try {
+                expired = arena.skipExpired(System.currentTimeMillis());
+                record = arena.read();
+            } finally {
+                lock.unlock();
+            }
+            recordExpired(expired);
+            QueueMessage message = decode(record);
+            if (message != null) {
+                logOperation("接收消息", "messageId=" + message.getMessageId());
+            }
+            return recordDwell(message);
+        } catch (Exception e) {
+            log.error("接收消息失败: {}", e.getMessage(), e);
+            return null;
+        }
+    }
+
+    @Override
+    public QueueMessage receiveMessage(long timeoutSeconds) {
+        try {
+            byte[] record;
+            long remaining = TimeUnit.SECONDS.toNanos(timeoutSeconds);
+            int expired = 0;
+            lock.lockInterruptibly();
+            try {
+                while (true) {
+                    expired += arena.skipExpired(System.currentTimeMillis());
+                    if ((record = arena.read()) != null || remaining <= 0) {
+                        break;
+                    }
+                    remaining = notEmpty.awaitNanos(remaining);
+                }
+            } finally {
+                lock.unlock();
+            }
+            recordExpired(expired);
+            QueueMessage message = decode(record);
+            if (message != null) {
+                logOperation("接收消息(超时)", "messageId=" + message.getMessageId(), "timeout=" + timeoutSeconds);
+            }
+            return recordDwell(message);
+        } catch (InterruptedException e) {
+            log.warn("接收消息被中断: {}", e.getMessage());
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            log.error("接收消息失败: {}", e.getMessage(), e);
+            return null;
+        }
+    }
+
+    @Override
+    public List<QueueMessage> receiveMessages(int maxMessages) {
+        List<QueueMessage> messages = take(maxMessages);
+        messages.forEach(this::recordDwell);
+        return messages;
+    }
+
+    @Override
+    public long getQueueSize() {
+        lock.lock();
+        try {
+            return arena.getRecordCount();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 清空队列并释放全部直接内存
+     */
+    @Override
+    public boolean clearQueue() {
+        lock.lock();
+        try {
+            arena.release();
+            logOperation("清空队列");
+            return true;
+        } catch (Exception e) {
+            log.error("清空队列失败: {}", e.getMessage(), e);
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        lock.lock();
+        try {
+            if (arena.getRecordCount() > 0) {
+                log.warn("堆外队列关闭，{}条消息丢弃: {}", arena.getRecordCount(), queueName);
+            }
+            arena.release();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void stopIntake() {
+        intakeStopped = true;
+    }
+
+    /**
+     * 遍历期间持有队列锁，接收在遍历结束前等待
+     */
+    @Override
+    public void forEachMessage(Consumer<QueueMessage> action) {
+        lock.lock();
+        try {
+            arena.forEach(record -> {
+                try {
+                    action.accept(decode(record));
+                } catch (IOException e) {
+                    log.error("消息反序列化失败: {}", e.getMessage(), e);
+                }
+            });
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    protected boolean isArrivalNotifying() {
+        return true;
+    }
+
+    @Override
+    public void restore(List<QueueMessage> messages) {
+        int restored = 0;
+        for (QueueMessage message : messages) {
+            try {
+                if (write(message)) {
+                    restored++;
+                } else {
+                    log.warn("堆外队列已达内存上限，快照中剩余{}条消息未恢复", messages.size() - restored);
+                    break;
+                }
+            } catch (IOException e) {
+                log.error("消息序列化失败: {}", e.getMessage(), e);
+            }
+        }
+        logOperation("恢复快照", "count=" + restored);
+    }
+
+    /**
+     * 堆外内存使用情况
+     */
+    public Map<String, Object> getArenaInfo() {
+        Map<String, Object> info = new LinkedHashMap<>();
+        lock.lock();
+        try {
+            info.put("messages", arena.getRecordCount());
+            info.put("usedBytes", arena.getUsedBytes());
+            info.put("allocatedBytes", arena.getAllocatedBytes());
+        } finally {
+            lock.unlock();
+        }
+        return info;
+    }
+
+    private byte[] encode(QueueMessage message) throws IOException {
+        return message.isBinary() ? binaryCodec.encode(message) : objectMapper.writeValueAsBytes(message);
+    }
+
+    /**
+     * 按顺序取出最多 maxMessages 条消息，丢弃已过期的
+     */
+    private List<QueueMessage> take(int maxMessages) {
+        List<byte[]> records = new ArrayList<>(Math.max(0, maxMessages));
+        int expired = 0;
+        lock.lock();
+        try {
+            long now = System.currentTimeMillis();
+            byte[] record;
+            while (records.size() < maxMessages) {
+                expired += arena.skipExpired(now);
+                if ((record = arena.read()) == null) {
+                    break;
+                }
+                records.add(record);
+            }
+        } finally {
+            lock.unlock();
+        }
+        recordExpired(expired);
+
+        // 反序列化在锁外进行
+        List<QueueMessage> messages = new ArrayList<>(records.size());
+        for (byte[] record : records) {
+            try {
+                messages.add(decode(record));
+            } catch (IOException e) {
+                log.error("消息反序列化失败: {}", e.getMessage(), e);
+            }
+        }
+        return messages;
+    }
+
+    private boolean write(QueueMessage message) throws IOException {
+        byte[] record = encode(message);
+        long expireAt = message.getExpireAt() != null ? message.getExpireAt() : OffHeapArena.NO_EXPIRY;
+        boolean result;
+        lock.lock();
+        try {
+            result = arena.write(record, expireAt);
+            if (result) {
+                notEmpty.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (result) {
+            signalArrival();
+        }
+        return result;
+    }
+
+    private QueueMessage decode(byte[] record) throws IOException {
+        if (record == null) {
+            return null;
+        }
+        if (BinaryMessageCodec.isBinary(record)) {
+            return binaryCodec.decode(record);
+        }
+        return objectMapper.readValue(record, QueueMessage.class);
+    }
+}
@@ -0,0 +1,288 @@
+package com.example.queue.longpoll;
+
+import com.example.queue.config.QueueProperties;
+import com.example.queue.core.QueueService;
+import com.example.queue.model.QueueMessage;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 长轮询分发器
+ * 接收请求先在调用线程上做一次不等待的接收，没有消息时登记为等待者并立即返回Future，调用线程不阻塞。
+ * 所有等待者由一个分发线程完成：
+ * <ul>
+ *   <li>支持到达通知的后端（java、off-heap、RabbitMQ拉取消费者）在消息入队后通知，分发线程随即接收并交给最早的等待者</li>
+ *   <li>其余后端按 minPollIntervalMs 轮询有等待者的队列，没有消息时间隔按倍数退避到 maxPollIntervalMs</li>
+ * </ul>
+ * 接收使用不等待的批量接收 {@link QueueService#receiveMessages(int)}，一次往返取出等待者需要的消息数，不会阻塞分发线程。
+ * 等待者超时后以空列表完成；取出后未能交付（等待者已取消）的消息留在本地，优先交给下一个等待者，关闭时发回队列。
+ */
+@Slf4j
+public class LongPollDispatcher {
+
+    private final QueueProperties.LongPoll config;
+    private final ScheduledThreadPoolExecutor worker;
+    private final ConcurrentMap<String, QueueWaiters> queues = new ConcurrentHashMap<>();
+    private final AtomicInteger waiterCount = new AtomicInteger();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public LongPollDispatcher(QueueProperties queueProperties) {
+        this.config = queueProperties.getLongPoll();
+        this.worker = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "long-poll-dispatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long tickMs = Math.max(1, config.getMinPollIntervalMs());
+        this.worker.scheduleWithFixedDelay(this::tick, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 接收最多 maxMessages 条消息，没有消息时最多等待 timeoutMs 毫秒
+     * @param queueKey 队列键（type:name）
+     * @param queueService 队列服务
+     * @return 消息列表的Future，超时以空列表完成；等待者过多时以 {@link IllegalStateException} 失败。
+     *         调用方放弃等待时取消该Future
+     */
+    public CompletableFuture<List<QueueMessage>> receive(String queueKey, QueueService queueService,
+                                                         int maxMessages, long timeoutMs) {
+        QueueWaiters queue = queues.computeIfAbsent(queueKey, key -> new QueueWaiters(key, queueService));
+        int limit = Math.max(1, maxMessages);
+        List<QueueMessage> immediate = queue.take(limit);
+        if (!immediate.isEmpty() || timeoutMs <= 0) {
+            delivered.add(immediate.size());
+            return CompletableFuture.completedFuture(immediate);
+        }
+        if (waiterCount.incrementAndGet() > config.getMaxWaiters()) {
+            waiterCount.decrementAndGet();
+            rejected.increment();
+            CompletableFuture<List<QueueMessage>> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new IllegalStateException("等待中的接收请求过多: " + config.getMaxWaiters()));
+            return failed;
+        }
+
+        long waitMs = Math.min(timeoutMs, config.getMaxTimeoutMs());
+        Waiter waiter = new Waiter(limit, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMs));
+        waiter.future.whenComplete((messages, error) -> waiterCount.decrementAndGet());
+        queue.waiters.add(waiter);
+        // 登记之后再检查一次，消息可能在首次接收和登记之间到达，那次通知没有等待者可以唤醒
+        signal(queue);
+        return waiter.future;
+    }
+
+    /**
+     * 等待者数量与各队列的状态
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("waiting", waiterCount.get());
+        result.put("delivered", delivered.sum());
+        result.put("timedOut", timedOut.sum());
+        result.put("rejected", rejected.sum());
+        Map<String, Object> queueStats = new TreeMap<>();
+        queues.forEach((queueKey, queue) -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("waiting", queue.waiters.size());
+            entry.put("arrivalNotifying", queue.notifying);
+            entry.put("pollIntervalMs", queue.pollIntervalMs);
+            entry.put("undelivered", queue.undelivered.size());
+            queueStats.put(queueKey, entry);
+        });
+        result.put("queues", queueStats);
+        return result;
+    }
+
+    /**
+     * 停止分发，等待者以空列表完成，未交付的消息发回原队列
+     */
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+        for (QueueWaiters queue : queues.values()) {
+            Waiter waiter;
+            while ((waiter = queue.waiters.poll()) != null) {
+                waiter.future.complete(Collections.emptyList());
+            }
+            List<QueueMessage> undelivered = new ArrayList<>(queue.undelivered);
+            queue.undelivered.clear();
+            if (!undelivered.isEmpty()) {
+                int sent = queue.service.sendMessages(undelivered);
+                log.info("长轮询分发器关闭，{}条未交付消息发回队列: {}, 成功{}条", undelivered.size(), queue.queueKey, sent);
+            }
+        }
+    }
+
+    /**
+     * 有等待者时安排一次分发，分发进行中收到的通知会再安排一次
+     */
+    private void signal(QueueWaiters queue) {
+        if (queue.waiters.isEmpty() || !queue.drainScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            worker.execute(() -> {
+                queue.drainScheduled.set(false);
+                drain(queue);
+            });
+        } catch (RuntimeException e) {
+            // 已关闭
+            queue.drainScheduled.set(false);
+        }
+    }
+
+    /**
+     * 按登记顺序把消息交给等待者，直到没有等待者或没有消息
+     * @return 是否交付了消息
+     */
+    private boolean drain(QueueWaiters queue) {
+        boolean found = false;
+        Waiter waiter;
+        while ((waiter = queue.waiters.peek()) != null) {
+            if (waiter.future.isDone()) {
+                queue.waiters.remove(waiter);
+                continue;
+            }
+            List<QueueMessage> messages = queue.take(waiter.maxMessages);
+            if (messages.isEmpty()) {
+                break;
+            }
+            found = true;
+            queue.waiters.remove(waiter);
+            if (waiter.future.complete(messages)) {
+                delivered.add(messages.size());
+            } else {
+                // 等待者在接收期间被取消，消息按原顺序放回本地，交给下一个等待者
+                for (int i = messages.size() - 1; i >= 0; i--) {
+                    queue.undelivered.addFirst(messages.get(i));
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 定时任务：完成超时的等待者，轮询不支持到达通知的队列
+     */
+    private void tick() {
+        try {
+            if (waiterCount.get() == 0) {
+                return;
+            }
+            long now = System.nanoTime();
+            for (QueueWaiters queue : queues.values()) {
+                expire(queue, now);
+                if (queue.waiters.isEmpty()) {
+                    queue.pollIntervalMs = config.getMinPollIntervalMs();
+                    continue;
+                }
+                if (now - queue.nextPollNanos < 0) {
+                    continue;
+                }
+                boolean found = drain(queue);
+                if (queue.notifying) {
+                    // 到达通知负责及时性，轮询只做兜底
+                    queue.pollIntervalMs = config.getMaxPollIntervalMs();
+                } else {
+                    queue.pollIntervalMs = found ? config.getMinPollIntervalMs()
+                            : Math.min(config.getMaxPollIntervalMs(), Math.max(1, queue.pollIntervalMs) * 2);
+                }
+                queue.nextPollNanos = now + TimeUnit.MILLISECONDS.toNanos(queue.pollIntervalMs);
+            }
+        } catch (Exception e) {
+            log.error("长轮询分发失败: {}", e.getMessage(), e);
+        }
+    }
+
+    private void expire(QueueWaiters queue, long now) {
+        Iterator<Waiter> iterator = queue.waiters.iterator();
+        while (iterator.hasNext()) {
+            Waiter waiter = iterator.next();
+            if (waiter.future.isDone()) {
+                iterator.remove();
+            } else if (now - waiter.deadlineNanos >= 0) {
+                iterator.remove();
+                if (waiter.future.complete(Collections.emptyList())) {
+                    timedOut.increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * 单个队列的等待者
+     */
+    private final class QueueWaiters {
+        private final String queueKey;
+        private final QueueService service;
+        private final ConcurrentLinkedDeque<Waiter> waiters = new ConcurrentLinkedDeque<>();
+        private final ConcurrentLinkedDeque<QueueMessage> undelivered = new ConcurrentLinkedDeque<>();
+        private final AtomicBoolean drainScheduled = new AtomicBoolean();
+        private final boolean notifying;
+
+        /**
+         * 轮询状态，只由分发线程读写
+         */
+        private volatile long pollIntervalMs;
+        private long nextPollNanos;
+
+        private QueueWaiters(String queueKey, QueueService service) {
+            this.queueKey = queueKey;
+            this.service = service;
+            this.pollIntervalMs = config.getMinPollIntervalMs();
+            this.nextPollNanos = System.nanoTime();
+            this.notifying = service.addArrivalListener(() -> signal(this));
+            log.info("长轮询队列登记: {}, 到达通知: {}", queueKey, notifying);
+        }
+
+        /**
+         * 不等待地取出最多 maxMessages 条消息，先取未交付的消息
+         */
+        private List<QueueMessage> take(int maxMessages) {
+            List<QueueMessage> messages = new ArrayList<>(Math.min(maxMessages, 64));
+            QueueMessage message;
+            while (messages.size() < maxMessages && (message = undelivered.pollFirst()) != null) {
+                messages.add(message);
+            }
+            try {
+                // 各后端的批量接收都不等待：Redis和分片一次批量弹出，Streams一次XREADGROUP，进程内队列一次取出，
+                // 只有RabbitMQ基本模式在内部逐条 basic.get
+                if (messages.size() < maxMessages) {
+                    messages.addAll(service.receiveMessages(maxMessages - messages.size()));
+                }
+            } catch (Exception e) {
+                log.warn("长轮询接收失败: queue={}, {}", queueKey, e.getMessage());
+            }
+            return messages;
+        }
+    }
+
+    private static final class Waiter {
+        private final int maxMessages;
+        private final long deadlineNanos;
+        private final CompletableFuture<List<QueueMessage>> future = new CompletableFuture<>();
+
+        private Waiter(int maxMessages, long deadlineNanos) {
+            this.maxMessages = maxMessages;
+            this.deadlineNanos = deadlineNanos;
+        }
+    }
+}
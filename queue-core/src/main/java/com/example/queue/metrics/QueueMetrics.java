@@ -0,0 +1,112 @@
+package com.example.queue.metrics;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 队列延迟指标
+ * 按队列键（type:name）分别统计排队时间（入队到出队）和处理时间（消费者处理耗时），
+ * 排队时间即SLA关注的队列延迟，不包含业务处理耗时。
+ * 另外统计出队时因过期而丢弃的消息数。
+ */
+public class QueueMetrics {
+
+    private final ConcurrentMap<String, QueueLatency> latencies = new ConcurrentHashMap<>();
+
+    /**
+     * 当前时间的纪元纳秒，用于跨进程计算排队时间
+     * Java 11 起 Instant.now() 在 Linux 上为微秒精度
+     */
+    public static long epochNanos() {
+        Instant now = Instant.now();
+        return now.getEpochSecond() * 1_000_000_000L + now.getNano();
+    }
+
+    /**
+     * 记录排队时间
+     * @param queueKey 队列键
+     * @param enqueueTimeNanos 入队时间（纪元纳秒）
+     */
+    public void recordDwell(String queueKey, Long enqueueTimeNanos) {
+        if (enqueueTimeNanos == null || enqueueTimeNanos <= 0) {
+            return;
+        }
+        latencyOf(queueKey).dwell.record(epochNanos() - enqueueTimeNanos);
+    }
+
+    /**
+     * 记录处理时间
+     * @param queueKey 队列键
+     * @param handlerNanos 处理耗时（纳秒）
+     */
+    public void recordHandler(String queueKey, long handlerNanos) {
+        latencyOf(queueKey).handler.record(handlerNanos);
+    }
+
+    /**
+     * 记录出队时丢弃的过期消息
+     * @param queueKey 队列键
+     * @param count 丢弃条数
+     */
+    public void recordExpired(String queueKey, long count) {
+        if (count > 0) {
+            latencyOf(queueKey).expired.add(count);
+        }
+    }
+
+    /**
+     * 累计丢弃的过期消息数
+     */
+    public long getExpired(String queueKey) {
+        return latencyOf(queueKey).expired.sum();
+    }
+
+    public LatencyHistogram getDwell(String queueKey) {
+        return latencyOf(queueKey).dwell;
+    }
+
+    public LatencyHistogram getHandler(String queueKey) {
+        return latencyOf(queueKey).handler;
+    }
+
+    /**
+     * 所有队列的延迟汇总
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new TreeMap<>();
+        latencies.forEach((queueKey, latency) -> {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("dwell", latency.dwell.summary());
+            item.put("handler", latency.handler.summary());
+            item.put("expired", latency.expired.sum());
+            result.put(queueKey, item);
+        });
+        return result;
+    }
+
+    /**
+     * 清空所有统计
+     */
+    public void reset() {
+        latencies.values().forEach(latency -> {
+            latency.dwell.reset();
+            latency.handler.reset();
+            latency.expired.reset();
+        });
+    }
+
+    private QueueLatency latencyOf(String queueKey) {
+        return latencies.computeIfAbsent(queueKey, key -> new QueueLatency());
+    }
+
+    private static final class QueueLatency {
+        private final LatencyHistogram dwell = new LatencyHistogram();
+        private final LatencyHistogram handler = new LatencyHistogram();
+        private final LongAdder expired = new LongAdder();
+    }
+}
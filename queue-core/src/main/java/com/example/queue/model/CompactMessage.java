@@ -0,0 +1,175 @@
+package com.example.queue.model;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 内存队列中消息的紧凑表示
+ * 时间、优先级、延迟都保存为基本类型（空值用哨兵值表示），UUID格式的消息ID保存为两个long，
+ * 消息类型编码为全局类型表中的序号。每条消息只剩一个对象加上内容字符串（或二进制消息体），
+ * 出队时再还原为 {@link QueueMessage}。
+ */
+public final class CompactMessage {
+
+    private static final long NULL_LONG = Long.MIN_VALUE;
+    private static final int NULL_INT = Integer.MIN_VALUE;
+
+    /**
+     * 类型表容量，超过后新类型直接保存字符串引用
+     */
+    private static final int MAX_TYPE_CODES = 4096;
+    private static final Map<String, Integer> TYPE_CODES = new ConcurrentHashMap<>();
+    private static final Object TYPE_LOCK = new Object();
+
+    /**
+     * 序号到类型名的表，出队时无锁读取；注册新类型时在锁内复制出新数组再整体替换，
+     * 新数组先于 TYPE_CODES 发布，拿到序号的线程一定能读到对应的类型名
+     */
+    private static volatile String[] typeNames = new String[0];
+
+    private final long idMostSigBits;
+    private final long idLeastSigBits;
+
+    /**
+     * 非UUID格式的消息ID，UUID格式时为null
+     */
+    private final String rawId;
+
+    /**
+     * 类型序号，0表示没有类型或未编码
+     */
+    private final int typeCode;
+
+    /**
+     * 类型表已满时保存的类型字符串
+     */
+    private final String rawType;
+
+    private final String content;
+    private final byte[] body;
+    private final Map<String, String> headers;
+    private final long createTimeNanos;
+    private final long delaySeconds;
+    private final long enqueueTimeNanos;
+    private final long expireAt;
+    private final int priority;
+
+    private CompactMessage(QueueMessage message) {
+        UUID uuid = parseUuid(message.getMessageId());
+        this.idMostSigBits = uuid != null ? uuid.getMostSignificantBits() : 0;
+        this.idLeastSigBits = uuid != null ? uuid.getLeastSignificantBits() : 0;
+        this.rawId = uuid != null ? null : message.getMessageId();
+        this.typeCode = encodeType(message.getMessageType());
+        this.rawType = typeCode == 0 ? message.getMessageType() : null;
+        this.content = message.getContent();
+        this.body = message.getBody();
+        this.headers = message.getHeaders() != null && !message.getHeaders().isEmpty() ? message.getHeaders() : null;
+        this.createTimeNanos = toNanos(message.getCreateTime());
+        this.delaySeconds = message.getDelaySeconds() != null ? message.getDelaySeconds() : NULL_LONG;
+        this.enqueueTimeNanos = message.getEnqueueTimeNanos() != null ? message.getEnqueueTimeNanos() : NULL_LONG;
+        this.expireAt = message.getExpireAt() != null ? message.getExpireAt() : NULL_LONG;
+        this.priority = message.getPriority() != null ? message.getPriority() : NULL_INT;
+    }
+
+    /**
+     * 压缩一条消息，二进制消息体、内容字符串和消息头按引用保存
+     */
+    public static CompactMessage of(QueueMessage message) {
+        return new CompactMessage(message);
+    }
+
+    /**
+     * 还原为消息对象
+     */
+    public QueueMessage toMessage() {
+        QueueMessage message = new QueueMessage();
+        message.setMessageId(rawId != null ? rawId : new UUID(idMostSigBits, idLeastSigBits).toString());
+        message.setMessageType(typeCode != 0 ? typeName(typeCode) : rawType);
+        message.setContent(content);
+        message.setBody(body);
+        message.setHeaders(headers);
+        message.setCreateTime(fromNanos(createTimeNanos));
+        message.setDelaySeconds(delaySeconds != NULL_LONG ? delaySeconds : null);
+        message.setEnqueueTimeNanos(enqueueTimeNanos != NULL_LONG ? enqueueTimeNanos : null);
+        message.setExpireAt(expireAt != NULL_LONG ? expireAt : null);
+        message.setPriority(priority != NULL_INT ? priority : null);
+        return message;
+    }
+
+    public long getEnqueueTimeNanos() {
+        return enqueueTimeNanos;
+    }
+
+    /**
+     * 是否已过期，不需要还原消息对象
+     * @param nowMillis 当前时间（纪元毫秒）
+     */
+    public boolean isExpired(long nowMillis) {
+        return expireAt != NULL_LONG && expireAt <= nowMillis;
+    }
+
+    private static UUID parseUuid(String id) {
+        // 只接受规范格式，保证还原后的字符串与原ID完全一致
+        if (id == null || id.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(id);
+            return uuid.toString().equals(id) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static int encodeType(String type) {
+        if (type == null) {
+            return 0;
+        }
+        Integer code = TYPE_CODES.get(type);
+        if (code != null) {
+            return code;
+        }
+        synchronized (TYPE_LOCK) {
+            code = TYPE_CODES.get(type);
+            if (code != null) {
+                return code;
+            }
+            String[] names = typeNames;
+            if (names.length >= MAX_TYPE_CODES) {
+                return 0;
+            }
+            String[] updated = Arrays.copyOf(names, names.length + 1);
+            updated[names.length] = type;
+            typeNames = updated;
+            code = updated.length;
+            TYPE_CODES.put(type, code);
+            return code;
+        }
+    }
+
+    private static String typeName(int code) {
+        return typeNames[code - 1];
+    }
+
+    /**
+     * LocalDateTime按UTC偏移折算为纳秒，只用于无损往返，不代表真实时区
+     */
+    private static long toNanos(LocalDateTime time) {
+        if (time == null) {
+            return NULL_LONG;
+        }
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + time.getNano();
+    }
+
+    private static LocalDateTime fromNanos(long nanos) {
+        if (nanos == NULL_LONG) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, 1_000_000_000L),
+                (int) Math.floorMod(nanos, 1_000_000_000L), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.queue.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 队列消息模型
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QueueMessage {
+    
+    /**
+     * 消息ID
+     */
+    private String messageId;
+    
+    /**
+     * 消息内容
+     */
+    private String content;
+    
+    /**
+     * 消息类型
+     */
+    private String messageType;
+    
+    /**
+     * 创建时间
+     */
+    private LocalDateTime createTime;
+    
+    /**
+     * 优先级
+     */
+    private Integer priority;
+    
+    /**
+     * 延迟时间（秒）
+     */
+    private Long delaySeconds;
+    
+    /**
+     * 入队时间（纪元纳秒），由队列实现在发送时写入，用于计算排队时间
+     */
+    private Long enqueueTimeNanos;
+    
+    /**
+     * 二进制消息体，不为空时各队列实现按原始字节传输，不经过字符串和JSON转码
+     * 走JSON序列化的路径（如信封、Redis Streams）中按Base64编码
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private byte[] body;
+    
+    /**
+     * 消息头，随消息在各队列实现间传递（如重试次数）
+     * 名称不要以 x- 开头，RabbitMQ二进制消息中 x- 开头的头保留给队列实现和Broker
+     */
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private Map<String, String> headers;
+    
+    /**
+     * 过期时间（纪元毫秒），为空表示不过期
+     * 已过期的消息在出队时直接丢弃并计数，不交给消费者
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long expireAt;
+    
+    public QueueMessage(String messageId, String content) {
+        this.messageId = messageId;
+        this.content = content;
+        this.createTime = LocalDateTime.now();
+        this.priority = 0;
+        this.delaySeconds = 0L;
+    }
+    
+    public QueueMessage(String messageId, String content, String messageType) {
+        this.messageId = messageId;
+        this.content = content;
+        this.messageType = messageType;
+        this.createTime = LocalDateTime.now();
+        this.priority = 0;
+        this.delaySeconds = 0L;
+    }
+    
+    /**
+     * 创建二进制消息，直接持有传入的数组，不做拷贝
+     */
+    public static QueueMessage ofBytes(String messageId, byte[] body) {
+        QueueMessage message = new QueueMessage(messageId, null);
+        message.setBody(body);
+        return message;
+    }
+    
+    /**
+     * 浅拷贝，发往多个队列时每个队列各用一份，避免并发写入入队时间和消息头；消息体数组共享
+     */
+    public QueueMessage copy() {
+        return new QueueMessage(messageId, content, messageType, createTime, priority, delaySeconds, enqueueTimeNanos, body,
+                headers != null ? new LinkedHashMap<>(headers) : null, expireAt);
+    }
+    
+    /**
+     * 设置存活时间，从当前时间起算
+     * @param ttlMillis 存活毫秒数
+     * @return 当前消息
+     */
+    public QueueMessage expireAfter(long ttlMillis) {
+        this.expireAt = System.currentTimeMillis() + ttlMillis;
+        return this;
+    }
+    
+    /**
+     * 是否已过期
+     * @param nowMillis 当前时间（纪元毫秒）
+     */
+    public boolean isExpired(long nowMillis) {
+        return expireAt != null && expireAt <= nowMillis;
+    }
+    
+    /**
+     * 读取消息头，不存在时返回null
+     */
+    public String getHeader(String name) {
+        return headers != null ? headers.get(name) : null;
+    }
+    
+    /**
+     * 写入消息头
+     */
+    public void setHeader(String name, String value) {
+        if (headers == null) {
+            headers = new LinkedHashMap<>();
+        }
+        headers.put(name, value);
+    }
+    
+    /**
+     * 是否为二进制消息
+     */
+    @JsonIgnore
+    public boolean isBinary() {
+        return body != null;
+    }
+    
+    /**
+     * 二进制消息体的只读视图，不拷贝
+     */
+    @JsonIgnore
+    public ByteBuffer getBodyBuffer() {
+        return body != null ? ByteBuffer.wrap(body).asReadOnlyBuffer() : null;
+    }
+    
+    /**
+     * 文本视图：文本消息返回content，二进制消息按UTF-8解码消息体
+     */
+    @JsonIgnore
+    public String getContentAsString() {
+        if (content != null || body == null) {
+            return content;
+        }
+        return new String(body, StandardCharsets.UTF_8);
+    }
+}
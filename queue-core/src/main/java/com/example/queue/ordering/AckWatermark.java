@@ -0,0 +1,139 @@
+package com.example.queue.ordering;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.LongConsumer;
+
+/**
+ * 单个信道的确认水位线
+ * 投递标签在同一信道上单调递增。每个投递登记它包含的消息数，消息处理完成后计数减一；
+ * 只有当最早的未完成投递完成时水位线才前进，随后用一次批量确认（multiple=true）确认水位线及之前的全部投递。
+ * 后面的投递先完成时只记录，不会越过仍在处理的投递提前确认。
+ * 有消息要求重新入队的投递在水位线到达时单独拒绝（重新入队），其前后的投递照常批量确认。
+ */
+@Slf4j
+public class AckWatermark {
+
+    private final LongConsumer acker;
+    private final LongConsumer requeuer;
+
+    /**
+     * 未确认的投递标签 -> 剩余未完成的消息数
+     */
+    private final TreeMap<Long, Integer> outstanding = new TreeMap<>();
+
+    /**
+     * 需要重新入队的投递标签
+     */
+    private final Set<Long> requeued = new HashSet<>();
+
+    private long lastRegistered;
+    private long acknowledged;
+
+    /**
+     * @param acker 批量确认回调，参数为水位线上的投递标签
+     */
+    public AckWatermark(LongConsumer acker) {
+        this(acker, deliveryTag -> log.warn("投递要求重新入队，但没有拒绝回调，按确认处理: deliveryTag={}", deliveryTag));
+    }
+
+    /**
+     * @param acker 批量确认回调，参数为水位线上的投递标签
+     * @param requeuer 单个投递的拒绝并重新入队回调
+     */
+    public AckWatermark(LongConsumer acker, LongConsumer requeuer) {
+        this.acker = acker;
+        this.requeuer = requeuer;
+    }
+
+    /**
+     * 登记一个投递，必须在它的任何消息完成之前调用
+     * @param deliveryTag 投递标签
+     * @param messages 投递包含的消息数，为0时视为已完成
+     */
+    public synchronized void register(long deliveryTag, int messages) {
+        if (deliveryTag <= lastRegistered) {
+            // 信道重建后投递标签从1重新开始，旧信道上未确认的投递由Broker重新投递
+            log.warn("投递标签回退({} -> {})，丢弃{}个旧信道上未确认的投递", lastRegistered, deliveryTag, outstanding.size());
+            outstanding.clear();
+            requeued.clear();
+            acknowledged = 0;
+        }
+        lastRegistered = deliveryTag;
+        outstanding.put(deliveryTag, Math.max(0, messages));
+        advance();
+    }
+
+    /**
+     * 投递中的一条消息处理完成
+     */
+    public synchronized void complete(long deliveryTag) {
+        complete(deliveryTag, false);
+    }
+
+    /**
+     * 投递中的一条消息处理完成
+     * @param requeue 这条消息未被处理也未被接管，整个投递需要重新入队
+     */
+    public synchronized void complete(long deliveryTag, boolean requeue) {
+        Integer remaining = outstanding.get(deliveryTag);
+        if (remaining == null) {
+            return;
+        }
+        if (requeue) {
+            requeued.add(deliveryTag);
+        }
+        outstanding.put(deliveryTag, remaining - 1);
+        advance();
+    }
+
+    /**
+     * 未确认的投递数
+     */
+    public synchronized int getOutstanding() {
+        return outstanding.size();
+    }
+
+    /**
+     * 最近一次确认的水位线
+     */
+    public synchronized long getAcknowledged() {
+        return acknowledged;
+    }
+
+    /**
+     * 从最早的投递开始移除连续已完成的投递，水位线前进时确认一次；
+     * 遇到需要重新入队的投递时先确认它之前的投递，再单独拒绝它
+     */
+    private void advance() {
+        long watermark = -1;
+        Iterator<Map.Entry<Long, Integer>> iterator = outstanding.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, Integer> entry = iterator.next();
+            if (entry.getValue() > 0) {
+                break;
+            }
+            iterator.remove();
+            if (requeued.remove(entry.getKey())) {
+                if (watermark > 0) {
+                    acknowledged = watermark;
+                    acker.accept(watermark);
+                    watermark = -1;
+                }
+                acknowledged = entry.getKey();
+                requeuer.accept(entry.getKey());
+                continue;
+            }
+            watermark = entry.getKey();
+        }
+        if (watermark > 0) {
+            acknowledged = watermark;
+            acker.accept(watermark);
+        }
+    }
+}
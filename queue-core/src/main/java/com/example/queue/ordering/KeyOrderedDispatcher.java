@@ -0,0 +1,144 @@
+package com.example.queue.ordering;
+
+import com.example.queue.config.QueueProperties;
+import com.example.queue.model.QueueMessage;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按键有序的并行分发器
+ * 消息按排序键哈希到 N 个串行通道，每个通道一个线程按提交顺序执行，
+ * 同一个键的消息总是落在同一通道上，处理顺序与提交顺序一致；不同通道之间并行。
+ * 通道队列不设上限，积压由上游限制：RabbitMQ手动确认时未确认的投递数受预取数约束。
+ * 通道线程在第一次分发时才创建，未启用时没有任何线程。
+ */
+@Slf4j
+public class KeyOrderedDispatcher {
+
+    private final QueueProperties.Ordering config;
+    private final ThreadPoolExecutor[] lanes;
+    private final LongAdder[] completed;
+    private final LongAdder failed = new LongAdder();
+
+    public KeyOrderedDispatcher(QueueProperties queueProperties) {
+        this.config = queueProperties.getOrdering();
+        int laneCount = config.getLanes() > 0 ? config.getLanes() : Runtime.getRuntime().availableProcessors();
+        this.lanes = new ThreadPoolExecutor[laneCount];
+        this.completed = new LongAdder[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            String threadName = "ordered-lane-" + i;
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, threadName);
+                thread.setDaemon(true);
+                return thread;
+            });
+            completed[i] = new LongAdder();
+        }
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    public int getLaneCount() {
+        return lanes.length;
+    }
+
+    /**
+     * 消息的排序键：配置的消息头，没有时为消息ID
+     */
+    public String keyOf(QueueMessage message) {
+        String key = message.getHeader(config.getKeyHeader());
+        return key != null ? key : message.getMessageId();
+    }
+
+    /**
+     * 排序键对应的通道序号
+     */
+    public int laneOf(String key) {
+        if (key == null) {
+            return 0;
+        }
+        // 打散低位，避免相近的键集中到少数通道
+        int hash = key.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), lanes.length);
+    }
+
+    /**
+     * 把任务提交到排序键对应的通道
+     * 任务抛出的异常只记录日志，不影响同一通道后续的任务
+     * @throws java.util.concurrent.RejectedExecutionException 分发器已关闭
+     */
+    public void dispatch(String key, Runnable task) {
+        int lane = laneOf(key);
+        lanes[lane].execute(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                failed.increment();
+                log.error("有序通道任务失败: lane={}, key={}, {}", lane, key, e.getMessage(), e);
+            } finally {
+                completed[lane].increment();
+            }
+        });
+    }
+
+    /**
+     * 各通道的积压和已完成数
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        List<Map<String, Object>> laneStats = new ArrayList<>(lanes.length);
+        long pending = 0;
+        long done = 0;
+        for (int i = 0; i < lanes.length; i++) {
+            Map<String, Object> lane = new LinkedHashMap<>();
+            long lanePending = lanes[i].getQueue().size() + lanes[i].getActiveCount();
+            long laneDone = completed[i].sum();
+            lane.put("lane", i);
+            lane.put("pending", lanePending);
+            lane.put("completed", laneDone);
+            laneStats.add(lane);
+            pending += lanePending;
+            done += laneDone;
+        }
+        result.put("lanes", lanes.length);
+        result.put("pending", pending);
+        result.put("completed", done);
+        result.put("failed", failed.sum());
+        result.put("laneStats", laneStats);
+        return result;
+    }
+
+    /**
+     * 停止接收新任务，等待通道中已提交的任务处理完成
+     */
+    @PreDestroy
+    public void shutdown() {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getShutdownTimeoutMs());
+        try {
+            for (ThreadPoolExecutor lane : lanes) {
+                if (!lane.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                    log.warn("有序通道关闭超时，{}个任务未处理", lane.shutdownNow().size());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            for (ThreadPoolExecutor lane : lanes) {
+                lane.shutdownNow();
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.queue.ratelimit;
+
+import com.example.queue.config.QueueProperties;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 按队列键的生产端限流器
+ * 每个配置了规则的队列键对应一个 {@link TokenBucket}，没有规则的队列键不做任何限制。
+ */
+@Slf4j
+public class QueueRateLimiter {
+
+    private final ConcurrentMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    public QueueRateLimiter(QueueProperties.RateLimit config) {
+        if (config.isEnabled()) {
+            config.getLimits().forEach(this::setLimit);
+        }
+    }
+
+    /**
+     * 申请发送
+     * @return 需要等待的纳秒数（0表示立即发送），{@link TokenBucket#REJECTED} 表示拒绝
+     */
+    public long reserve(String queueKey, int permits) {
+        TokenBucket bucket = buckets.get(queueKey);
+        return bucket != null ? bucket.reserve(permits) : 0;
+    }
+
+    /**
+     * 设置或更新队列键的限流规则，立即生效
+     */
+    public void setLimit(String queueKey, QueueProperties.Limit limit) {
+        buckets.computeIfAbsent(queueKey, key -> new TokenBucket(limit)).update(limit);
+        log.info("队列限流规则: {}, {}/s, burst={}, mode={}, maxWaitMs={}", queueKey,
+                limit.getPermitsPerSecond(), limit.getBurst(), limit.getMode(), limit.getMaxWaitMs());
+    }
+
+    /**
+     * 移除队列键的限流规则
+     * @return 是否存在规则
+     */
+    public boolean removeLimit(String queueKey) {
+        boolean removed = buckets.remove(queueKey) != null;
+        if (removed) {
+            log.info("移除队列限流规则: {}", queueKey);
+        }
+        return removed;
+    }
+
+    /**
+     * 各队列键的规则与放行、等待、拒绝统计
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new TreeMap<>();
+        buckets.forEach((queueKey, bucket) -> result.put(queueKey, bucket.summary()));
+        return result;
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.queue.ratelimit;
+
+import com.example.queue.config.QueueProperties;
+import com.example.queue.metrics.LatencyHistogram;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁令牌桶
+ * 按GCRA实现：整个桶只有一个原子时间戳（理论到达时间TAT），每次申请用一次CAS把TAT推后 permits * 发放间隔，
+ * 不需要定时补充令牌，也没有任何同步块。TAT超前当前时间不超过突发容量时立即放行；
+ * 超前更多时按模式拒绝，或返回需要等待的时长（预约已生效，调用方等待后直接发送）。
+ * 规则保存在不可变对象中，运行时整体替换。
+ */
+public class TokenBucket {
+
+    /**
+     * 超限处理方式
+     */
+    public enum Mode {
+        REJECT, WAIT, SMOOTH;
+
+        public static Mode fromString(String value) {
+            try {
+                return Mode.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("未知的限流模式: " + value);
+            }
+        }
+    }
+
+    /**
+     * 预约被拒绝
+     */
+    public static final long REJECTED = -1;
+
+    private final AtomicLong theoreticalArrivalNanos = new AtomicLong(Long.MIN_VALUE);
+    private volatile Rule rule;
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder delayed = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LatencyHistogram waits = new LatencyHistogram();
+
+    public TokenBucket(QueueProperties.Limit limit) {
+        update(limit);
+    }
+
+    /**
+     * 替换限流规则，已有的预约保持不变
+     */
+    public void update(QueueProperties.Limit limit) {
+        this.rule = new Rule(limit);
+    }
+
+    /**
+     * 申请发送 permits 条消息
+     * @return 需要等待的纳秒数（0表示立即发送），{@link #REJECTED} 表示拒绝
+     */
+    public long reserve(int permits) {
+        Rule current = rule;
+        long increment = current.intervalNanos * Math.max(1, permits);
+        while (true) {
+            long now = System.nanoTime();
+            long tat = theoreticalArrivalNanos.get();
+            long base = tat == Long.MIN_VALUE || tat - now < 0 ? now : tat;
+            long next = base + increment;
+            long wait = next - current.toleranceNanos - now;
+            if (wait > current.maxWaitNanos) {
+                throttled.add(permits);
+                return REJECTED;
+            }
+            if (theoreticalArrivalNanos.compareAndSet(tat, next)) {
+                if (wait > 0) {
+                    delayed.add(permits);
+                    waits.record(wait);
+                    return wait;
+                }
+                allowed.add(permits);
+                return 0;
+            }
+        }
+    }
+
+    public Map<String, Object> summary() {
+        Rule current = rule;
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("permitsPerSecond", current.permitsPerSecond);
+        info.put("burst", current.mode == Mode.SMOOTH ? 1 : current.burst);
+        info.put("mode", current.mode.name().toLowerCase(Locale.ROOT));
+        info.put("maxWaitMs", TimeUnit.NANOSECONDS.toMillis(current.maxWaitNanos));
+        info.put("allowed", allowed.sum());
+        info.put("delayed", delayed.sum());
+        info.put("throttled", throttled.sum());
+        info.put("waitMeanMicros", Math.round(waits.getMeanNanos() / 1000.0));
+        info.put("waitP99Micros", waits.percentile(99) / 1000);
+        info.put("waitMaxMicros", waits.getMaxNanos() / 1000);
+        return info;
+    }
+
+    /**
+     * 不可变的限流规则
+     */
+    private static final class Rule {
+        private final double permitsPerSecond;
+        private final int burst;
+        private final Mode mode;
+        private final long intervalNanos;
+        private final long toleranceNanos;
+        private final long maxWaitNanos;
+
+        private Rule(QueueProperties.Limit limit) {
+            if (limit.getPermitsPerSecond() <= 0) {
+                throw new IllegalArgumentException("permitsPerSecond 必须大于0");
+            }
+            this.permitsPerSecond = limit.getPermitsPerSecond();
+            this.burst = Math.max(1, limit.getBurst());
+            this.mode = Mode.fromString(limit.getMode());
+            this.intervalNanos = Math.max(1, (long) (1_000_000_000L / permitsPerSecond));
+            // smooth 不允许突发，每条消息之间至少间隔一个发放间隔
+            this.toleranceNanos = intervalNanos * (mode == Mode.SMOOTH ? 1 : burst);
+            this.maxWaitNanos = mode == Mode.REJECT ? 0 : TimeUnit.MILLISECONDS.toNanos(Math.max(0, limit.getMaxWaitMs()));
+        }
+    }
+}
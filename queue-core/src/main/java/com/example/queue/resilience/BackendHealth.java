@@ -0,0 +1,161 @@
+package com.example.queue.resilience;
+
+import com.example.queue.config.QueueProperties;
+import com.example.queue.metrics.LatencyHistogram;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 后端健康状态与熔断器
+ * 按窗口滚动统计调用数、错误数、慢调用数和延迟直方图：当前窗口写入，上一个完整窗口用于计算对冲延迟。
+ * 窗口内调用数达到 minCalls 且错误率或慢调用率超过阈值时熔断；熔断 openMs 后放行一次探测调用，
+ * 探测成功恢复，失败继续熔断。探测超过 halfOpenTimeoutMs 仍未报告结果时按失败处理，避免停在半开状态。
+ */
+@Slf4j
+public class BackendHealth {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final QueueProperties.Resilience config;
+    private final long windowNanos;
+    private final long slowCallNanos;
+
+    private State state = State.CLOSED;
+    private long openedAtNanos;
+    private long probeStartedNanos;
+    private long windowStartNanos;
+    private long calls;
+    private long errors;
+    private long slowCalls;
+    private LatencyHistogram current = new LatencyHistogram();
+    private LatencyHistogram previous = new LatencyHistogram();
+    private long openCount;
+
+    public BackendHealth(String name, QueueProperties.Resilience config) {
+        this.name = name;
+        this.config = config;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, config.getWindowMs()));
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(config.getSlowCallMs());
+        this.windowStartNanos = System.nanoTime();
+    }
+
+    /**
+     * 是否允许调用主队列；熔断到期后只放行一次探测调用
+     */
+    public synchronized boolean allowRequest() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        long now = System.nanoTime();
+        if (state == State.HALF_OPEN
+                && now - probeStartedNanos >= TimeUnit.MILLISECONDS.toNanos(config.getHalfOpenTimeoutMs())) {
+            log.warn("后端探测调用超时未报告结果，重新熔断: {}", name);
+            open();
+            return false;
+        }
+        if (state == State.OPEN && now - openedAtNanos >= TimeUnit.MILLISECONDS.toNanos(config.getOpenMs())) {
+            state = State.HALF_OPEN;
+            probeStartedNanos = now;
+            log.info("后端熔断到期，放行探测调用: {}", name);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 记录一次调用结果
+     * @param elapsedNanos 调用耗时，超时的调用按超时时长记录
+     * @param success 是否成功
+     */
+    public synchronized void record(long elapsedNanos, boolean success) {
+        roll();
+        current.record(elapsedNanos);
+        calls++;
+        if (!success) {
+            errors++;
+        }
+        if (elapsedNanos >= slowCallNanos) {
+            slowCalls++;
+        }
+
+        if (state == State.HALF_OPEN) {
+            if (success && elapsedNanos < slowCallNanos) {
+                state = State.CLOSED;
+                resetWindow();
+                log.info("后端探测成功，恢复调用: {}", name);
+            } else {
+                open();
+            }
+        } else if (state == State.CLOSED && calls >= config.getMinCalls()
+                && ((double) errors / calls >= config.getErrorRateThreshold()
+                || (double) slowCalls / calls >= config.getSlowCallRateThreshold())) {
+            open();
+        }
+    }
+
+    /**
+     * 发送耗时分位数（纳秒），优先使用上一个完整窗口，样本不足时返回-1
+     */
+    public synchronized long percentileNanos(double percentile) {
+        roll();
+        LatencyHistogram source = previous.getCount() >= config.getMinCalls() ? previous : current;
+        return source.getCount() >= config.getMinCalls() ? source.percentile(percentile) : -1;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized Map<String, Object> summary() {
+        roll();
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("state", state.name());
+        info.put("windowCalls", calls);
+        info.put("windowErrors", errors);
+        info.put("windowSlowCalls", slowCalls);
+        info.put("p99Micros", Math.max(0, previous.getCount() > 0 ? previous.percentile(99) : current.percentile(99)) / 1000);
+        info.put("openCount", openCount);
+        return info;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAtNanos = System.nanoTime();
+        openCount++;
+        log.warn("后端熔断: {}, 窗口调用{}次, 错误{}次, 慢调用{}次", name, calls, errors, slowCalls);
+    }
+
+    private void roll() {
+        long now = System.nanoTime();
+        if (now - windowStartNanos < windowNanos) {
+            return;
+        }
+        if (now - windowStartNanos < 2 * windowNanos) {
+            LatencyHistogram recycled = previous;
+            previous = current;
+            current = recycled;
+        } else {
+            // 跨过多个窗口，上一个窗口没有样本
+            previous.reset();
+        }
+        current.reset();
+        windowStartNanos = now;
+        calls = 0;
+        errors = 0;
+        slowCalls = 0;
+    }
+
+    private void resetWindow() {
+        windowStartNanos = System.nanoTime();
+        calls = 0;
+        errors = 0;
+        slowCalls = 0;
+        current.reset();
+    }
+}
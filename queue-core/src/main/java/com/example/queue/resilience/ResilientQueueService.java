@@ -0,0 +1,352 @@
+package com.example.queue.resilience;
+
+import com.example.queue.config.QueueProperties;
+import com.example.queue.core.AbstractQueueService;
+import com.example.queue.core.QueueService;
+import com.example.queue.model.QueueMessage;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 带故障转移的队列服务
+ * 包装一个主队列和一个备用队列：主队列发送在独立线程上执行并限时，超时、失败或熔断时转到备用队列，
+ * 请求线程不会被主队列的延迟尖刺拖住。开启对冲后，主队列在历史分位数延迟内没有完成时向备用队列再发一份，
+ * 先成功者返回，因此对冲会产生重复消息，消费方需要按消息ID去重。
+ * 熔断恢复后，备用队列中的积压按批回迁到主队列（回迁的消息排在恢复后新发送的消息之后）。
+ */
+@Slf4j
+public class ResilientQueueService extends AbstractQueueService {
+
+    private final QueueService primary;
+    private final QueueService failover;
+    private final String failoverKey;
+    private final QueueProperties.Resilience config;
+    private final BackendHealth health;
+    private final ThreadPoolExecutor sendExecutor;
+    private final ScheduledExecutorService drainScheduler;
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    private final LongAdder failoverSends = new LongAdder();
+    private final LongAdder hedgedSends = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    private final LongAdder drained = new LongAdder();
+
+    public ResilientQueueService(String queueName, QueueService primary, QueueService failover, String failoverKey,
+                                 QueueProperties.Resilience config) {
+        super(queueName, primary.getQueueType());
+        this.primary = primary;
+        this.failover = failover;
+        this.failoverKey = failoverKey;
+        this.config = config;
+        this.health = new BackendHealth(getQueueKey(), config);
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        // 不排队：线程用满说明主队列已经全面变慢，直接转到备用队列
+        this.sendExecutor = new ThreadPoolExecutor(0, Math.max(1, config.getThreads()), 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "resilient-send-" + queueName + "-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.drainScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "resilient-drain-" + queueName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.drainScheduler.scheduleWithFixedDelay(this::drainQuietly,
+                config.getDrainIntervalMs(), config.getDrainIntervalMs(), TimeUnit.MILLISECONDS);
+        log.info("初始化故障转移队列: {}, 备用队列: {}, 对冲: {}", queueName, failoverKey, config.getHedge().isEnabled());
+    }
+
+    @Override
+    public boolean sendMessage(QueueMessage message) {
+        if (message == null) {
+            log.warn("消息不能为空");
+            return false;
+        }
+        if (!health.allowRequest()) {
+            return sendToFailover(message);
+        }
+        if (config.getSendTimeoutMs() <= 0 && !config.getHedge().isEnabled()) {
+            long start = System.nanoTime();
+            boolean sent = sendQuietly(primary, message);
+            health.record(System.nanoTime() - start, sent);
+            return sent || sendToFailover(message);
+        }
+
+        long start = System.nanoTime();
+        AtomicBoolean recorded = new AtomicBoolean();
+        CompletableFuture<Boolean> primaryFuture;
+        try {
+            primaryFuture = CompletableFuture.supplyAsync(() -> sendQuietly(primary, message), sendExecutor);
+        } catch (RejectedExecutionException e) {
+            // 按失败计入：这次可能是半开状态下唯一的探测调用，不报告结果熔断器会一直停在半开
+            health.record(System.nanoTime() - start, false);
+            log.warn("主队列发送线程已满，转到备用队列: {}", queueName);
+            return sendToFailover(message);
+        }
+        primaryFuture.whenComplete((sent, error) -> {
+            if (recorded.compareAndSet(false, true)) {
+                health.record(System.nanoTime() - start, Boolean.TRUE.equals(sent));
+            }
+        });
+
+        long timeoutNanos = config.getSendTimeoutMs() > 0
+                ? TimeUnit.MILLISECONDS.toNanos(config.getSendTimeoutMs()) : Long.MAX_VALUE;
+        if (config.getHedge().isEnabled()) {
+            long hedgeDelayNanos = Math.min(hedgeDelayNanos(), timeoutNanos);
+            Boolean sent = await(primaryFuture, hedgeDelayNanos);
+            if (sent != null) {
+                return sent || sendToFailover(message);
+            }
+            return hedge(message, primaryFuture, start, timeoutNanos, recorded);
+        }
+
+        Boolean sent = await(primaryFuture, timeoutNanos);
+        if (sent == null) {
+            // 超时的调用立即计入健康统计，不等它最终完成
+            if (recorded.compareAndSet(false, true)) {
+                health.record(System.nanoTime() - start, false);
+            }
+            log.warn("主队列发送超时，转到备用队列: {}, messageId={}", queueName, message.getMessageId());
+            return sendToFailover(message.copy());
+        }
+        return sent || sendToFailover(message);
+    }
+
+    /**
+     * 备用队列中是转移期间的积压，比主队列中的消息更早，优先接收
+     */
+    @Override
+    public QueueMessage receiveMessage() {
+        QueueMessage message = failover.receiveMessage();
+        if (message != null || health.getState() != BackendHealth.State.CLOSED) {
+            return message;
+        }
+        return receiveQuietly(primary);
+    }
+
+    @Override
+    public QueueMessage receiveMessage(long timeoutSeconds) {
+        if (health.getState() != BackendHealth.State.CLOSED) {
+            return failover.receiveMessage(timeoutSeconds);
+        }
+        QueueMessage message = failover.receiveMessage();
+        return message != null ? message : primary.receiveMessage(timeoutSeconds);
+    }
+
+    @Override
+    public List<QueueMessage> receiveMessages(int maxMessages) {
+        List<QueueMessage> messages = new ArrayList<>(failover.receiveMessages(maxMessages));
+        if (messages.size() < maxMessages && health.getState() == BackendHealth.State.CLOSED) {
+            try {
+                messages.addAll(primary.receiveMessages(maxMessages - messages.size()));
+            } catch (Exception e) {
+                log.error("从主队列批量接收失败: {}", e.getMessage(), e);
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * 主队列和备用队列都支持到达通知时才算支持
+     */
+    @Override
+    public boolean addArrivalListener(Runnable listener) {
+        boolean primaryNotifying = primary.addArrivalListener(listener);
+        return failover.addArrivalListener(listener) && primaryNotifying;
+    }
+
+    @Override
+    public long getQueueSize() {
+        long size = failover.getQueueSize();
+        if (health.getState() == BackendHealth.State.CLOSED) {
+            try {
+                size += primary.getQueueSize();
+            } catch (Exception e) {
+                log.error("获取主队列大小失败: {}", e.getMessage(), e);
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public boolean clearQueue() {
+        boolean primaryCleared = primary.clearQueue();
+        return failover.clearQueue() && primaryCleared;
+    }
+
+    /**
+     * 关闭主队列；备用队列由路由器单独管理
+     */
+    @Override
+    public void shutdown() {
+        drainScheduler.shutdownNow();
+        sendExecutor.shutdown();
+        primary.shutdown();
+    }
+
+    /**
+     * 健康与故障转移状态
+     */
+    public Map<String, Object> getResilienceInfo() {
+        Map<String, Object> info = new LinkedHashMap<>(health.summary());
+        info.put("failoverQueue", failoverKey);
+        info.put("failoverBacklog", failover.getQueueSize());
+        info.put("failoverSends", failoverSends.sum());
+        info.put("hedgeDelayMicros", config.getHedge().isEnabled() ? hedgeDelayNanos() / 1000 : null);
+        info.put("hedgedSends", hedgedSends.sum());
+        info.put("hedgeWins", hedgeWins.sum());
+        info.put("drained", drained.sum());
+        return info;
+    }
+
+    public BackendHealth getHealth() {
+        return health;
+    }
+
+    public QueueService getPrimary() {
+        return primary;
+    }
+
+    /**
+     * 对冲：向备用队列再发一份，两边先成功者返回
+     */
+    private boolean hedge(QueueMessage message, CompletableFuture<Boolean> primaryFuture, long start,
+                          long timeoutNanos, AtomicBoolean recorded) {
+        hedgedSends.increment();
+        QueueMessage copy = message.copy();
+        CompletableFuture<Boolean> hedgeFuture;
+        try {
+            hedgeFuture = CompletableFuture.supplyAsync(() -> sendQuietly(failover, copy), sendExecutor);
+        } catch (RejectedExecutionException e) {
+            hedgeFuture = CompletableFuture.completedFuture(sendQuietly(failover, copy));
+        }
+
+        CompletableFuture<Boolean> firstSuccess = new CompletableFuture<>();
+        CompletableFuture<Boolean> hedgeResult = hedgeFuture;
+        primaryFuture.thenAccept(sent -> {
+            if (sent) {
+                firstSuccess.complete(true);
+            }
+        });
+        hedgeResult.thenAccept(sent -> {
+            if (sent && firstSuccess.complete(true)) {
+                hedgeWins.increment();
+                failoverSends.increment();
+            }
+        });
+        CompletableFuture.allOf(primaryFuture, hedgeResult).whenComplete((ignored, error) -> firstSuccess.complete(false));
+
+        long remaining = timeoutNanos == Long.MAX_VALUE ? Long.MAX_VALUE : timeoutNanos - (System.nanoTime() - start);
+        Boolean sent = await(firstSuccess, Math.max(0, remaining));
+        if (sent == null && recorded.compareAndSet(false, true)) {
+            health.record(System.nanoTime() - start, false);
+        }
+        return Boolean.TRUE.equals(sent);
+    }
+
+    private long hedgeDelayNanos() {
+        QueueProperties.Hedge hedge = config.getHedge();
+        long minNanos = TimeUnit.MILLISECONDS.toNanos(hedge.getMinDelayMs());
+        long maxNanos = TimeUnit.MILLISECONDS.toNanos(hedge.getMaxDelayMs());
+        long percentileNanos = health.percentileNanos(hedge.getPercentile());
+        return percentileNanos < 0 ? minNanos : Math.max(minNanos, Math.min(maxNanos, percentileNanos));
+    }
+
+    private boolean sendToFailover(QueueMessage message) {
+        boolean sent = sendQuietly(failover, message);
+        if (sent) {
+            failoverSends.increment();
+        } else {
+            log.error("主队列与备用队列均发送失败: {}, messageId={}", queueName, message.getMessageId());
+        }
+        return sent;
+    }
+
+    /**
+     * 备用队列积压回迁：主队列健康时按批取出逐条发回，发送失败的消息放回备用队列并停止本轮
+     */
+    private void drainQuietly() {
+        if (health.getState() != BackendHealth.State.CLOSED || !draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            List<QueueMessage> batch = failover.receiveMessages(config.getDrainBatch());
+            for (int i = 0; i < batch.size(); i++) {
+                boolean sent = false;
+                if (health.allowRequest()) {
+                    long start = System.nanoTime();
+                    sent = sendQuietly(primary, batch.get(i));
+                    health.record(System.nanoTime() - start, sent);
+                }
+                if (sent) {
+                    drained.increment();
+                    continue;
+                }
+                for (QueueMessage remaining : batch.subList(i, batch.size())) {
+                    failover.sendMessage(remaining);
+                }
+                log.warn("积压回迁中断，{}条消息放回备用队列: {}", batch.size() - i, queueName);
+                break;
+            }
+            if (!batch.isEmpty()) {
+                log.info("备用队列积压回迁: {}, {}条", queueName, batch.size());
+            }
+        } catch (Exception e) {
+            log.error("积压回迁失败: {}", e.getMessage(), e);
+        } finally {
+            draining.set(false);
+        }
+    }
+
+    private QueueMessage receiveQuietly(QueueService service) {
+        try {
+            return service.receiveMessage();
+        } catch (Exception e) {
+            log.error("接收消息失败: {}", e.getMessage(), e);
+            return null;
+        }
+    }
+
+    private static boolean sendQuietly(QueueService service, QueueMessage message) {
+        try {
+            return service.sendMessage(message);
+        } catch (Exception e) {
+            log.error("发送消息失败: {}", e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * 限时等待，超时返回null
+     */
+    private static Boolean await(CompletableFuture<Boolean> future, long timeoutNanos) {
+        try {
+            return timeoutNanos == Long.MAX_VALUE ? future.get() : future.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.example.queue.retry;
+
+import com.example.queue.config.QueueProperties;
+import com.example.queue.core.DelayedRedelivery;
+import com.example.queue.core.InMemoryQueue;
+import com.example.queue.core.QueueService;
+import com.example.queue.metrics.LatencyHistogram;
+import com.example.queue.model.QueueMessage;
+import com.example.queue.router.QueueRouter;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.PreDestroy;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 消费失败重试调度器
+ * 延迟按 initialDelay * multiplier^(attempt-1) 指数增长并截断到 maxDelay，再按 jitter 比例随机缩短，
+ * 避免同一批失败的消息同时重投。已处理次数记录在消息头 {@link #ATTEMPT_HEADER} 中，随消息在队列间传递；
+ * 达到 maxAttempts 后发往死信队列（原队列键 + deadLetterSuffix）。
+ * 原队列支持 {@link DelayedRedelivery} 时，重试交给后端持久保存，到期后由后端投递回原队列；
+ * 进程内队列的重试登记为本进程的定时任务，与队列本身同样只存在于内存中，应用关闭时立即发回原队列。
+ * 其他后端无法持久接管重试，返回 {@link Outcome#REQUEUE}，由调用方拒绝本次投递并重新入队。
+ */
+@Slf4j
+public class RetryScheduler {
+
+    /**
+     * 消息头：已失败的处理次数
+     */
+    public static final String ATTEMPT_HEADER = "retry-attempt";
+
+    /**
+     * 消息头：最后一次失败原因
+     */
+    public static final String LAST_ERROR_HEADER = "retry-last-error";
+
+    /**
+     * 消息头：进入死信队列前所在的队列键
+     */
+    public static final String ORIGINAL_QUEUE_HEADER = "retry-original-queue";
+
+    /**
+     * 登记重试的结果
+     */
+    public enum Outcome {
+        /**
+         * 已安排重试，可以确认本次投递
+         */
+        SCHEDULED,
+        /**
+         * 已进入死信队列，可以确认本次投递
+         */
+        DEAD_LETTERED,
+        /**
+         * 未能接管消息，调用方应拒绝本次投递并重新入队
+         */
+        REQUEUE
+    }
+
+    private final QueueRouter queueRouter;
+    private final QueueProperties.Retry config;
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final Set<PendingRetry> pending = ConcurrentHashMap.newKeySet();
+    private final ConcurrentMap<String, RetryStats> stats = new ConcurrentHashMap<>();
+
+    public RetryScheduler(QueueRouter queueRouter, QueueProperties queueProperties) {
+        this.queueRouter = queueRouter;
+        this.config = queueProperties.getRetry();
+        this.scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "retry-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    /**
+     * 处理失败后登记重试
+     * @param queueKey 消息所在的队列键（type:name）
+     * @param message 处理失败的消息
+     * @param cause 失败原因
+     * @return 登记结果，只有 {@link Outcome#REQUEUE} 时调用方仍需负责这条消息
+     */
+    public Outcome scheduleRetry(String queueKey, QueueMessage message, Throwable cause) {
+        RetryStats queueStats = statsOf(queueKey);
+        QueueMessage retry = message.copy();
+        int attempt = attemptOf(message) + 1;
+        retry.setHeader(ATTEMPT_HEADER, String.valueOf(attempt));
+        if (cause != null) {
+            retry.setHeader(LAST_ERROR_HEADER, String.valueOf(cause.getMessage()));
+        }
+
+        if (attempt >= config.getMaxAttempts()) {
+            return deadLetter(queueKey, retry, "已处理" + attempt + "次");
+        }
+
+        long delayMs = backoffMs(attempt);
+        QueueService queueService;
+        try {
+            queueService = QueueRouter.unwrap(queueRouter.getQueueService(queueKey));
+        } catch (Exception e) {
+            log.error("获取重试队列失败: queue={}, {}", queueKey, e.getMessage());
+            return Outcome.REQUEUE;
+        }
+        if (queueService instanceof DelayedRedelivery) {
+            if (!((DelayedRedelivery) queueService).sendDelayed(retry, delayMs)) {
+                log.warn("延迟重投未被后端接管，交还原队列重新投递: queue={}, messageId={}", queueKey, message.getMessageId());
+                return Outcome.REQUEUE;
+            }
+            queueStats.scheduled.increment();
+            queueStats.backoff.record(TimeUnit.MILLISECONDS.toNanos(delayMs));
+            log.info("消息将在{}ms后第{}次重试(后端延迟队列): queue={}, messageId={}", delayMs, attempt, queueKey, message.getMessageId());
+            return Outcome.SCHEDULED;
+        }
+        if (!(queueService instanceof InMemoryQueue)) {
+            // 内存中的定时任务在进程崩溃时丢失，不替持久化的后端接管消息
+            log.warn("队列不支持延迟重投，交还原队列重新投递: queue={}, messageId={}", queueKey, message.getMessageId());
+            return Outcome.REQUEUE;
+        }
+        if (pending.size() >= config.getMaxPending() || scheduler.isShutdown()) {
+            return deadLetter(queueKey, retry, scheduler.isShutdown() ? "重试调度器已关闭" : "等待重试的消息数超过上限");
+        }
+
+        queueStats.scheduled.increment();
+        queueStats.backoff.record(TimeUnit.MILLISECONDS.toNanos(delayMs));
+        PendingRetry task = new PendingRetry(queueKey, retry, queueStats);
+        pending.add(task);
+        queueStats.pending.incrementAndGet();
+        scheduler.schedule(task, delayMs, TimeUnit.MILLISECONDS);
+        log.info("消息将在{}ms后第{}次重试: queue={}, messageId={}", delayMs, attempt, queueKey, message.getMessageId());
+        return Outcome.SCHEDULED;
+    }
+
+    /**
+     * 消息头中的已失败次数，没有时为0
+     */
+    public static int attemptOf(QueueMessage message) {
+        String attempt = message.getHeader(ATTEMPT_HEADER);
+        if (attempt == null) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(attempt);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * 第attempt次重试的延迟：指数退避截断到上限后按抖动比例随机缩短
+     */
+    long backoffMs(int attempt) {
+        double exponential = config.getInitialDelayMs() * Math.pow(config.getMultiplier(), Math.max(0, attempt - 1));
+        long delay = (long) Math.min(config.getMaxDelayMs(), exponential);
+        double jitter = Math.min(1.0, Math.max(0.0, config.getJitter()));
+        return Math.max(0, delay - (long) (delay * jitter * ThreadLocalRandom.current().nextDouble()));
+    }
+
+    /**
+     * 各队列的重试与死信统计，退避延迟单位毫秒
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new TreeMap<>();
+        stats.forEach((queueKey, queueStats) -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("scheduled", queueStats.scheduled.sum());
+            entry.put("resent", queueStats.resent.sum());
+            entry.put("pending", queueStats.pending.get());
+            entry.put("deadLettered", queueStats.deadLettered.sum());
+            entry.put("backoffCount", queueStats.backoff.getCount());
+            entry.put("backoffMeanMs", Math.round(queueStats.backoff.getMeanNanos() / 1_000_000.0));
+            entry.put("backoffP99Ms", queueStats.backoff.percentile(99) / 1_000_000);
+            entry.put("backoffMaxMs", queueStats.backoff.getMaxNanos() / 1_000_000);
+            result.put(queueKey, entry);
+        });
+        return result;
+    }
+
+    /**
+     * 关闭调度器，未到期的重试立即发回原队列
+     */
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        if (!pending.isEmpty()) {
+            log.info("重试调度器关闭，{}条等待中的重试立即发回原队列", pending.size());
+        }
+        for (PendingRetry task : pending) {
+            task.run();
+        }
+    }
+
+    /**
+     * 发往死信队列，发送失败时返回 {@link Outcome#REQUEUE}，消息仍由调用方负责
+     */
+    private Outcome deadLetter(String queueKey, QueueMessage message, String reason) {
+        String deadLetterKey = queueKey + config.getDeadLetterSuffix();
+        message.setHeader(ORIGINAL_QUEUE_HEADER, queueKey);
+        boolean sent;
+        try {
+            sent = queueRouter.getQueueService(deadLetterKey).sendMessage(message);
+        } catch (Exception e) {
+            log.error("发送死信失败: {}", e.getMessage(), e);
+            sent = false;
+        }
+        if (!sent) {
+            log.error("消息进入死信队列失败: queue={}, messageId={}", queueKey, message.getMessageId());
+            return Outcome.REQUEUE;
+        }
+        statsOf(queueKey).deadLettered.increment();
+        log.warn("消息进入死信队列({}): queue={}, deadLetter={}, messageId={}",
+                reason, queueKey, deadLetterKey, message.getMessageId());
+        return Outcome.DEAD_LETTERED;
+    }
+
+    private RetryStats statsOf(String queueKey) {
+        return stats.computeIfAbsent(queueKey, key -> new RetryStats());
+    }
+
+    /**
+     * 单个队列的重试统计
+     */
+    private static final class RetryStats {
+        private final LongAdder scheduled = new LongAdder();
+        private final LongAdder resent = new LongAdder();
+        private final LongAdder deadLettered = new LongAdder();
+        private final AtomicInteger pending = new AtomicInteger();
+        private final LatencyHistogram backoff = new LatencyHistogram();
+    }
+
+    /**
+     * 等待中的重试，到期或关闭时只发回一次
+     */
+    private final class PendingRetry implements Runnable {
+        private final String queueKey;
+        private final QueueMessage message;
+        private final RetryStats queueStats;
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        private PendingRetry(String queueKey, QueueMessage message, RetryStats queueStats) {
+            this.queueKey = queueKey;
+            this.message = message;
+            this.queueStats = queueStats;
+        }
+
+        @Override
+        public void run() {
+            if (!done.compareAndSet(false, true)) {
+                return;
+            }
+            pending.remove(this);
+            queueStats.pending.decrementAndGet();
+            boolean sent;
+            try {
+                sent = queueRouter.getQueueService(queueKey).sendMessage(message);
+            } catch (Exception e) {
+                log.error("重试消息发回失败: {}", e.getMessage(), e);
+                sent = false;
+            }
+            if (sent) {
+                queueStats.resent.increment();
+            } else {
+                // 发回失败不计入处理次数，按当前次数再等待一轮
+                message.setHeader(ATTEMPT_HEADER, String.valueOf(attemptOf(message) - 1));
+                if (scheduleRetry(queueKey, message, null) == Outcome.REQUEUE) {
+                    log.error("重试消息无法发回也无法进入死信队列，已丢弃: queue={}, messageId={}", queueKey, message.getMessageId());
+                }
+            }
+        }
+    }
+}
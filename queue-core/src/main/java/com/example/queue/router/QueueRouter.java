@@ -0,0 +1,415 @@
+package com.example.queue.router;
+
+import com.example.queue.config.QueueProperties;
+import com.example.queue.core.InMemoryQueue;
+import com.example.queue.core.QueueService;
+import com.example.queue.core.QueueType;
+import com.example.queue.factory.QueueServiceFactory;
+import com.example.queue.model.QueueMessage;
+import com.example.queue.ratelimit.QueueRateLimiter;
+import com.example.queue.ratelimit.TokenBucket;
+import com.example.queue.resilience.ResilientQueueService;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 队列路由器
+ * 支持动态切换不同的队列实现
+ */
+@Slf4j
+public class QueueRouter {
+    
+    private final QueueServiceFactory queueServiceFactory;
+    private final QueueProperties.Resilience resilience;
+    private final QueueRateLimiter rateLimiter;
+    private final Map<String, QueueService> queueServices;
+    private QueueType currentQueueType;
+    private String currentQueueName;
+    
+    public QueueRouter(QueueServiceFactory queueServiceFactory) {
+        this(queueServiceFactory, new QueueProperties());
+    }
+    
+    public QueueRouter(QueueServiceFactory queueServiceFactory, QueueProperties queueProperties) {
+        this.queueServiceFactory = queueServiceFactory;
+        this.resilience = queueProperties.getResilience();
+        this.rateLimiter = new QueueRateLimiter(queueProperties.getRateLimit());
+        this.queueServices = new ConcurrentHashMap<>();
+        this.currentQueueType = QueueType.JAVA; // 默认使用Java队列
+        this.currentQueueName = "default";
+    }
+    
+    /**
+     * 切换到指定的队列类型
+     * @param queueType 队列类型
+     * @param queueName 队列名称
+     */
+    public void switchQueue(QueueType queueType, String queueName) {
+        if (queueType == null || queueName == null || queueName.trim().isEmpty()) {
+            throw new IllegalArgumentException("队列类型和名称不能为空");
+        }
+        
+        getQueueService(queueType, queueName);
+        
+        this.currentQueueType = queueType;
+        this.currentQueueName = queueName;
+        
+        log.info("切换到队列: type={}, name={}", queueType, queueName);
+    }
+    
+    /**
+     * 切换到指定的队列类型（使用字符串）
+     * @param queueTypeString 队列类型字符串
+     * @param queueName 队列名称
+     */
+    public void switchQueue(String queueTypeString, String queueName) {
+        QueueType queueType = QueueType.fromString(queueTypeString);
+        switchQueue(queueType, queueName);
+    }
+    
+    /**
+     * 获取指定队列服务，不存在时创建，不切换当前队列
+     * @param queueType 队列类型
+     * @param queueName 队列名称
+     * @return 队列服务
+     */
+    public QueueService getQueueService(QueueType queueType, String queueName) {
+        if (queueType == null || queueName == null || queueName.trim().isEmpty()) {
+            throw new IllegalArgumentException("队列类型和名称不能为空");
+        }
+        
+        String queueKey = queueType.getValue() + ":" + queueName;
+        QueueService existing = queueServices.get(queueKey);
+        if (existing != null) {
+            return existing;
+        }
+        
+        // 配置了备用队列时包装为故障转移服务；备用队列先创建，避免在computeIfAbsent中递归修改映射
+        String failoverKey = resilience.isEnabled() ? resilience.getFailover().get(queueKey) : null;
+        if (failoverKey != null && !failoverKey.equals(queueKey)) {
+            QueueService failover = getQueueService(failoverKey);
+            return queueServices.computeIfAbsent(queueKey, key -> new ResilientQueueService(queueName,
+                    queueServiceFactory.createQueueService(queueName, queueType), failover, failoverKey, resilience));
+        }
+        return queueServices.computeIfAbsent(queueKey,
+                key -> queueServiceFactory.createQueueService(queueName, queueType));
+    }
+    
+    /**
+     * 按队列键（type:name，如 redis:orders）获取队列服务，不存在时创建
+     * @param queueKey 队列键
+     * @return 队列服务
+     */
+    public QueueService getQueueService(String queueKey) {
+        int separator = queueKey != null ? queueKey.indexOf(':') : -1;
+        if (separator <= 0 || separator == queueKey.length() - 1) {
+            throw new IllegalArgumentException("队列键格式应为 type:name: " + queueKey);
+        }
+        String typeValue = queueKey.substring(0, separator);
+        for (QueueType queueType : QueueType.values()) {
+            if (queueType.getValue().equalsIgnoreCase(typeValue)) {
+                return getQueueService(queueType, queueKey.substring(separator + 1));
+            }
+        }
+        throw new IllegalArgumentException("未知的队列类型: " + typeValue);
+    }
+    
+    /**
+     * 获取当前队列服务
+     * @return 当前队列服务
+     */
+    private QueueService getCurrentQueueService() {
+        return queueServices.get(getCurrentQueueKey());
+    }
+    
+    private String getCurrentQueueKey() {
+        return currentQueueType.getValue() + ":" + currentQueueName;
+    }
+    
+    /**
+     * 按当前队列键的限流规则申请发送，需要等待时在调用线程上等待
+     * @param permits 消息条数
+     * @return 被限流时返回false
+     */
+    private boolean admit(int permits) {
+        String queueKey = getCurrentQueueKey();
+        long waitNanos = rateLimiter.reserve(queueKey, permits);
+        if (waitNanos == TokenBucket.REJECTED) {
+            log.warn("队列发送被限流: {}, {}条", queueKey, permits);
+            return false;
+        }
+        // 预约已经生效，等待期间被中断时提前发送
+        long deadline = System.nanoTime() + waitNanos;
+        while (waitNanos > 0 && !Thread.currentThread().isInterrupted()) {
+            LockSupport.parkNanos(waitNanos);
+            waitNanos = deadline - System.nanoTime();
+        }
+        return true;
+    }
+    
+    /**
+     * 发送消息到当前队列
+     * @param message 消息
+     * @return 是否发送成功
+     */
+    public boolean sendMessage(QueueMessage message) {
+        QueueService queueService = getCurrentQueueService();
+        if (queueService == null) {
+            log.error("当前队列服务不存在");
+            return false;
+        }
+        
+        if (!admit(1)) {
+            return false;
+        }
+        log.info("通过{}队列发送消息: {}", currentQueueType, message.getMessageId());
+        return queueService.sendMessage(message);
+    }
+    
+    /**
+     * 发送二进制消息到当前队列
+     * @param body 消息体
+     * @return 是否发送成功
+     */
+    public boolean sendBytes(byte[] body) {
+        QueueService queueService = getCurrentQueueService();
+        if (queueService == null) {
+            log.error("当前队列服务不存在");
+            return false;
+        }
+        
+        if (!admit(1)) {
+            return false;
+        }
+        log.info("通过{}队列发送二进制消息: {}字节", currentQueueType, body != null ? body.length : 0);
+        return queueService.sendBytes(body);
+    }
+    
+    /**
+     * 异步发送消息到当前队列
+     * @param message 消息
+     * @return 异步结果
+     */
+    public CompletableFuture<Boolean> sendMessageAsync(QueueMessage message) {
+        QueueService queueService = getCurrentQueueService();
+        if (queueService == null) {
+            log.error("当前队列服务不存在");
+            return CompletableFuture.completedFuture(false);
+        }
+        
+        // 需要等待时延迟提交，不阻塞调用线程
+        long waitNanos = rateLimiter.reserve(getCurrentQueueKey(), 1);
+        if (waitNanos == TokenBucket.REJECTED) {
+            log.warn("队列发送被限流: {}", getCurrentQueueKey());
+            return CompletableFuture.completedFuture(false);
+        }
+        log.info("通过{}队列异步发送消息: {}", currentQueueType, message.getMessageId());
+        if (waitNanos > 0) {
+            return CompletableFuture.runAsync(() -> { },
+                    CompletableFuture.delayedExecutor(waitNanos, TimeUnit.NANOSECONDS))
+                    .thenCompose(ignored -> queueService.sendMessageAsync(message));
+        }
+        return queueService.sendMessageAsync(message);
+    }
+    
+    /**
+     * 批量发送消息到当前队列
+     * @param messages 消息列表
+     * @return 发送成功的数量
+     */
+    public int sendMessages(List<QueueMessage> messages) {
+        QueueService queueService = getCurrentQueueService();
+        if (queueService == null) {
+            log.error("当前队列服务不存在");
+            return 0;
+        }
+        
+        if (!admit(messages.size())) {
+            return 0;
+        }
+        log.info("通过{}队列批量发送消息: {}条", currentQueueType, messages.size());
+        return queueService.sendMessages(messages);
+    }
+    
+    /**
+     * 从当前队列接收消息
+     * @return 消息
+     */
+    public QueueMessage receiveMessage() {
+        QueueService queueService = getCurrentQueueService();
+        if (queueService == null) {
+            log.error("当前队列服务不存在");
+            return null;
+        }
+        
+        QueueMessage message = queueService.receiveMessage();
+        if (message != null) {
+            log.info("从{}队列接收消息: {}", currentQueueType, message.getMessageId());
+        }
+        return message;
+    }
+    
+    /**
+     * 从当前队列接收消息（带超时）
+     * @param timeoutSeconds 超时时间
+     * @return 消息
+     */
+    public QueueMessage receiveMessage(long timeoutSeconds) {
+        QueueService queueService = getCurrentQueueService();
+        if (queueService == null) {
+            log.error("当前队列服务不存在");
+            return null;
+        }
+        
+        QueueMessage message = queueService.receiveMessage(timeoutSeconds);
+        if (message != null) {
+            log.info("从{}队列接收消息(超时): {}", currentQueueType, message.getMessageId());
+        }
+        return message;
+    }
+    
+    /**
+     * 从当前队列批量接收消息
+     * @param maxMessages 最大消息数量
+     * @return 消息列表
+     */
+    public List<QueueMessage> receiveMessages(int maxMessages) {
+        QueueService queueService = getCurrentQueueService();
+        if (queueService == null) {
+            log.error("当前队列服务不存在");
+            return List.of();
+        }
+        
+        List<QueueMessage> messages = queueService.receiveMessages(maxMessages);
+        log.info("从{}队列批量接收消息: {}条", currentQueueType, messages.size());
+        return messages;
+    }
+    
+    /**
+     * 获取当前队列大小
+     * @return 队列大小
+     */
+    public long getQueueSize() {
+        QueueService queueService = getCurrentQueueService();
+        if (queueService == null) {
+            log.error("当前队列服务不存在");
+            return 0;
+        }
+        
+        return queueService.getQueueSize();
+    }
+    
+    /**
+     * 清空当前队列
+     * @return 是否清空成功
+     */
+    public boolean clearQueue() {
+        QueueService queueService = getCurrentQueueService();
+        if (queueService == null) {
+            log.error("当前队列服务不存在");
+            return false;
+        }
+        
+        log.info("清空{}队列", currentQueueType);
+        return queueService.clearQueue();
+    }
+    
+    /**
+     * 检查当前队列是否为空
+     * @return 是否为空
+     */
+    public boolean isEmpty() {
+        QueueService queueService = getCurrentQueueService();
+        if (queueService == null) {
+            log.error("当前队列服务不存在");
+            return true;
+        }
+        
+        return queueService.isEmpty();
+    }
+    
+    /**
+     * 获取当前队列类型
+     * @return 当前队列类型
+     */
+    public QueueType getCurrentQueueType() {
+        return currentQueueType;
+    }
+    
+    /**
+     * 获取当前队列名称
+     * @return 当前队列名称
+     */
+    public String getCurrentQueueName() {
+        return currentQueueName;
+    }
+    
+    /**
+     * 获取所有已创建的队列服务
+     * @return 队列服务映射
+     */
+    public Map<String, QueueService> getAllQueueServices() {
+        return Map.copyOf(queueServices);
+    }
+    
+    /**
+     * 获取生产端限流器
+     * @return 限流器
+     */
+    public QueueRateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+    
+    /**
+     * 恢复快照目录中的全部队列，在对外提供服务之前调用
+     * @return 恢复的队列数
+     */
+    public int restoreSnapshots() {
+        List<String> queueKeys = queueServiceFactory.getSnapshotQueueKeys();
+        for (String queueKey : queueKeys) {
+            try {
+                getQueueService(queueKey);
+            } catch (Exception e) {
+                log.error("恢复队列快照失败: {}, {}", queueKey, e.getMessage(), e);
+            }
+        }
+        return queueKeys.size();
+    }
+    
+    /**
+     * 关闭所有已创建的队列服务
+     * 进程内队列先全部停止接收，再逐个写入快照，最后关闭
+     */
+    public void shutdown() {
+        queueServices.values().forEach(queueService -> {
+            QueueService unwrapped = unwrap(queueService);
+            if (unwrapped instanceof InMemoryQueue) {
+                ((InMemoryQueue) unwrapped).stopIntake();
+            }
+        });
+        queueServices.forEach((queueKey, queueService) -> queueServiceFactory.saveSnapshot(queueKey, unwrap(queueService)));
+        queueServices.forEach((queueKey, queueService) -> {
+            try {
+                queueService.shutdown();
+                log.info("队列服务已关闭: {}", queueKey);
+            } catch (Exception e) {
+                log.error("关闭队列服务失败: {}, {}", queueKey, e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * 故障转移包装的队列取出其主队列，进程内主队列同样需要停止接收并写快照
+     */
+    public static QueueService unwrap(QueueService queueService) {
+        return queueService instanceof ResilientQueueService
+                ? ((ResilientQueueService) queueService).getPrimary()
+                : queueService;
+    }
+}
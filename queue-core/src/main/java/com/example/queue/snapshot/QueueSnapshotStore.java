@@ -0,0 +1,349 @@
+package com.example.queue.snapshot;
+
+import com.example.queue.config.QueueProperties;
+import com.example.queue.core.InMemoryQueue;
+import com.example.queue.model.QueueMessage;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * 进程内队列快照存储
+ * 每个队列一个文件，按队列键命名。文件格式：
+ * <pre>
+ * QSNP &lt;4字节版本&gt;
+ * (&lt;4字节记录长度&gt; &lt;记录&gt;)*
+ * -1 &lt;8字节记录数&gt; &lt;8字节CRC32C&gt;
+ * </pre>
+ * 记录是消息各字段的定长/长度前缀二进制编码，不经过JSON。写入时遍历队列而不取出，
+ * 先写临时文件并落盘，再原子替换正式文件，成功后才清空队列；恢复时先顺序校验记录数与CRC，
+ * 再边读边分批放回队列，校验失败的文件改名为 .corrupt 保留。
+ */
+@Slf4j
+public class QueueSnapshotStore {
+
+    private static final byte[] MAGIC = "QSNP".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 2;
+
+    /**
+     * 版本1的记录没有过期时间，读取时兼容
+     */
+    private static final int VERSION_WITHOUT_EXPIRY = 1;
+    private static final int END_OF_RECORDS = -1;
+    private static final String SUFFIX = ".qsnap";
+
+    private static final long NULL_LONG = Long.MIN_VALUE;
+    private static final int NULL_INT = Integer.MIN_VALUE;
+    private static final int NULL_LENGTH = -1;
+
+    private final Path directory;
+    private final int bufferSize;
+    private final int batchSize;
+
+    public QueueSnapshotStore(QueueProperties.Snapshot config) {
+        this.directory = Paths.get(config.getDirectory());
+        this.bufferSize = Math.max(8192, config.getBufferSize());
+        this.batchSize = Math.max(1, config.getBatchSize());
+    }
+
+    /**
+     * 把队列中的全部消息写入快照，快照落盘并替换正式文件后再清空队列；
+     * 写入失败时队列保持原样，消息不会因为写了一半而丢失
+     * @return 写入的消息数
+     */
+    public long save(String queueKey, InMemoryQueue queue) throws IOException {
+        Files.createDirectories(directory);
+        Path file = fileOf(queueKey);
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        long startNanos = System.nanoTime();
+        long[] totals = new long[2];
+        CRC32C crc = new CRC32C();
+        RecordBuffer record = new RecordBuffer();
+        DataOutputStream recordOut = new DataOutputStream(record);
+
+        try (FileOutputStream fileOut = new FileOutputStream(temp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut, bufferSize))) {
+            out.write(MAGIC);
+            out.writeInt(VERSION);
+            try {
+                queue.forEachMessage(message -> {
+                    try {
+                        record.reset();
+                        writeMessage(recordOut, message);
+                        out.writeInt(record.size());
+                        out.write(record.buffer(), 0, record.size());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    crc.update(record.buffer(), 0, record.size());
+                    totals[1] += Integer.BYTES + record.size();
+                    totals[0]++;
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            out.writeInt(END_OF_RECORDS);
+            out.writeLong(totals[0]);
+            out.writeLong(crc.getValue());
+            out.flush();
+            fileOut.getFD().sync();
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        long count = totals[0];
+        if (count == 0) {
+            Files.deleteIfExists(temp);
+            Files.deleteIfExists(file);
+            return 0;
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        queue.clearQueue();
+        log.info("队列快照已写入: {}, {}条消息, {}字节, 耗时{}ms", queueKey, count, totals[1],
+                (System.nanoTime() - startNanos) / 1_000_000);
+        return count;
+    }
+
+    /**
+     * 把队列快照恢复到队列后删除
+     * 先完整校验一遍记录数与CRC，再边读边按 batchSize 分批放回，内存中最多同时保留一批消息；
+     * 校验失败时不恢复任何消息，文件改名为 .corrupt 保留
+     * @return 恢复的消息数，没有快照或快照损坏时返回0
+     */
+    public long restore(String queueKey, InMemoryQueue queue) {
+        Path file = fileOf(queueKey);
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        long startNanos = System.nanoTime();
+        long count;
+        try {
+            count = read(file, batch -> { });
+        } catch (IOException e) {
+            log.error("队列快照损坏，已跳过: {}, {}", queueKey, e.getMessage());
+            keepCorrupt(file);
+            return 0;
+        }
+        try {
+            read(file, queue::restore);
+        } catch (IOException e) {
+            // 校验通过后读取失败，已放回的消息不能撤回，保留文件会在下次启动时重复恢复
+            log.error("队列快照读取中断，部分消息未恢复: {}, {}", queueKey, e.getMessage());
+            keepCorrupt(file);
+            return 0;
+        }
+        try {
+            Files.delete(file);
+        } catch (IOException e) {
+            log.error("删除队列快照失败: {}, {}", queueKey, e.getMessage());
+        }
+        log.info("队列快照已恢复: {}, {}条消息, 耗时{}ms", queueKey, count,
+                (System.nanoTime() - startNanos) / 1_000_000);
+        return count;
+    }
+
+    /**
+     * 快照目录中已有快照的队列键
+     */
+    public List<String> listQueueKeys() {
+        List<String> queueKeys = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return queueKeys;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                queueKeys.add(URLDecoder.decode(name.substring(0, name.length() - SUFFIX.length()), StandardCharsets.UTF_8));
+            }
+        } catch (IOException e) {
+            log.error("读取快照目录失败: {}", e.getMessage(), e);
+        }
+        return queueKeys;
+    }
+
+    private Path fileOf(String queueKey) {
+        return directory.resolve(URLEncoder.encode(queueKey, StandardCharsets.UTF_8) + SUFFIX);
+    }
+
+    private void keepCorrupt(Path file) {
+        try {
+            Files.move(file, file.resolveSibling(file.getFileName() + ".corrupt"), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException moveException) {
+            log.error("保留损坏快照失败: {}", moveException.getMessage());
+        }
+    }
+
+    /**
+     * 顺序读取快照，每解码 batchSize 条交给 sink 一次
+     * @return 记录数
+     */
+    private long read(Path file, Consumer<List<QueueMessage>> sink) throws IOException {
+        List<QueueMessage> batch = new ArrayList<>(batchSize);
+        long records = 0;
+        CRC32C crc = new CRC32C();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), bufferSize))) {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("不是队列快照文件");
+            }
+            int version = in.readInt();
+            if (version != VERSION && version != VERSION_WITHOUT_EXPIRY) {
+                throw new IOException("不支持的快照版本: " + version);
+            }
+            byte[] record = new byte[256];
+            int length;
+            while ((length = in.readInt()) != END_OF_RECORDS) {
+                if (length < 0) {
+                    throw new IOException("记录长度错误: " + length);
+                }
+                if (length > record.length) {
+                    record = new byte[Math.max(length, record.length * 2)];
+                }
+                in.readFully(record, 0, length);
+                crc.update(record, 0, length);
+                batch.add(readMessage(ByteBuffer.wrap(record, 0, length), version));
+                records++;
+                if (batch.size() >= batchSize) {
+                    sink.accept(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            long count = in.readLong();
+            long checksum = in.readLong();
+            if (count != records || checksum != crc.getValue()) {
+                throw new IOException("记录数或校验和不一致");
+            }
+        } catch (RuntimeException e) {
+            throw new IOException("记录格式错误: " + e.getMessage(), e);
+        }
+        if (!batch.isEmpty()) {
+            sink.accept(batch);
+        }
+        return records;
+    }
+
+    private static void writeMessage(DataOutputStream out, QueueMessage message) throws IOException {
+        writeString(out, message.getMessageId());
+        writeString(out, message.getContent());
+        writeString(out, message.getMessageType());
+        LocalDateTime createTime = message.getCreateTime();
+        out.writeLong(createTime != null ? createTime.toEpochSecond(ZoneOffset.UTC) : NULL_LONG);
+        out.writeInt(createTime != null ? createTime.getNano() : 0);
+        out.writeInt(message.getPriority() != null ? message.getPriority() : NULL_INT);
+        out.writeLong(message.getDelaySeconds() != null ? message.getDelaySeconds() : NULL_LONG);
+        out.writeLong(message.getEnqueueTimeNanos() != null ? message.getEnqueueTimeNanos() : NULL_LONG);
+        byte[] body = message.getBody();
+        out.writeInt(body != null ? body.length : NULL_LENGTH);
+        if (body != null) {
+            out.write(body);
+        }
+        Map<String, String> headers = message.getHeaders();
+        out.writeInt(headers != null ? headers.size() : 0);
+        if (headers != null) {
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                writeString(out, header.getKey());
+                writeString(out, header.getValue());
+            }
+        }
+        out.writeLong(message.getExpireAt() != null ? message.getExpireAt() : NULL_LONG);
+    }
+
+    private static QueueMessage readMessage(ByteBuffer in, int version) {
+        QueueMessage message = new QueueMessage();
+        message.setMessageId(readString(in));
+        message.setContent(readString(in));
+        message.setMessageType(readString(in));
+        long createSeconds = in.getLong();
+        int createNanos = in.getInt();
+        message.setCreateTime(createSeconds != NULL_LONG
+                ? LocalDateTime.ofEpochSecond(createSeconds, createNanos, ZoneOffset.UTC) : null);
+        int priority = in.getInt();
+        message.setPriority(priority != NULL_INT ? priority : null);
+        long delaySeconds = in.getLong();
+        message.setDelaySeconds(delaySeconds != NULL_LONG ? delaySeconds : null);
+        long enqueueTimeNanos = in.getLong();
+        message.setEnqueueTimeNanos(enqueueTimeNanos != NULL_LONG ? enqueueTimeNanos : null);
+        int bodyLength = in.getInt();
+        if (bodyLength != NULL_LENGTH) {
+            byte[] body = new byte[bodyLength];
+            in.get(body);
+            message.setBody(body);
+        }
+        int headerCount = in.getInt();
+        if (headerCount > 0) {
+            Map<String, String> headers = new LinkedHashMap<>();
+            for (int i = 0; i < headerCount; i++) {
+                headers.put(readString(in), readString(in));
+            }
+            message.setHeaders(headers);
+        }
+        if (version >= VERSION) {
+            long expireAt = in.getLong();
+            message.setExpireAt(expireAt != NULL_LONG ? expireAt : null);
+        }
+        if (in.hasRemaining()) {
+            throw new IllegalStateException("记录有多余字节");
+        }
+        return message;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL_LENGTH);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    /**
+     * 可以直接访问内部数组的记录缓冲，避免每条记录拷贝一次
+     */
+    private static final class RecordBuffer extends ByteArrayOutputStream {
+        private RecordBuffer() {
+            super(256);
+        }
+
+        private byte[] buffer() {
+            return buf;
+        }
+    }
+}
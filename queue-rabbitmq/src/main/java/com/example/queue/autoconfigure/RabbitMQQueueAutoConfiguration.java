@@ -0,0 +1,92 @@
+package com.example.queue.autoconfigure;
+
+import com.example.queue.config.LazyBeanDefinitionPostProcessor;
+import com.example.queue.config.QueueProperties;
+import com.example.queue.impl.RabbitMQQueueServiceProvider;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.amqp.RabbitAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * RabbitMQ队列后端自动配置
+ * 模块在classpath上时，Spring Boot自动配置的RabbitMQ连接工厂、模板和管理组件一律改为延迟初始化；
+ * queue.rabbitmq.enabled 未关闭时注册RabbitMQ队列提供者，第一次创建RabbitMQ队列时才真正建立连接并声明交换机。
+ * 应用自己的 @RabbitListener 监听容器在启动时连接，不受此影响。
+ */
+@AutoConfiguration(before = RabbitAutoConfiguration.class)
+@ConditionalOnClass(RabbitTemplate.class)
+@EnableConfigurationProperties(QueueProperties.class)
+public class RabbitMQQueueAutoConfiguration {
+    
+    /**
+     * 延迟初始化RabbitMQ基础设施
+     */
+    @Bean
+    public static LazyBeanDefinitionPostProcessor rabbitLazyBeanDefinitionPostProcessor() {
+        return new LazyBeanDefinitionPostProcessor("rabbitConnectionFactory", "rabbitTemplate", "amqpAdmin",
+                "rabbitMessagingTemplate", "rabbitListenerContainerFactory");
+    }
+    
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(prefix = "queue.rabbitmq", name = "enabled", havingValue = "true", matchIfMissing = true)
+    static class RabbitMQQueueProviderConfiguration {
+        
+        /**
+         * RabbitMQ 交换机配置
+         */
+        @Bean
+        public DirectExchange queueExchange() {
+            return new DirectExchange("queue.exchange", true, false);
+        }
+        
+        /**
+         * JSON 消息转换器
+         */
+        @Bean
+        @ConditionalOnMissingBean(MessageConverter.class)
+        public Jackson2JsonMessageConverter messageConverter() {
+            // 配置 ObjectMapper 支持 Java 8 时间类型
+            ObjectMapper objectMapper = new ObjectMapper();
+            objectMapper.registerModule(new com.fasterxml.jackson.datatype.jsr310.JavaTimeModule());
+            objectMapper.disable(com.fasterxml.jackson.databind.SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+            return new Jackson2JsonMessageConverter(objectMapper);
+        }
+        
+        /**
+         * 配置 RabbitTemplate，延迟初始化
+         */
+        @Bean
+        @ConditionalOnMissingBean(RabbitTemplate.class)
+        public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory, MessageConverter messageConverter) {
+            RabbitTemplate template = new RabbitTemplate(connectionFactory);
+            template.setMessageConverter(messageConverter);
+            return template;
+        }
+        
+        /**
+         * RabbitMQ队列提供者，首次使用时先取管理组件（连接建立时声明交换机和队列），再取模板
+         */
+        @Bean
+        public RabbitMQQueueServiceProvider rabbitMQQueueServiceProvider(ObjectProvider<AmqpAdmin> amqpAdmin,
+                                                                         ObjectProvider<RabbitTemplate> rabbitTemplate,
+                                                                         QueueProperties queueProperties) {
+            return new RabbitMQQueueServiceProvider(() -> {
+                amqpAdmin.getIfAvailable();
+                return rabbitTemplate.getIfAvailable();
+            }, queueProperties.getRabbitmq());
+        }
+    }
+}
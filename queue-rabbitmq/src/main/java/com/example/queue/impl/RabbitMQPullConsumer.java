@@ -0,0 +1,287 @@
+package com.example.queue.impl;
+
+import com.example.queue.config.QueueProperties;
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.DefaultConsumer;
+import com.rabbitmq.client.Envelope;
+import com.rabbitmq.client.ShutdownSignalException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.Connection;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.support.DefaultMessagePropertiesConverter;
+import org.springframework.amqp.rabbit.support.MessagePropertiesConverter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RabbitMQ拉取消费者
+ * 用一个长期存在的 basic.consume 订阅（basic.qos 限制未确认数）把投递放入本地缓冲，
+ * 拉取接口直接从缓冲返回，不再每条消息一次 basic.get 往返。
+ * 投递被取走即视为交付，按取走顺序累计后用 multiple=true 批量确认；
+ * 缓冲中尚未取走的投递在关闭时拒绝并重新入队，连接断开时由Broker自动重新投递。
+ */
+@Slf4j
+public class RabbitMQPullConsumer {
+
+    private final String queueName;
+    private final ConnectionFactory connectionFactory;
+    private final QueueProperties.PullConsumer config;
+    private final MessagePropertiesConverter propertiesConverter = new DefaultMessagePropertiesConverter();
+    private final int ackBatchSize;
+    private final BlockingQueue<Delivery> deliveries = new LinkedBlockingQueue<>();
+    private final Object lock = new Object();
+    private final ScheduledExecutorService ackScheduler;
+
+    private volatile Channel channel;
+    private volatile boolean running = true;
+
+    /**
+     * 投递到达回调，在客户端的消费线程上执行
+     */
+    private volatile Runnable arrivalListener;
+    private String consumerTag;
+
+    /**
+     * 已取走但尚未确认的最大投递标签及条数（受lock保护）
+     */
+    private long lastTakenTag;
+    private int unackedTaken;
+
+    public RabbitMQPullConsumer(String queueName, ConnectionFactory connectionFactory, QueueProperties.PullConsumer config) {
+        this.queueName = queueName;
+        this.connectionFactory = connectionFactory;
+        this.config = config;
+        // 确认批次不能达到预取窗口，否则Broker会停止投递
+        this.ackBatchSize = Math.max(1, Math.min(config.getAckBatchSize(), config.getPrefetchCount() / 2));
+        this.ackScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rabbitmq-pull-ack-" + queueName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.ackScheduler.scheduleWithFixedDelay(this::flushAcks,
+                config.getAckIntervalMs(), config.getAckIntervalMs(), TimeUnit.MILLISECONDS);
+        log.info("RabbitMQ拉取消费者已创建: queue={}, prefetch={}, ackBatch={}", queueName, config.getPrefetchCount(), ackBatchSize);
+    }
+
+    /**
+     * 投递到达本地缓冲时的回调
+     */
+    public void setArrivalListener(Runnable arrivalListener) {
+        this.arrivalListener = arrivalListener;
+    }
+
+    /**
+     * 非阻塞取走一条投递
+     */
+    public Message poll() {
+        ensureSubscribed();
+        synchronized (lock) {
+            return take(deliveries.poll());
+        }
+    }
+
+    /**
+     * 在本地缓冲上等待一条投递
+     */
+    public Message poll(long timeout, TimeUnit unit) throws InterruptedException {
+        ensureSubscribed();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (running) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+            Delivery delivery = deliveries.poll(remaining, TimeUnit.NANOSECONDS);
+            if (delivery == null) {
+                return null;
+            }
+            synchronized (lock) {
+                Message message = take(delivery);
+                if (message != null) {
+                    return message;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 非阻塞取走最多maxDeliveries条投递
+     */
+    public List<Message> drain(int maxDeliveries) {
+        ensureSubscribed();
+        List<Message> messages = new ArrayList<>(Math.max(0, maxDeliveries));
+        synchronized (lock) {
+            for (int i = 0; i < maxDeliveries; i++) {
+                Message message = take(deliveries.poll());
+                if (message == null) {
+                    break;
+                }
+                messages.add(message);
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * 本地缓冲中尚未取走的投递数
+     */
+    public int buffered() {
+        return deliveries.size();
+    }
+
+    /**
+     * 取消订阅，确认已取走的投递，其余拒绝并重新入队
+     */
+    public void close() {
+        running = false;
+        ackScheduler.shutdownNow();
+        Channel current = channel;
+        if (current == null) {
+            return;
+        }
+        synchronized (lock) {
+            try {
+                if (consumerTag != null) {
+                    current.basicCancel(consumerTag);
+                }
+                ackTaken(current);
+                List<Delivery> remaining = new ArrayList<>();
+                deliveries.drainTo(remaining);
+                if (!remaining.isEmpty()) {
+                    current.basicNack(remaining.get(remaining.size() - 1).deliveryTag, true, true);
+                    log.info("RabbitMQ拉取消费者归还未交付投递: queue={}, count={}", queueName, remaining.size());
+                }
+                current.close();
+            } catch (Exception e) {
+                log.warn("关闭RabbitMQ拉取消费者失败，未确认投递将在连接断开后重新投递: {}", e.getMessage());
+            }
+            channel = null;
+        }
+    }
+
+    private Message take(Delivery delivery) {
+        if (delivery == null || delivery.channel != channel) {
+            return null;
+        }
+        // 并发取走时标签可能乱序到达这里，取最大值；小于它的投递都已被取走或正在被其他线程取走
+        lastTakenTag = Math.max(lastTakenTag, delivery.deliveryTag);
+        if (++unackedTaken >= ackBatchSize) {
+            ackTaken(delivery.channel);
+        }
+        return new Message(delivery.body, propertiesConverter.toMessageProperties(
+                delivery.properties, delivery.envelope, StandardCharsets.UTF_8.name()));
+    }
+
+    private void flushAcks() {
+        synchronized (lock) {
+            Channel current = channel;
+            if (current != null) {
+                ackTaken(current);
+            }
+        }
+    }
+
+    /**
+     * 按取走顺序确认，multiple=true 一次确认到最大标签（调用方持有lock）
+     */
+    private void ackTaken(Channel target) {
+        if (unackedTaken == 0) {
+            return;
+        }
+        try {
+            target.basicAck(lastTakenTag, true);
+        } catch (IOException e) {
+            log.warn("RabbitMQ批量确认失败: {}", e.getMessage());
+        }
+        unackedTaken = 0;
+    }
+
+    /**
+     * 首次使用或通道断开后重新订阅
+     */
+    private void ensureSubscribed() {
+        if (channel != null || !running) {
+            return;
+        }
+        synchronized (lock) {
+            if (channel != null || !running) {
+                return;
+            }
+            try {
+                Connection connection = connectionFactory.createConnection();
+                Channel newChannel = connection.createChannel(false);
+                newChannel.basicQos(config.getPrefetchCount());
+                consumerTag = newChannel.basicConsume(queueName, false, new DefaultConsumer(newChannel) {
+                    @Override
+                    public void handleDelivery(String tag, Envelope envelope, AMQP.BasicProperties properties, byte[] body) {
+                        deliveries.add(new Delivery(newChannel, envelope, properties, body));
+                        Runnable listener = arrivalListener;
+                        if (listener != null) {
+                            listener.run();
+                        }
+                    }
+
+                    @Override
+                    public void handleShutdownSignal(String tag, ShutdownSignalException sig) {
+                        onChannelLost(newChannel, sig.getMessage());
+                    }
+
+                    @Override
+                    public void handleCancel(String tag) {
+                        onChannelLost(newChannel, "consumer cancelled by broker");
+                    }
+                });
+                unackedTaken = 0;
+                lastTakenTag = 0;
+                channel = newChannel;
+                log.info("RabbitMQ拉取消费者已订阅: queue={}, consumerTag={}", queueName, consumerTag);
+            } catch (Exception e) {
+                log.error("RabbitMQ拉取消费者订阅失败: queue={}, {}", queueName, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 通道失效后丢弃其投递（Broker会重新投递），下次拉取时重新订阅
+     */
+    private void onChannelLost(Channel lost, String reason) {
+        synchronized (lock) {
+            if (channel != lost) {
+                return;
+            }
+            channel = null;
+            deliveries.removeIf(delivery -> delivery.channel == lost);
+            unackedTaken = 0;
+        }
+        if (running) {
+            log.warn("RabbitMQ拉取消费者通道失效，将重新订阅: queue={}, {}", queueName, reason);
+        }
+    }
+
+    private static final class Delivery {
+        private final Channel channel;
+        private final long deliveryTag;
+        private final Envelope envelope;
+        private final AMQP.BasicProperties properties;
+        private final byte[] body;
+
+        private Delivery(Channel channel, Envelope envelope, AMQP.BasicProperties properties, byte[] body) {
+            this.channel = channel;
+            this.deliveryTag = envelope.getDeliveryTag();
+            this.envelope = envelope;
+            this.properties = properties;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,495 @@
+package com.example.queue.impl;
+
+import com.example.queue.codec.BinaryMessageCodec;
+import com.example.queue.codec.EnvelopeCodec;
+import com.example.queue.config.QueueProperties;
+import com.example.queue.core.AbstractQueueService;
+import com.example.queue.core.DelayedRedelivery;
+import com.example.queue.model.QueueMessage;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * RabbitMQ队列实现
+ * 带过期时间的消息映射为AMQP消息的 expiration，由Broker在队头丢弃；
+ * 拉取到本地后才过期的消息在交付前丢弃并计数。
+ * 延迟重投写入没有消费者的延迟队列（队列名 + {@link #DELAY_QUEUE_SUFFIX}），消息的 expiration 为延迟，
+ * 到期后经死信交换机路由回原队列。延迟队列只在队头检查到期，延迟较长的消息排在前面时，
+ * 后面的消息会等它到期后才回到原队列，实际延迟不会短于要求的延迟。
+ */
+@Slf4j
+public class RabbitMQQueueService extends AbstractQueueService implements DelayedRedelivery {
+
+    /**
+     * 入队时间头（纪元纳秒），便于非本项目的消费者读取
+     */
+    public static final String ENQUEUE_TIME_HEADER = "x-enqueue-nanos";
+
+    /**
+     * 二进制消息的元数据头，消息体直接作为AMQP消息体
+     */
+    public static final String MESSAGE_TYPE_HEADER = "x-message-type";
+    public static final String CREATE_TIME_HEADER = "x-create-time";
+    public static final String DELAY_SECONDS_HEADER = "x-delay-seconds";
+    public static final String EXPIRE_AT_HEADER = "x-expire-at";
+
+    /**
+     * 延迟队列名后缀
+     */
+    public static final String DELAY_QUEUE_SUFFIX = ".retry-delay";
+
+    /**
+     * 等待Broker确认延迟消息的时间
+     */
+    private static final long CONFIRM_TIMEOUT_MS = 5000;
+
+    private final RabbitTemplate rabbitTemplate;
+    private final ObjectMapper objectMapper;
+    private final String exchangeName;
+    private final String routingKey;
+    private final EnvelopeCodec envelopeCodec;
+    private final boolean envelopeEnabled;
+
+    /**
+     * 信封解包后尚未交付的消息
+     */
+    private final Deque<QueueMessage> localBuffer = new ConcurrentLinkedDeque<>();
+
+    /**
+     * 已发送的逻辑消息数和AMQP消息数，用于估算平均每个信封的消息条数
+     */
+    private final AtomicLong sentMessages = new AtomicLong();
+    private final AtomicLong sentFrames = new AtomicLong();
+
+    /**
+     * 拉取消费者，未启用时为null
+     */
+    private final RabbitMQPullConsumer pullConsumer;
+
+    private volatile boolean delayQueueDeclared;
+
+    public RabbitMQQueueService(String queueName, RabbitTemplate rabbitTemplate) {
+        this(queueName, rabbitTemplate, new QueueProperties.Rabbitmq());
+    }
+
+    public RabbitMQQueueService(String queueName, RabbitTemplate rabbitTemplate, QueueProperties.Rabbitmq rabbitmqProperties) {
+        super(queueName, "RABBITMQ");
+        QueueProperties.Envelope envelope = rabbitmqProperties.getEnvelope();
+        this.rabbitTemplate = rabbitTemplate;
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.registerModule(new com.fasterxml.jackson.datatype.jsr310.JavaTimeModule());
+        this.objectMapper.disable(com.fasterxml.jackson.databind.SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        this.exchangeName = "queue.exchange";
+        this.routingKey = queueName;
+        this.envelopeCodec = new EnvelopeCodec(objectMapper, envelope.getMaxMessages(), envelope.getMaxBytes());
+        this.envelopeEnabled = envelope.isEnabled();
+        this.pullConsumer = rabbitmqProperties.getConsumer().isEnabled()
+                ? new RabbitMQPullConsumer(queueName, rabbitTemplate.getConnectionFactory(), rabbitmqProperties.getConsumer())
+                : null;
+        if (pullConsumer != null) {
+            pullConsumer.setArrivalListener(this::signalArrival);
+        }
+        log.info("初始化RabbitMQ队列: {}, 信封模式: {}, 拉取消费者: {}", queueName, envelopeEnabled, pullConsumer != null);
+    }
+
+    @Override
+    public boolean sendMessage(QueueMessage message) {
+        try {
+            if (message == null) {
+                log.warn("消息不能为空");
+                return false;
+            }
+
+            stampEnqueueTime(message);
+            Message amqpMessage = message.isBinary() ? toBinaryMessage(message) : toJsonMessage(message);
+
+            rabbitTemplate.send(exchangeName, routingKey, amqpMessage);
+            sentMessages.incrementAndGet();
+            sentFrames.incrementAndGet();
+            logOperation("发送消息", "messageId=" + message.getMessageId());
+            return true;
+
+        } catch (JsonProcessingException e) {
+            log.error("消息序列化失败: {}", e.getMessage(), e);
+            return false;
+        } catch (Exception e) {
+            log.error("发送消息失败: {}", e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * 持久化消息写入延迟队列，启用了发布确认时等待Broker确认后才算接管
+     */
+    @Override
+    public boolean sendDelayed(QueueMessage message, long delayMs) {
+        try {
+            declareDelayQueue();
+            stampEnqueueTime(message);
+            Message amqpMessage = message.isBinary() ? toBinaryMessage(message) : toJsonMessage(message);
+            // 延迟用 expiration 表示，消息自身的过期时间仍在消息体和头中，消费时检查
+            amqpMessage.getMessageProperties().setExpiration(String.valueOf(Math.max(0, delayMs)));
+            amqpMessage.getMessageProperties().setDeliveryMode(MessageDeliveryMode.PERSISTENT);
+
+            CorrelationData correlation = new CorrelationData(message.getMessageId());
+            rabbitTemplate.send("", queueName + DELAY_QUEUE_SUFFIX, amqpMessage, correlation);
+            if (!rabbitTemplate.getConnectionFactory().isPublisherConfirms()) {
+                return true;
+            }
+            CorrelationData.Confirm confirm = correlation.getFuture().get(CONFIRM_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            if (!confirm.isAck() || correlation.getReturned() != null) {
+                log.warn("延迟消息未被Broker接收: messageId={}, {}", message.getMessageId(), confirm.getReason());
+                return false;
+            }
+            logOperation("发送延迟消息", "messageId=" + message.getMessageId(), "delayMs=" + delayMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("等待延迟消息确认被中断: {}", message.getMessageId());
+            return false;
+        } catch (Exception e) {
+            log.error("发送延迟消息失败: {}", e.getMessage(), e);
+            return false;
+        }
+    }
+
+    @Override
+    public int sendMessages(List<QueueMessage> messages) {
+        if (!envelopeEnabled || messages == null || messages.isEmpty()) {
+            return super.sendMessages(messages);
+        }
+
+        int successCount = 0;
+        List<QueueMessage> texts = new ArrayList<>(messages.size());
+        for (QueueMessage message : messages) {
+            if (message != null && message.isBinary()) {
+                // 二进制消息不进信封，单独发送以保持消息体不转码
+                if (sendMessage(message)) {
+                    successCount++;
+                }
+            } else if (message != null) {
+                stampEnqueueTime(message);
+                texts.add(message);
+            }
+        }
+        try {
+            for (EnvelopeCodec.Frame frame : envelopeCodec.pack(texts)) {
+                try {
+                    MessageProperties properties = new MessageProperties();
+                    properties.setContentType(frame.getCount() > 1 ? EnvelopeCodec.CONTENT_TYPE : "application/json");
+                    properties.setHeader(EnvelopeCodec.COUNT_HEADER, frame.getCount());
+                    applyExpiration(properties, frame.getExpireAt());
+
+                    Message amqpMessage = new Message(frame.getPayload().getBytes(StandardCharsets.UTF_8), properties);
+                    rabbitTemplate.send(exchangeName, routingKey, amqpMessage);
+                    sentMessages.addAndGet(frame.getCount());
+                    sentFrames.incrementAndGet();
+                    successCount += frame.getCount();
+                } catch (Exception e) {
+                    log.error("信封发送失败: {}", e.getMessage(), e);
+                }
+            }
+        } catch (JsonProcessingException e) {
+            log.error("消息序列化失败: {}", e.getMessage(), e);
+        }
+
+        log.info("批量发送消息完成(信封模式)，成功: {}/{}", successCount, messages.size());
+        return successCount;
+    }
+
+    @Override
+    public QueueMessage receiveMessage() {
+        if (pullConsumer == null) {
+            return receiveMessage(1); // 1秒超时
+        }
+        QueueMessage buffered = pollBuffer();
+        if (buffered != null) {
+            return recordDwell(buffered);
+        }
+        try {
+            // 拉取消费者模式直接从订阅缓冲返回，不等待；取到的消息已过期时继续取
+            QueueMessage queueMessage = null;
+            Message message;
+            while (queueMessage == null && (message = pullConsumer.poll()) != null) {
+                queueMessage = unpack(message);
+            }
+            if (queueMessage != null) {
+                logOperation("接收消息", "messageId=" + queueMessage.getMessageId());
+            }
+            return recordDwell(queueMessage);
+        } catch (JsonProcessingException e) {
+            log.error("消息反序列化失败: {}", e.getMessage(), e);
+            return null;
+        } catch (Exception e) {
+            log.error("接收消息失败: {}", e.getMessage(), e);
+            return null;
+        }
+    }
+
+    @Override
+    public QueueMessage receiveMessage(long timeoutSeconds) {
+        QueueMessage buffered = pollBuffer();
+        if (buffered != null) {
+            return recordDwell(buffered);
+        }
+        try {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+            QueueMessage queueMessage = null;
+            while (queueMessage == null) {
+                long remainingMs = Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+                Message message = pullConsumer != null
+                        ? pullConsumer.poll(remainingMs, TimeUnit.MILLISECONDS)
+                        : rabbitTemplate.receive(queueName, remainingMs);
+                if (message == null) {
+                    return null;
+                }
+                queueMessage = unpack(message);
+            }
+            logOperation("接收消息(超时)", "messageId=" + queueMessage.getMessageId(), "timeout=" + timeoutSeconds);
+            return recordDwell(queueMessage);
+        } catch (InterruptedException e) {
+            log.warn("接收消息被中断: {}", e.getMessage());
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (JsonProcessingException e) {
+            log.error("消息反序列化失败: {}", e.getMessage(), e);
+            return null;
+        } catch (Exception e) {
+            log.error("接收消息失败: {}", e.getMessage(), e);
+            return null;
+        }
+    }
+
+    @Override
+    public List<QueueMessage> receiveMessages(int maxMessages) {
+        List<QueueMessage> messages = new ArrayList<>(Math.max(0, maxMessages));
+        if (pullConsumer == null) {
+            // 基本模式没有批量接口，逐条 basic.get，队列为空时立即返回而不是等待超时
+            QueueMessage message;
+            while (messages.size() < maxMessages && (message = receiveMessage(0)) != null) {
+                messages.add(message);
+            }
+            return messages;
+        }
+        while (messages.size() < maxMessages) {
+            QueueMessage buffered = localBuffer.pollFirst();
+            if (buffered == null) {
+                break;
+            }
+            messages.add(buffered);
+        }
+        // 订阅缓冲中已有的投递一次取走，不为凑满批次而等待
+        for (Message message : pullConsumer.drain(maxMessages - messages.size())) {
+            try {
+                messages.add(unpack(message));
+            } catch (JsonProcessingException e) {
+                log.error("消息反序列化失败: {}", e.getMessage(), e);
+            }
+        }
+        messages.removeIf(message -> message == null);
+        removeExpired(messages);
+        messages.forEach(this::recordDwell);
+        return messages;
+    }
+
+    /**
+     * 拉取消费者模式下投递到达订阅缓冲时通知；基本模式只能轮询
+     */
+    @Override
+    protected boolean isArrivalNotifying() {
+        return pullConsumer != null;
+    }
+
+    @Override
+    public long getQueueSize() {
+        try {
+            Integer frames = rabbitTemplate.execute(channel -> channel.queueDeclarePassive(queueName).getMessageCount());
+            long remote = frames != null ? frames : 0;
+            if (envelopeEnabled) {
+                // Broker只知道AMQP消息数，按已发送的平均打包条数折算成逻辑消息数
+                long framesSent = sentFrames.get();
+                double perFrame = framesSent > 0 ? (double) sentMessages.get() / framesSent : 1.0;
+                remote = Math.round(remote * perFrame);
+            }
+            return remote + localBuffer.size() + bufferedDeliveries();
+        } catch (Exception e) {
+            log.error("获取队列大小失败: {}", e.getMessage(), e);
+            return localBuffer.size();
+        }
+    }
+
+    @Override
+    public boolean clearQueue() {
+        try {
+            localBuffer.clear();
+            // RabbitMQ清空队列需要管理API，这里只是记录日志
+            log.warn("RabbitMQ不支持直接清空队列，需要管理API");
+            logOperation("清空队列");
+            return true;
+        } catch (Exception e) {
+            log.error("清空队列失败: {}", e.getMessage(), e);
+            return false;
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        if (pullConsumer != null) {
+            pullConsumer.close();
+        }
+    }
+
+    /**
+     * 声明延迟队列：持久、没有消费者，到期的消息经死信交换机按原路由键回到原队列
+     */
+    private void declareDelayQueue() {
+        if (delayQueueDeclared) {
+            return;
+        }
+        Map<String, Object> arguments = new HashMap<>();
+        arguments.put("x-dead-letter-exchange", exchangeName);
+        arguments.put("x-dead-letter-routing-key", routingKey);
+        rabbitTemplate.execute(channel -> channel.queueDeclare(queueName + DELAY_QUEUE_SUFFIX, true, false, false, arguments));
+        delayQueueDeclared = true;
+    }
+
+    /**
+     * 订阅缓冲中尚未取走的投递数（Broker已把它们计为未确认，不在messageCount中）
+     */
+    private int bufferedDeliveries() {
+        return pullConsumer != null ? pullConsumer.buffered() : 0;
+    }
+
+    /**
+     * 文本消息：整条消息序列化为JSON消息体
+     */
+    private Message toJsonMessage(QueueMessage message) throws JsonProcessingException {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType("application/json");
+        properties.setMessageId(message.getMessageId());
+        properties.setHeader(ENQUEUE_TIME_HEADER, message.getEnqueueTimeNanos());
+        if (message.getPriority() != null) {
+            properties.setPriority(message.getPriority());
+        }
+        applyExpiration(properties, message.getExpireAt());
+        return new Message(objectMapper.writeValueAsBytes(message), properties);
+    }
+
+    /**
+     * 二进制消息：消息体数组直接作为AMQP消息体，元数据放在消息属性和头中
+     */
+    public static Message toBinaryMessage(QueueMessage message) {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(BinaryMessageCodec.CONTENT_TYPE);
+        properties.setMessageId(message.getMessageId());
+        properties.setHeader(ENQUEUE_TIME_HEADER, message.getEnqueueTimeNanos());
+        if (message.getPriority() != null) {
+            properties.setPriority(message.getPriority());
+        }
+        if (message.getMessageType() != null) {
+            properties.setHeader(MESSAGE_TYPE_HEADER, message.getMessageType());
+        }
+        if (message.getCreateTime() != null) {
+            properties.setHeader(CREATE_TIME_HEADER, message.getCreateTime().toString());
+        }
+        if (message.getDelaySeconds() != null) {
+            properties.setHeader(DELAY_SECONDS_HEADER, message.getDelaySeconds());
+        }
+        if (message.getExpireAt() != null) {
+            properties.setHeader(EXPIRE_AT_HEADER, message.getExpireAt());
+            applyExpiration(properties, message.getExpireAt());
+        }
+        if (message.getHeaders() != null) {
+            message.getHeaders().forEach(properties::setHeader);
+        }
+        return new Message(message.getBody(), properties);
+    }
+
+    /**
+     * 是否为二进制消息
+     */
+    public static boolean isBinary(Message message) {
+        return BinaryMessageCodec.CONTENT_TYPE.equals(message.getMessageProperties().getContentType());
+    }
+
+    /**
+     * 从二进制AMQP消息还原，直接引用AMQP消息体
+     */
+    public static QueueMessage fromBinaryMessage(Message amqpMessage) {
+        MessageProperties properties = amqpMessage.getMessageProperties();
+        QueueMessage message = new QueueMessage();
+        message.setMessageId(properties.getMessageId());
+        message.setBody(amqpMessage.getBody());
+        message.setPriority(properties.getPriority());
+        Object messageType = properties.getHeader(MESSAGE_TYPE_HEADER);
+        message.setMessageType(messageType != null ? messageType.toString() : null);
+        Object createTime = properties.getHeader(CREATE_TIME_HEADER);
+        message.setCreateTime(createTime != null ? LocalDateTime.parse(createTime.toString()) : null);
+        Object delaySeconds = properties.getHeader(DELAY_SECONDS_HEADER);
+        message.setDelaySeconds(delaySeconds instanceof Number ? ((Number) delaySeconds).longValue() : null);
+        Object enqueueTime = properties.getHeader(ENQUEUE_TIME_HEADER);
+        message.setEnqueueTimeNanos(enqueueTime instanceof Number ? ((Number) enqueueTime).longValue() : null);
+        Object expireAt = properties.getHeader(EXPIRE_AT_HEADER);
+        message.setExpireAt(expireAt instanceof Number ? ((Number) expireAt).longValue() : null);
+        // x- 开头的是本类和Broker使用的头，其余为消息头
+        properties.getHeaders().forEach((name, value) -> {
+            if (!name.startsWith("x-") && value != null) {
+                message.setHeader(name, value.toString());
+            }
+        });
+        return message;
+    }
+
+    /**
+     * 把过期时间换算成AMQP的 expiration（剩余毫秒数），Broker只在消息到达队头时检查
+     */
+    private static void applyExpiration(MessageProperties properties, Long expireAt) {
+        if (expireAt != null) {
+            properties.setExpiration(String.valueOf(Math.max(0, expireAt - System.currentTimeMillis())));
+        }
+    }
+
+    private QueueMessage pollBuffer() {
+        long now = System.currentTimeMillis();
+        int expired = 0;
+        QueueMessage message;
+        while ((message = localBuffer.pollFirst()) != null && message.isExpired(now)) {
+            expired++;
+        }
+        recordExpired(expired);
+        return message;
+    }
+
+    /**
+     * 解包一条AMQP消息，返回第一条未过期的消息，其余放入本地缓冲
+     */
+    private QueueMessage unpack(Message amqpMessage) throws JsonProcessingException {
+        List<QueueMessage> messages = new ArrayList<>(isBinary(amqpMessage)
+                ? Collections.singletonList(fromBinaryMessage(amqpMessage))
+                : envelopeCodec.unpack(new String(amqpMessage.getBody(), StandardCharsets.UTF_8)));
+        removeExpired(messages);
+        if (messages.isEmpty()) {
+            return null;
+        }
+        localBuffer.addAll(messages.subList(1, messages.size()));
+        return messages.get(0);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.queue.impl;
+
+import com.example.queue.config.QueueProperties;
+import com.example.queue.core.QueueService;
+import com.example.queue.core.QueueServiceProvider;
+import com.example.queue.core.QueueType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * RabbitMQ队列后端
+ * RabbitMQ模板在第一次创建RabbitMQ队列时才向容器获取，连接工厂和声明交换机、队列的管理组件随之初始化。
+ */
+@Slf4j
+public class RabbitMQQueueServiceProvider implements QueueServiceProvider {
+
+    private final Supplier<RabbitTemplate> rabbitTemplateSupplier;
+    private final QueueProperties.Rabbitmq properties;
+
+    private volatile RabbitTemplate rabbitTemplate;
+
+    public RabbitMQQueueServiceProvider(Supplier<RabbitTemplate> rabbitTemplateSupplier, QueueProperties.Rabbitmq properties) {
+        this.rabbitTemplateSupplier = rabbitTemplateSupplier;
+        this.properties = properties;
+    }
+
+    @Override
+    public Set<QueueType> getSupportedTypes() {
+        return EnumSet.of(QueueType.RABBITMQ);
+    }
+
+    @Override
+    public QueueService createQueueService(String queueName, QueueType queueType) {
+        return new RabbitMQQueueService(queueName, getRabbitTemplate(), properties);
+    }
+
+    private RabbitTemplate getRabbitTemplate() {
+        if (rabbitTemplate == null) {
+            synchronized (this) {
+                if (rabbitTemplate == null) {
+                    long startNanos = System.nanoTime();
+                    RabbitTemplate template = rabbitTemplateSupplier.get();
+                    if (template == null) {
+                        throw new IllegalStateException("RabbitMQ模板未配置，无法创建RabbitMQ队列");
+                    }
+                    rabbitTemplate = template;
+                    log.info("RabbitMQ后端首次使用，初始化耗时{}ms", (System.nanoTime() - startNanos) / 1_000_000);
+                }
+            }
+        }
+        return rabbitTemplate;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.queue.autoconfigure;
+
+import com.example.queue.config.LazyBeanDefinitionPostProcessor;
+import com.example.queue.config.QueueProperties;
+import com.example.queue.impl.RedisQueueServiceProvider;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * Redis队列后端自动配置
+ * 模块在classpath上时，Spring Boot自动配置的Redis连接工厂、客户端资源和模板一律改为延迟初始化；
+ * queue.redis.enabled 未关闭时注册Redis队列提供者，第一次创建Redis队列时才真正建立连接。
+ */
+@AutoConfiguration
+@ConditionalOnClass(StringRedisTemplate.class)
+@EnableConfigurationProperties(QueueProperties.class)
+public class RedisQueueAutoConfiguration {
+    
+    /**
+     * 延迟初始化Redis基础设施
+     */
+    @Bean
+    public static LazyBeanDefinitionPostProcessor redisLazyBeanDefinitionPostProcessor() {
+        return new LazyBeanDefinitionPostProcessor("lettuceClientResources", "redisConnectionFactory",
+                "redisTemplate", "stringRedisTemplate", "reactiveRedisTemplate", "reactiveStringRedisTemplate");
+    }
+    
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(prefix = "queue.redis", name = "enabled", havingValue = "true", matchIfMissing = true)
+    static class RedisQueueProviderConfiguration {
+        
+        /**
+         * Redis队列提供者，模板在首次使用时获取
+         */
+        @Bean
+        public RedisQueueServiceProvider redisQueueServiceProvider(ObjectProvider<StringRedisTemplate> redisTemplate,
+                                                                   QueueProperties queueProperties) {
+            return new RedisQueueServiceProvider(redisTemplate::getIfAvailable, queueProperties.getRedis());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.queue.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 列表元素的过期时间前缀
+ * 带过期时间的消息写入列表时加上定长前缀 #EXP:&lt;16位十进制毫秒&gt;:，清理脚本只读取这个固定位置判断是否过期，
+ * 不解析消息内容，消息内容里出现任何文本都不会被误判。没有过期时间的消息和信封帧不加前缀。
+ */
+final class ExpiryPrefix {
+
+    static final String MARKER = "#EXP:";
+
+    private static final int DIGITS = 16;
+
+    /**
+     * 前缀总长度：标记、16位毫秒数、结尾的冒号
+     */
+    static final int LENGTH = MARKER.length() + DIGITS + 1;
+
+    private static final byte[] MARKER_BYTES = MARKER.getBytes(StandardCharsets.US_ASCII);
+
+    private ExpiryPrefix() {
+    }
+
+    static String wrap(String payload, Long expireAt) {
+        return expireAt != null ? prefix(expireAt) + payload : payload;
+    }
+
+    static byte[] wrap(byte[] payload, Long expireAt) {
+        if (expireAt == null) {
+            return payload;
+        }
+        byte[] prefix = prefix(expireAt).getBytes(StandardCharsets.US_ASCII);
+        byte[] result = Arrays.copyOf(prefix, prefix.length + payload.length);
+        System.arraycopy(payload, 0, result, prefix.length, payload.length);
+        return result;
+    }
+
+    /**
+     * 去掉前缀，没有前缀时原样返回
+     */
+    static String strip(String raw) {
+        return raw.length() >= LENGTH && raw.startsWith(MARKER) ? raw.substring(LENGTH) : raw;
+    }
+
+    static byte[] strip(byte[] raw) {
+        if (raw.length < LENGTH) {
+            return raw;
+        }
+        for (int i = 0; i < MARKER_BYTES.length; i++) {
+            if (raw[i] != MARKER_BYTES[i]) {
+                return raw;
+            }
+        }
+        return Arrays.copyOfRange(raw, LENGTH, raw.length);
+    }
+
+    private static String prefix(long expireAt) {
+        return MARKER + String.format("%0" + DIGITS + "d", Math.max(0, expireAt)) + ":";
+    }
+}
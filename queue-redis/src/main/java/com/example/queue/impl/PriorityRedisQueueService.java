@@ -0,0 +1,407 @@
+package com.example.queue.impl;
+
+import com.example.queue.config.QueueProperties;
+import com.example.queue.core.AbstractQueueService;
+import com.example.queue.model.QueueMessage;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 优先级通道Redis队列实现
+ * 一个逻辑队列按优先级分成 N 个列表键 queue:{name}:p0 .. queue:{name}:p(N-1)，p(N-1) 最优先。
+ * 所有通道共用哈希标签 {name}，集群模式下落在同一槽位，可以用一条多键命令跨通道弹出：
+ * <ul>
+ *   <li>非阻塞接收和批量接收用一次脚本按通道顺序执行 RPOP key count，取满为止</li>
+ *   <li>阻塞接收在各通道都为空时用一条多键 BRPOP 等待，Redis按键的顺序检查，先取最高优先级</li>
+ * </ul>
+ * 严格按优先级时，高优先级持续积压会让低优先级永远取不到。按出队的消息条数计数，每 fairnessInterval 条消息中
+ * 有一条先从较低的某个通道取，较低通道轮流获得这次机会；批量出队跨过几个间隔就预留几条，保证每个通道都有最低份额。
+ * 队列大小由一次管道化的 LLEN 汇总得到。批量弹出使用 RPOP key count，需要Redis 6.2+。
+ */
+@Slf4j
+public class PriorityRedisQueueService extends AbstractQueueService {
+
+    /**
+     * 按 KEYS 的顺序依次弹出，直到取满 ARGV[1] 个元素
+     * ARGV[i + 1] 为 KEYS[i] 最多弹出的个数，-1 表示不限；同一个键可以出现多次
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> POP_SCRIPT = new DefaultRedisScript<>(
+            "local remaining = tonumber(ARGV[1])\n" +
+            "local result = {}\n" +
+            "for i = 1, #KEYS do\n" +
+            "  if remaining <= 0 then break end\n" +
+            "  local limit = tonumber(ARGV[i + 1])\n" +
+            "  if limit < 0 or limit > remaining then limit = remaining end\n" +
+            "  local values = limit > 0 and redis.call('RPOP', KEYS[i], limit)\n" +
+            "  if values then\n" +
+            "    for _, v in ipairs(values) do result[#result + 1] = v end\n" +
+            "    remaining = remaining - #values\n" +
+            "  end\n" +
+            "end\n" +
+            "return result", List.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final QueueProperties.Priority config;
+
+    /**
+     * 各通道的键，下标即通道序号，0 最低
+     */
+    private final String[] laneKeys;
+
+    /**
+     * 从高到低的通道键，BRPOP 和常规出队的顺序
+     */
+    private final List<String> highestFirst;
+
+    /**
+     * 已出队的消息条数，用于防饥饿轮转
+     */
+    private final AtomicLong receiveTurns = new AtomicLong();
+
+    public PriorityRedisQueueService(String queueName, StringRedisTemplate redisTemplate, QueueProperties.Priority config) {
+        super(queueName, "REDIS");
+        this.redisTemplate = redisTemplate;
+        this.config = config;
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.registerModule(new com.fasterxml.jackson.datatype.jsr310.JavaTimeModule());
+        this.objectMapper.disable(com.fasterxml.jackson.databind.SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        int lanes = Math.max(1, config.getLanes());
+        this.laneKeys = new String[lanes];
+        List<String> ordered = new ArrayList<>(lanes);
+        for (int i = 0; i < lanes; i++) {
+            laneKeys[i] = laneKey(queueName, i);
+        }
+        for (int i = lanes - 1; i >= 0; i--) {
+            ordered.add(laneKeys[i]);
+        }
+        this.highestFirst = Collections.unmodifiableList(ordered);
+        log.info("初始化优先级Redis队列: {}, 通道数: {}, 最大优先级: {}, 防饥饿间隔: {}",
+                queueName, lanes, config.getMaxPriority(), config.getFairnessInterval());
+    }
+
+    /**
+     * 通道键，共用哈希标签 {name} 使所有通道落在同一槽位
+     */
+    public static String laneKey(String queueName, int lane) {
+        return "queue:{" + queueName + "}:p" + lane;
+    }
+
+    public int getLaneCount() {
+        return laneKeys.length;
+    }
+
+    /**
+     * 优先级对应的通道：0..maxPriority 均匀分到各通道，没有优先级按0处理
+     */
+    public int laneOf(Integer priority) {
+        int maxPriority = Math.max(0, config.getMaxPriority());
+        int value = Math.min(maxPriority, Math.max(0, priority != null ? priority : 0));
+        return (int) ((long) value * laneKeys.length / (maxPriority + 1));
+    }
+
+    @Override
+    public boolean sendMessage(QueueMessage message) {
+        try {
+            if (message == null) {
+                log.warn("消息不能为空");
+                return false;
+            }
+
+            stampEnqueueTime(message);
+            String messageJson = ExpiryPrefix.wrap(objectMapper.writeValueAsString(message), message.getExpireAt());
+            String laneKey = laneKeys[laneOf(message.getPriority())];
+            Long result = redisTemplate.opsForList().leftPush(laneKey, messageJson);
+            if (result == null || result <= 0) {
+                log.warn("Redis队列发送失败");
+                return false;
+            }
+            logOperation("发送消息", "messageId=" + message.getMessageId(), "lane=" + laneKey);
+            return true;
+        } catch (JsonProcessingException e) {
+            log.error("消息序列化失败: {}", e.getMessage(), e);
+            return false;
+        } catch (Exception e) {
+            log.error("发送消息失败: {}", e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * 按通道分组后，同一管道内每个通道一条多值LPUSH
+     */
+    @Override
+    public int sendMessages(List<QueueMessage> messages) {
+        if (messages == null || messages.isEmpty()) {
+            return 0;
+        }
+
+        List<List<String>> payloads = new ArrayList<>(laneKeys.length);
+        for (int i = 0; i < laneKeys.length; i++) {
+            payloads.add(new ArrayList<>());
+        }
+        int total = 0;
+        for (QueueMessage message : messages) {
+            if (message == null) {
+                continue;
+            }
+            try {
+                stampEnqueueTime(message);
+                payloads.get(laneOf(message.getPriority())).add(ExpiryPrefix.wrap(objectMapper.writeValueAsString(message), message.getExpireAt()));
+                total++;
+            } catch (JsonProcessingException e) {
+                log.error("消息序列化失败: {}", e.getMessage(), e);
+            }
+        }
+
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                for (int i = 0; i < laneKeys.length; i++) {
+                    List<String> lanePayloads = payloads.get(i);
+                    if (!lanePayloads.isEmpty()) {
+                        stringConnection.lPush(laneKeys[i], lanePayloads.toArray(new String[0]));
+                    }
+                }
+                return null;
+            });
+            log.info("批量发送消息完成(优先级模式)，成功: {}/{}", total, messages.size());
+            return total;
+        } catch (Exception e) {
+            log.error("批量发送消息失败: {}", e.getMessage(), e);
+            return 0;
+        }
+    }
+
+    @Override
+    public QueueMessage receiveMessage() {
+        List<QueueMessage> messages = pop(1);
+        QueueMessage message = messages.isEmpty() ? null : messages.get(0);
+        if (message != null) {
+            logOperation("接收消息", "messageId=" + message.getMessageId());
+        }
+        return recordDwell(message);
+    }
+
+    /**
+     * 先做一次非阻塞弹出（参与防饥饿轮转），各通道都为空时用多键BRPOP等待
+     */
+    @Override
+    public QueueMessage receiveMessage(long timeoutSeconds) {
+        try {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+            List<QueueMessage> messages = pop(1);
+            while (messages.isEmpty()) {
+                // 剩余时间向上取整到秒；阻塞弹出的超时为0表示永久等待，到期后不再等待
+                long remainingSeconds = RedisQueueService.secondsCeil(deadline - System.nanoTime());
+                if (remainingSeconds <= 0) {
+                    break;
+                }
+                String raw = blockingPop(remainingSeconds);
+                if (raw == null) {
+                    break;
+                }
+                receiveTurns.incrementAndGet();
+                messages = decodeLive(Collections.singletonList(raw));
+            }
+            QueueMessage message = messages.isEmpty() ? null : messages.get(0);
+            if (message != null) {
+                logOperation("接收消息(超时)", "messageId=" + message.getMessageId(), "timeout=" + timeoutSeconds);
+            }
+            return recordDwell(message);
+        } catch (Exception e) {
+            log.error("接收消息失败: {}", e.getMessage(), e);
+            return null;
+        }
+    }
+
+    @Override
+    public List<QueueMessage> receiveMessages(int maxMessages) {
+        if (maxMessages <= 0) {
+            return new ArrayList<>();
+        }
+        List<QueueMessage> messages = pop(maxMessages);
+        messages.forEach(this::recordDwell);
+        return messages;
+    }
+
+    /**
+     * 一次管道化的LLEN汇总所有通道
+     */
+    @Override
+    public long getQueueSize() {
+        try {
+            long total = 0;
+            for (long size : getLaneSizes()) {
+                total += size;
+            }
+            return total;
+        } catch (Exception e) {
+            log.error("获取队列大小失败: {}", e.getMessage(), e);
+            return 0;
+        }
+    }
+
+    /**
+     * 各通道的长度，下标为通道序号
+     */
+    public long[] getLaneSizes() {
+        List<Object> sizes = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            for (String laneKey : laneKeys) {
+                stringConnection.lLen(laneKey);
+            }
+            return null;
+        });
+        long[] result = new long[laneKeys.length];
+        for (int i = 0; i < result.length && i < sizes.size(); i++) {
+            Object size = sizes.get(i);
+            result[i] = size instanceof Number ? ((Number) size).longValue() : 0;
+        }
+        return result;
+    }
+
+    @Override
+    public boolean clearQueue() {
+        try {
+            Long result = redisTemplate.delete(Arrays.asList(laneKeys));
+            logOperation("清空队列");
+            return result != null && result > 0;
+        } catch (Exception e) {
+            log.error("清空队列失败: {}", e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * 本次出队的弹出计划：已出队 turn 条，再取 count 条时跨过了几个 fairnessInterval 边界，
+     * 就先从对应的较低通道各预留一条（较低的通道除最高通道外轮流获得），其余按从高到低取
+     * @return 键列表及对应的上限（-1 不限），与 POP_SCRIPT 的 KEYS 和 ARGV[2..] 一一对应
+     */
+    PopPlan popPlan(long turn, int count) {
+        PopPlan plan = new PopPlan();
+        int interval = config.getFairnessInterval();
+        if (interval > 0 && laneKeys.length > 1) {
+            int[] reserved = new int[laneKeys.length - 1];
+            for (long boundary = turn / interval + 1; boundary <= (turn + count) / interval; boundary++) {
+                reserved[(int) ((boundary - 1) % reserved.length)]++;
+            }
+            for (int lane = 0; lane < reserved.length; lane++) {
+                if (reserved[lane] > 0) {
+                    plan.add(laneKeys[lane], reserved[lane]);
+                }
+            }
+        }
+        for (String laneKey : highestFirst) {
+            plan.add(laneKey, -1);
+        }
+        return plan;
+    }
+
+    /**
+     * 按弹出计划用一次脚本弹出最多 count 个元素，弹出的全部过期时继续弹出；弹出的条数计入防饥饿轮转
+     */
+    @SuppressWarnings("unchecked")
+    private List<QueueMessage> pop(int count) {
+        List<QueueMessage> messages = new ArrayList<>(Math.min(count, 1024));
+        try {
+            while (messages.size() < count) {
+                int missing = count - messages.size();
+                PopPlan plan = popPlan(receiveTurns.get(), missing);
+                List<String> raws = redisTemplate.execute(POP_SCRIPT, plan.keys, plan.args(missing));
+                if (raws == null || raws.isEmpty()) {
+                    break;
+                }
+                receiveTurns.addAndGet(raws.size());
+                messages.addAll(decodeLive(raws));
+                if (raws.size() < missing) {
+                    // 各通道已取空
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            log.error("优先级通道弹出失败: {}", e.getMessage(), e);
+        }
+        return messages;
+    }
+
+    /**
+     * 多键BRPOP，Redis按键的顺序检查，返回最高优先级的非空通道的元素
+     */
+    private String blockingPop(long timeoutSeconds) {
+        String[] keys = highestFirst.toArray(new String[0]);
+        List<String> result = redisTemplate.execute((RedisCallback<List<String>>) connection ->
+                ((StringRedisConnection) connection).bRPop((int) Math.min(Integer.MAX_VALUE, timeoutSeconds), keys));
+        return result != null && result.size() == 2 ? result.get(1) : null;
+    }
+
+    /**
+     * 解码并丢弃过期消息，出现过期消息时在服务端清理各通道队头的过期元素
+     */
+    private List<QueueMessage> decodeLive(List<String> raws) {
+        List<QueueMessage> messages = new ArrayList<>(raws.size());
+        for (String raw : raws) {
+            try {
+                messages.add(objectMapper.readValue(ExpiryPrefix.strip(raw), QueueMessage.class));
+            } catch (JsonProcessingException e) {
+                log.error("消息反序列化失败: {}", e.getMessage(), e);
+            }
+        }
+        if (removeExpired(messages) > 0) {
+            for (String laneKey : laneKeys) {
+                trimExpired(laneKey);
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * 用脚本删除通道队头连续的过期元素，清理失败不影响出队
+     */
+    private void trimExpired(String laneKey) {
+        try {
+            Long removed;
+            do {
+                removed = redisTemplate.execute(RedisQueueService.TRIM_EXPIRED_SCRIPT, Arrays.asList(laneKey, laneKey),
+                        String.valueOf(System.currentTimeMillis()), String.valueOf(RedisQueueService.TRIM_BATCH), "0");
+                recordExpired(removed != null ? removed : 0);
+            } while (removed != null && removed >= RedisQueueService.TRIM_BATCH);
+        } catch (Exception e) {
+            log.warn("清理过期消息失败: lane={}, {}", laneKey, e.getMessage());
+        }
+    }
+
+    /**
+     * 一次弹出的键顺序和各键的上限
+     */
+    static class PopPlan {
+        final List<String> keys = new ArrayList<>();
+        final List<String> limits = new ArrayList<>();
+
+        void add(String key, int limit) {
+            keys.add(key);
+            limits.add(String.valueOf(limit));
+        }
+
+        Object[] args(int count) {
+            List<String> args = new ArrayList<>(limits.size() + 1);
+            args.add(String.valueOf(count));
+            args.addAll(limits);
+            return args.toArray();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.queue.impl;
+
+import com.example.queue.config.QueueProperties;
+import com.example.queue.model.QueueMessage;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Redis预取器
+ * 后台线程用批量弹出把本地缓冲保持在目标深度，接收直接从内存返回。
+ * 目标深度按观测到的消费速率自适应：保留约 targetBufferMs 毫秒的消费量，并限制在 [minDepth, maxDepth]。
+ */
+@Slf4j
+public class RedisPrefetcher {
+
+    /**
+     * 拉取回调，由队列服务实现实际的Redis弹出并写入本地缓冲
+     */
+    public interface Fetcher {
+
+        /**
+         * 非阻塞批量弹出
+         * @return 从Redis弹出的元素数，为0表示队列已空
+         */
+        int fetch(int maxElements) throws Exception;
+
+        /**
+         * 阻塞等待一个元素
+         * @return 放入缓冲的消息数
+         */
+        int fetchBlocking(long timeoutSeconds) throws Exception;
+    }
+
+    private static final long SAMPLE_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final double RATE_SMOOTHING = 0.3;
+
+    private final String queueName;
+    private final BlockingDeque<QueueMessage> buffer;
+    private final Fetcher fetcher;
+    private final QueueProperties.Prefetch config;
+    private final Thread thread;
+    private final LongAdder consumed = new LongAdder();
+
+    private volatile boolean running = true;
+    private volatile int depth;
+    private double consumeRate;
+    private long lastSampleNanos = System.nanoTime();
+    private long lastConsumed;
+
+    public RedisPrefetcher(String queueName, BlockingDeque<QueueMessage> buffer, Fetcher fetcher,
+                           QueueProperties.Prefetch config) {
+        this.queueName = queueName;
+        this.buffer = buffer;
+        this.fetcher = fetcher;
+        this.config = config;
+        this.depth = Math.max(1, config.getMinDepth());
+        this.thread = new Thread(this::run, "redis-prefetch-" + queueName);
+        this.thread.setDaemon(true);
+        this.thread.start();
+        log.info("Redis预取已启动: queue={}, depth=[{}, {}], targetBuffer={}ms",
+                queueName, config.getMinDepth(), config.getMaxDepth(), config.getTargetBufferMs());
+    }
+
+    /**
+     * 消费者取走消息后调用，缓冲低于低水位时唤醒拉取线程
+     */
+    public void onConsumed(int count) {
+        if (count <= 0) {
+            return;
+        }
+        consumed.add(count);
+        if (buffer.size() <= lowWatermark()) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public double getConsumeRate() {
+        return consumeRate;
+    }
+
+    /**
+     * 停止拉取线程，缓冲中剩余的消息由调用方归还
+     */
+    public void close() {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            // 拉取线程可能正阻塞在BRPOP上，最多等待一个阻塞周期
+            thread.join(TimeUnit.SECONDS.toMillis(config.getBlockSeconds() + 5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                sample();
+                int size = buffer.size();
+                if (size <= lowWatermark()) {
+                    int fetched = fetcher.fetch(depth - size);
+                    if (fetched == 0 && running) {
+                        // 队列已空，用阻塞弹出等新消息，避免空轮询
+                        fetcher.fetchBlocking(config.getBlockSeconds());
+                    }
+                    continue;
+                }
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(10));
+            } catch (Exception e) {
+                log.warn("Redis预取失败: queue={}, {}", queueName, e.getMessage());
+                LockSupport.parkNanos(this, TimeUnit.SECONDS.toNanos(1));
+            }
+        }
+    }
+
+    /**
+     * 按消费速率调整目标深度
+     */
+    private void sample() {
+        long now = System.nanoTime();
+        long elapsed = now - lastSampleNanos;
+        if (elapsed < SAMPLE_INTERVAL_NANOS) {
+            return;
+        }
+        long total = consumed.sum();
+        double rate = (total - lastConsumed) * 1e9 / elapsed;
+        consumeRate = RATE_SMOOTHING * rate + (1 - RATE_SMOOTHING) * consumeRate;
+        lastConsumed = total;
+        lastSampleNanos = now;
+
+        long target = (long) Math.ceil(consumeRate * config.getTargetBufferMs() / 1000.0);
+        depth = (int) Math.max(config.getMinDepth(), Math.min(config.getMaxDepth(), target));
+    }
+
+    private int lowWatermark() {
+        return depth / 2;
+    }
+}
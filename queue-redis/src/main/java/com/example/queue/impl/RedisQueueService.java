@@ -0,0 +1,674 @@
+package com.example.queue.impl;
+
+import com.example.queue.codec.BinaryMessageCodec;
+import com.example.queue.codec.EnvelopeCodec;
+import com.example.queue.config.QueueProperties;
+import com.example.queue.core.AbstractQueueService;
+import com.example.queue.model.QueueMessage;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis队列实现
+ * 列表元素按原始字节读写：文本消息为JSON，二进制消息为 #BIN 帧，信封为 #ENV 帧，三者可以混合存放。
+ * 带过期时间的单条消息前面加 {@link ExpiryPrefix} 定长前缀。
+ * 出队时遇到过期消息会丢弃，并用 {@link #TRIM_EXPIRED_SCRIPT} 在服务端成批删除队头紧随其后的过期元素。
+ */
+@Slf4j
+public class RedisQueueService extends AbstractQueueService {
+
+    /**
+     * 入队并累加逻辑消息数
+     */
+    private static final RedisScript<Long> PUSH_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('LPUSH', KEYS[1], ARGV[1])\n" +
+            "return redis.call('INCRBY', KEYS[2], ARGV[2])", Long.class);
+
+    /**
+     * 出队并按信封帧头扣减逻辑消息数
+     */
+    private static final RedisScript<byte[]> POP_SCRIPT = new DefaultRedisScript<>(
+            "local v = redis.call('RPOP', KEYS[1])\n" +
+            "if v then\n" +
+            "  local n = 1\n" +
+            "  if string.sub(v, 1, 5) == '#ENV:' then n = tonumber(string.match(v, '^#ENV:(%d+)')) or 1 end\n" +
+            "  redis.call('DECRBY', KEYS[2], n)\n" +
+            "end\n" +
+            "return v", byte[].class);
+
+    /**
+     * 批量出队（RPOP count，需要Redis 6.2+）并扣减逻辑消息数
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> POP_BATCH_SCRIPT = new DefaultRedisScript<>(
+            "local vs = redis.call('RPOP', KEYS[1], ARGV[1])\n" +
+            "if not vs then return {} end\n" +
+            "local n = 0\n" +
+            "for _, v in ipairs(vs) do\n" +
+            "  if string.sub(v, 1, 5) == '#ENV:' then n = n + (tonumber(string.match(v, '^#ENV:(%d+)')) or 1) else n = n + 1 end\n" +
+            "end\n" +
+            "redis.call('DECRBY', KEYS[2], n)\n" +
+            "return vs", List.class);
+
+    /**
+     * 从队头（列表右端）连续删除已过期的元素，遇到没有过期时间前缀（{@link ExpiryPrefix}）或未过期的元素即停止
+     * 只读取元素开头固定位置的过期时间，不解析消息内容
+     * ARGV: 当前时间毫秒、单次最多删除数、是否扣减逻辑消息数（1/0）
+     */
+    static final RedisScript<Long> TRIM_EXPIRED_SCRIPT = new DefaultRedisScript<>(
+            "local now = tonumber(ARGV[1])\n" +
+            "local limit = tonumber(ARGV[2])\n" +
+            "local removed = 0\n" +
+            "while removed < limit do\n" +
+            "  local v = redis.call('LINDEX', KEYS[1], -1)\n" +
+            "  if not v or string.sub(v, 1, 5) ~= '#EXP:' or string.sub(v, 22, 22) ~= ':' then break end\n" +
+            "  local e = tonumber(string.sub(v, 6, 21))\n" +
+            "  if not e or e > now then break end\n" +
+            "  redis.call('RPOP', KEYS[1])\n" +
+            "  removed = removed + 1\n" +
+            "end\n" +
+            "if removed > 0 and ARGV[3] == '1' then redis.call('DECRBY', KEYS[2], removed) end\n" +
+            "return removed", Long.class);
+
+    /**
+     * 服务端单次清理的最大元素数，避免脚本长时间占用Redis
+     */
+    static final int TRIM_BATCH = 1000;
+
+    private final StringRedisTemplate redisTemplate;
+
+    /**
+     * 值为原始字节的模板，列表元素的读写都经过它，二进制消息体不做字符串转码
+     */
+    private final RedisTemplate<String, byte[]> bytesTemplate;
+    private final ObjectMapper objectMapper;
+    private final String queueKey;
+    private final String countKey;
+    private final EnvelopeCodec envelopeCodec;
+    private final BinaryMessageCodec binaryCodec;
+    private final boolean envelopeEnabled;
+
+    /**
+     * 已从Redis取出但尚未交付的消息（信封解包剩余或预取）
+     */
+    private final BlockingDeque<QueueMessage> localBuffer = new LinkedBlockingDeque<>();
+
+    /**
+     * 写后缓冲，未启用时为null
+     */
+    private final RedisWriteBehindBuffer writeBehindBuffer;
+
+    /**
+     * 接收预取器，未启用时为null
+     */
+    private final RedisPrefetcher prefetcher;
+
+    /**
+     * 共享的阻塞等待分发器，未启用时为null
+     */
+    private final RedisWaitDispatcher waitDispatcher;
+
+    public RedisQueueService(String queueName, StringRedisTemplate redisTemplate) {
+        this(queueName, redisTemplate, new QueueProperties.Redis());
+    }
+
+    public RedisQueueService(String queueName, StringRedisTemplate redisTemplate, QueueProperties.Redis redisProperties) {
+        this(queueName, redisTemplate, redisProperties, null);
+    }
+
+    public RedisQueueService(String queueName, StringRedisTemplate redisTemplate, QueueProperties.Redis redisProperties,
+                             RedisWaitDispatcher waitDispatcher) {
+        super(queueName, "REDIS");
+        QueueProperties.Envelope envelope = redisProperties.getEnvelope();
+        this.redisTemplate = redisTemplate;
+        this.bytesTemplate = new RedisTemplate<>();
+        this.bytesTemplate.setConnectionFactory(redisTemplate.getRequiredConnectionFactory());
+        this.bytesTemplate.setKeySerializer(RedisSerializer.string());
+        this.bytesTemplate.setValueSerializer(RedisSerializer.byteArray());
+        this.bytesTemplate.afterPropertiesSet();
+        this.waitDispatcher = waitDispatcher;
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.registerModule(new com.fasterxml.jackson.datatype.jsr310.JavaTimeModule());
+        this.objectMapper.disable(com.fasterxml.jackson.databind.SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        this.envelopeEnabled = envelope.isEnabled();
+        this.queueKey = queueKey(queueName, envelopeEnabled);
+        this.countKey = queueKey + ":count";
+        this.envelopeCodec = new EnvelopeCodec(objectMapper, envelope.getMaxMessages(), envelope.getMaxBytes());
+        this.binaryCodec = new BinaryMessageCodec(objectMapper);
+        this.writeBehindBuffer = redisProperties.getWriteBehind().isEnabled()
+                ? new RedisWriteBehindBuffer(queueName, this::writeBatch, objectMapper, redisProperties.getWriteBehind())
+                : null;
+        this.prefetcher = redisProperties.getPrefetch().isEnabled()
+                ? new RedisPrefetcher(queueName, localBuffer, new RedisPrefetcher.Fetcher() {
+                    @Override
+                    public int fetch(int maxElements) throws Exception {
+                        return fetchBatch(maxElements);
+                    }
+
+                    @Override
+                    public int fetchBlocking(long timeoutSeconds) throws Exception {
+                        return unpackAll(blockingPop(timeoutSeconds));
+                    }
+                }, redisProperties.getPrefetch())
+                : null;
+        log.info("初始化Redis队列: {}, 信封模式: {}, 写后缓冲: {}, 预取: {}, 等待分发: {}",
+                queueName, envelopeEnabled, writeBehindBuffer != null, prefetcher != null, waitDispatcher != null);
+    }
+
+    /**
+     * 列表键
+     * 信封模式下脚本同时操作列表键和计数键，键名带哈希标签 {name}，两个键落在同一槽位，集群模式下不会报 CROSSSLOT；
+     * 未开启信封时只有列表键，沿用 queue:&lt;name&gt;，已有的积压照常读取
+     */
+    public static String queueKey(String queueName, boolean envelope) {
+        return envelope ? "queue:{" + queueName + "}" : "queue:" + queueName;
+    }
+
+    @Override
+    public boolean sendMessage(QueueMessage message) {
+        try {
+            if (message == null) {
+                log.warn("消息不能为空");
+                return false;
+            }
+
+            stampEnqueueTime(message);
+            if (writeBehindBuffer != null) {
+                boolean accepted = writeBehindBuffer.offer(message);
+                if (!accepted) {
+                    log.warn("Redis写后缓冲已满，发送失败: {}", message.getMessageId());
+                }
+                return accepted;
+            }
+
+            if (!push(encode(message), 1)) {
+                log.warn("Redis队列发送失败");
+                return false;
+            }
+            logOperation("发送消息", "messageId=" + message.getMessageId());
+            return true;
+        } catch (JsonProcessingException e) {
+            log.error("消息序列化失败: {}", e.getMessage(), e);
+            return false;
+        } catch (Exception e) {
+            log.error("发送消息失败: {}", e.getMessage(), e);
+            return false;
+        }
+    }
+
+    @Override
+    public CompletableFuture<Boolean> sendMessageAsync(QueueMessage message) {
+        if (writeBehindBuffer == null || message == null) {
+            return super.sendMessageAsync(message);
+        }
+        // Future在消息真正写入Redis后完成
+        stampEnqueueTime(message);
+        return writeBehindBuffer.submit(message);
+    }
+
+    @Override
+    public int sendMessages(List<QueueMessage> messages) {
+        if (writeBehindBuffer != null && messages != null) {
+            int accepted = 0;
+            for (QueueMessage message : messages) {
+                if (message != null) {
+                    stampEnqueueTime(message);
+                    if (writeBehindBuffer.offer(message)) {
+                        accepted++;
+                    }
+                }
+            }
+            return accepted;
+        }
+        if (!envelopeEnabled || messages == null || messages.isEmpty()) {
+            return super.sendMessages(messages);
+        }
+
+        int successCount = 0;
+        messages.forEach(this::stampEnqueueTime);
+        try {
+            for (byte[] frame : encodeFrames(messages)) {
+                try {
+                    int count = countOf(frame);
+                    if (push(frame, count)) {
+                        successCount += count;
+                    }
+                } catch (Exception e) {
+                    log.error("信封发送失败: {}", e.getMessage(), e);
+                }
+            }
+        } catch (JsonProcessingException e) {
+            log.error("消息序列化失败: {}", e.getMessage(), e);
+        }
+
+        log.info("批量发送消息完成(信封模式)，成功: {}/{}", successCount, messages.size());
+        return successCount;
+    }
+
+    @Override
+    public QueueMessage receiveMessage() {
+        QueueMessage buffered = pollBuffer();
+        if (buffered != null) {
+            return recordDwell(buffered);
+        }
+        try {
+            QueueMessage message;
+            byte[] raw;
+            do {
+                raw = envelopeEnabled
+                        ? bytesTemplate.execute(POP_SCRIPT, Arrays.asList(queueKey, countKey))
+                        : bytesTemplate.opsForList().rightPop(queueKey);
+                message = unpack(raw);
+            } while (message == null && raw != null);
+            if (message != null) {
+                logOperation("接收消息", "messageId=" + message.getMessageId());
+            }
+            return recordDwell(message);
+        } catch (JsonProcessingException e) {
+            log.error("消息反序列化失败: {}", e.getMessage(), e);
+            return null;
+        } catch (Exception e) {
+            log.error("接收消息失败: {}", e.getMessage(), e);
+            return null;
+        }
+    }
+
+    @Override
+    public QueueMessage receiveMessage(long timeoutSeconds) {
+        try {
+            if (prefetcher != null) {
+                // 预取模式只在本地缓冲上等待，不占用Redis连接
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+                QueueMessage message;
+                while ((message = localBuffer.pollFirst(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) != null) {
+                    prefetcher.onConsumed(1);
+                    if (!message.isExpired(System.currentTimeMillis())) {
+                        break;
+                    }
+                    recordExpired(1);
+                }
+                return recordDwell(message);
+            }
+
+            QueueMessage buffered = pollBuffer();
+            if (buffered != null) {
+                return recordDwell(buffered);
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+            QueueMessage message = null;
+            while (message == null) {
+                // 剩余时间向上取整到秒，不足一秒也按一秒阻塞；阻塞弹出的超时为0表示永久等待，到期后只做一次非阻塞弹出
+                long remainingSeconds = secondsCeil(deadline - System.nanoTime());
+                byte[] raw = remainingSeconds > 0
+                        ? blockingPop(remainingSeconds)
+                        : bytesTemplate.opsForList().rightPop(queueKey);
+                if (raw == null) {
+                    break;
+                }
+                if (remainingSeconds <= 0 && envelopeEnabled) {
+                    redisTemplate.opsForValue().decrement(countKey, countOf(raw));
+                }
+                message = unpack(raw);
+                if (message == null && remainingSeconds <= 0) {
+                    break;
+                }
+            }
+            if (message != null) {
+                logOperation("接收消息(超时)", "messageId=" + message.getMessageId(), "timeout=" + timeoutSeconds);
+            }
+            return recordDwell(message);
+        } catch (InterruptedException e) {
+            log.warn("接收消息被中断: {}", e.getMessage());
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (JsonProcessingException e) {
+            log.error("消息反序列化失败: {}", e.getMessage(), e);
+            return null;
+        } catch (Exception e) {
+            log.error("接收消息失败: {}", e.getMessage(), e);
+            return null;
+        }
+    }
+
+    @Override
+    public List<QueueMessage> receiveMessages(int maxMessages) {
+        List<QueueMessage> messages = new ArrayList<>(Math.max(0, maxMessages));
+        if (maxMessages <= 0) {
+            return messages;
+        }
+        try {
+            localBuffer.drainTo(messages, maxMessages);
+            if (prefetcher != null) {
+                prefetcher.onConsumed(messages.size());
+            }
+            removeExpired(messages);
+            // 缓冲为空时用批量弹出补齐，而不是逐条往返；弹出的元素全部过期时继续弹出
+            while (messages.isEmpty() && fetchBatch(maxMessages) > 0) {
+                localBuffer.drainTo(messages, maxMessages);
+            }
+        } catch (JsonProcessingException e) {
+            log.error("消息反序列化失败: {}", e.getMessage(), e);
+        } catch (Exception e) {
+            log.error("批量接收消息失败: {}", e.getMessage(), e);
+        }
+        messages.forEach(this::recordDwell);
+        return messages;
+    }
+
+    @Override
+    public long getQueueSize() {
+        try {
+            long remote;
+            if (envelopeEnabled) {
+                String count = redisTemplate.opsForValue().get(countKey);
+                remote = count != null ? Math.max(0, Long.parseLong(count)) : 0;
+            } else {
+                Long size = redisTemplate.opsForList().size(queueKey);
+                remote = size != null ? size : 0;
+            }
+            return remote + localBuffer.size() + pendingWrites();
+        } catch (Exception e) {
+            log.error("获取队列大小失败: {}", e.getMessage(), e);
+            return 0;
+        }
+    }
+
+    @Override
+    public boolean clearQueue() {
+        try {
+            localBuffer.clear();
+            if (writeBehindBuffer != null) {
+                writeBehindBuffer.clear();
+            }
+            Long result = redisTemplate.delete(envelopeEnabled
+                    ? Arrays.asList(queueKey, countKey) : Collections.singletonList(queueKey));
+            logOperation("清空队列");
+            return result != null && result > 0;
+        } catch (Exception e) {
+            log.error("清空队列失败: {}", e.getMessage(), e);
+            return false;
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        if (prefetcher != null) {
+            prefetcher.close();
+        }
+        returnBuffered();
+        if (writeBehindBuffer != null) {
+            writeBehindBuffer.close();
+        }
+    }
+
+    /**
+     * 把本地缓冲中未交付的消息放回队列头部（列表右端），保持原有顺序
+     */
+    private void returnBuffered() {
+        List<QueueMessage> remaining = new ArrayList<>();
+        localBuffer.drainTo(remaining);
+        if (remaining.isEmpty()) {
+            return;
+        }
+        try {
+            // RPUSH按参数顺序追加到右端，逆序写入后最早的消息位于最右端，最先被弹出
+            byte[][] payloads = new byte[remaining.size()][];
+            for (int i = 0; i < remaining.size(); i++) {
+                payloads[remaining.size() - 1 - i] = encode(remaining.get(i));
+            }
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                connection.rPush(rawQueueKey(), payloads);
+                if (envelopeEnabled) {
+                    connection.incrBy(rawCountKey(), payloads.length);
+                }
+                return null;
+            });
+            log.info("归还本地缓冲消息: queue={}, count={}", queueName, remaining.size());
+        } catch (Exception e) {
+            log.error("归还本地缓冲消息失败，{}条消息丢失: {}", remaining.size(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 取出本地缓冲中第一条未过期的消息，在缓冲中等待期间过期的消息直接丢弃
+     */
+    private QueueMessage pollBuffer() {
+        long now = System.currentTimeMillis();
+        int expired = 0;
+        QueueMessage message;
+        while ((message = localBuffer.pollFirst()) != null) {
+            if (prefetcher != null) {
+                prefetcher.onConsumed(1);
+            }
+            if (!message.isExpired(now)) {
+                break;
+            }
+            expired++;
+        }
+        recordExpired(expired);
+        return message;
+    }
+
+    /**
+     * 批量弹出最多maxElements个元素并解包到本地缓冲
+     * @return 弹出的元素数，其中的消息可能全部过期
+     */
+    @SuppressWarnings("unchecked")
+    private int fetchBatch(int maxElements) throws IOException {
+        List<byte[]> raws = envelopeEnabled
+                ? (List<byte[]>) bytesTemplate.execute(POP_BATCH_SCRIPT, Arrays.asList(queueKey, countKey), bytes(maxElements))
+                : bytesTemplate.opsForList().rightPop(queueKey, maxElements);
+        if (raws == null) {
+            return 0;
+        }
+        for (byte[] raw : raws) {
+            unpackAll(raw);
+        }
+        return raws.size();
+    }
+
+    /**
+     * 阻塞弹出一个元素，启用分发器时登记为等待者而不占用连接
+     */
+    private byte[] blockingPop(long timeoutSeconds) throws InterruptedException {
+        byte[] raw = waitDispatcher != null
+                ? waitDispatcher.await(queueKey, timeoutSeconds)
+                : bytesTemplate.opsForList().rightPop(queueKey, Duration.ofSeconds(timeoutSeconds));
+        if (raw != null && envelopeEnabled) {
+            // 阻塞弹出无法放进脚本，计数单独扣减
+            redisTemplate.opsForValue().decrement(countKey, countOf(raw));
+        }
+        return raw;
+    }
+
+    private int pendingWrites() {
+        return writeBehindBuffer != null ? writeBehindBuffer.size() : 0;
+    }
+
+    /**
+     * 写后缓冲的批量写入：一次LPUSH多个元素，信封模式下同一管道内累加计数
+     */
+    private void writeBatch(List<QueueMessage> messages) throws JsonProcessingException {
+        List<byte[]> payloads;
+        long total = 0;
+        if (envelopeEnabled) {
+            payloads = encodeFrames(messages);
+            for (byte[] payload : payloads) {
+                total += countOf(payload);
+            }
+        } else {
+            payloads = new ArrayList<>(messages.size());
+            for (QueueMessage message : messages) {
+                payloads.add(encode(message));
+            }
+            total = payloads.size();
+        }
+
+        long count = total;
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.lPush(rawQueueKey(), payloads.toArray(new byte[0][]));
+            if (envelopeEnabled) {
+                connection.incrBy(rawCountKey(), count);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 写入一个元素，信封模式下同时累加逻辑消息数
+     */
+    private boolean push(byte[] payload, int count) {
+        Long result = envelopeEnabled
+                ? bytesTemplate.execute(PUSH_SCRIPT, Arrays.asList(queueKey, countKey), payload, bytes(count))
+                : bytesTemplate.opsForList().leftPush(queueKey, payload);
+        return result != null && result > 0;
+    }
+
+    /**
+     * 编码单条消息：二进制消息为 #BIN 帧，文本消息为JSON，有过期时间时加过期时间前缀
+     */
+    private byte[] encode(QueueMessage message) throws JsonProcessingException {
+        byte[] payload = message.isBinary() ? binaryCodec.encode(message) : objectMapper.writeValueAsBytes(message);
+        return ExpiryPrefix.wrap(payload, message.getExpireAt());
+    }
+
+    /**
+     * 信封模式的批量编码：文本消息打包成信封，二进制消息各自单独成帧，不做Base64转码
+     */
+    private List<byte[]> encodeFrames(List<QueueMessage> messages) throws JsonProcessingException {
+        List<byte[]> frames = new ArrayList<>();
+        List<QueueMessage> texts = new ArrayList<>(messages.size());
+        for (QueueMessage message : messages) {
+            if (message == null) {
+                continue;
+            }
+            if (message.isBinary()) {
+                frames.add(encode(message));
+            } else {
+                texts.add(message);
+            }
+        }
+        for (EnvelopeCodec.Frame frame : envelopeCodec.pack(texts)) {
+            frames.add(frame.getPayload().getBytes(StandardCharsets.UTF_8));
+        }
+        return frames;
+    }
+
+    /**
+     * 元素包含的逻辑消息数：信封按帧头，其余为1
+     */
+    private static int countOf(byte[] raw) {
+        if (raw.length < EnvelopeCodec.ENVELOPE_PREFIX.length() || raw[0] != '#' || raw[1] != 'E') {
+            return 1;
+        }
+        int headerEnd = Math.min(raw.length, 32);
+        return EnvelopeCodec.countOf(new String(raw, 0, headerEnd, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 纳秒换算成秒并向上取整，非正数返回0
+     */
+    static long secondsCeil(long nanos) {
+        return nanos > 0 ? (nanos + 999_999_999L) / 1_000_000_000L : 0;
+    }
+
+    private static byte[] bytes(long value) {
+        return String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] rawQueueKey() {
+        return queueKey.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] rawCountKey() {
+        return countKey.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 解包一个元素，全部放入本地缓冲
+     * @return 放入缓冲的消息数
+     */
+    private int unpackAll(byte[] raw) throws IOException {
+        if (raw == null) {
+            return 0;
+        }
+        List<QueueMessage> messages = decodeLive(raw);
+        localBuffer.addAll(messages);
+        return messages.size();
+    }
+
+    /**
+     * 解包一个元素，返回第一条消息，其余放入本地缓冲
+     * @return 第一条未过期的消息，元素为空或其中消息全部过期时返回null
+     */
+    private QueueMessage unpack(byte[] raw) throws IOException {
+        if (raw == null) {
+            return null;
+        }
+        List<QueueMessage> messages = decodeLive(raw);
+        if (messages.isEmpty()) {
+            return null;
+        }
+        localBuffer.addAll(messages.subList(1, messages.size()));
+        return messages.get(0);
+    }
+
+    /**
+     * 解码一个元素并丢弃其中的过期消息
+     * 有消息过期说明队头可能积压了更多过期元素，随即在服务端成批清理
+     */
+    private List<QueueMessage> decodeLive(byte[] raw) throws IOException {
+        List<QueueMessage> messages = new ArrayList<>(decode(raw));
+        if (removeExpired(messages) > 0) {
+            trimExpired();
+        }
+        return messages;
+    }
+
+    /**
+     * 用脚本删除队头连续的过期元素，清理失败不影响出队
+     */
+    private void trimExpired() {
+        try {
+            Long removed;
+            do {
+                // 未开启信封时没有计数键，两个位置都传列表键，避免跨槽位
+                removed = redisTemplate.execute(TRIM_EXPIRED_SCRIPT, Arrays.asList(queueKey, envelopeEnabled ? countKey : queueKey),
+                        String.valueOf(System.currentTimeMillis()), String.valueOf(TRIM_BATCH), envelopeEnabled ? "1" : "0");
+                recordExpired(removed != null ? removed : 0);
+            } while (removed != null && removed >= TRIM_BATCH);
+        } catch (Exception e) {
+            log.warn("清理过期消息失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 解码一个元素：先去掉过期时间前缀，#BIN 帧直接取出消息体，其余按UTF-8文本交给信封解码器
+     */
+    private List<QueueMessage> decode(byte[] element) throws IOException {
+        byte[] raw = ExpiryPrefix.strip(element);
+        if (BinaryMessageCodec.isBinary(raw)) {
+            return Collections.singletonList(binaryCodec.decode(raw));
+        }
+        return envelopeCodec.unpack(new String(raw, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.queue.impl;
+
+import com.example.queue.config.QueueProperties;
+import com.example.queue.core.QueueService;
+import com.example.queue.core.QueueServiceProvider;
+import com.example.queue.core.QueueType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Redis队列后端
+ * Redis模板在第一次创建Redis或Redis Streams队列时才向容器获取，连接工厂随之初始化；
+ * 阻塞等待分发器同样在首次需要时创建，所有Redis队列共享。
+ */
+@Slf4j
+public class RedisQueueServiceProvider implements QueueServiceProvider {
+
+    private final Supplier<StringRedisTemplate> redisTemplateSupplier;
+    private final QueueProperties.Redis properties;
+
+    private volatile StringRedisTemplate redisTemplate;
+
+    /**
+     * Redis阻塞等待分发器，首次创建Redis队列时按配置创建，所有Redis队列共享
+     */
+    private volatile RedisWaitDispatcher waitDispatcher;
+
+    public RedisQueueServiceProvider(Supplier<StringRedisTemplate> redisTemplateSupplier, QueueProperties.Redis properties) {
+        this.redisTemplateSupplier = redisTemplateSupplier;
+        this.properties = properties;
+    }
+
+    @Override
+    public Set<QueueType> getSupportedTypes() {
+        return EnumSet.of(QueueType.REDIS, QueueType.REDIS_STREAM);
+    }
+
+    @Override
+    public QueueService createQueueService(String queueName, QueueType queueType) {
+        StringRedisTemplate template = getRedisTemplate();
+        if (queueType == QueueType.REDIS_STREAM) {
+            return new RedisStreamQueueService(queueName, template, properties.getStream());
+        }
+        if (properties.getPriority().getLanes() > 1) {
+            if (properties.getSharding().getShards() > 1) {
+                log.warn("优先级通道与分片不能同时使用，队列 {} 按优先级通道创建", queueName);
+            }
+            return new PriorityRedisQueueService(queueName, template, properties.getPriority());
+        }
+        if (properties.getSharding().getShards() > 1) {
+            return new ShardedRedisQueueService(queueName, template, properties.getSharding());
+        }
+        return new RedisQueueService(queueName, template, properties, getWaitDispatcher());
+    }
+
+    @Override
+    public void shutdown() {
+        if (waitDispatcher != null) {
+            waitDispatcher.close();
+        }
+    }
+
+    private StringRedisTemplate getRedisTemplate() {
+        if (redisTemplate == null) {
+            synchronized (this) {
+                if (redisTemplate == null) {
+                    long startNanos = System.nanoTime();
+                    StringRedisTemplate template = redisTemplateSupplier.get();
+                    if (template == null) {
+                        throw new IllegalStateException("Redis模板未配置，无法创建Redis队列");
+                    }
+                    redisTemplate = template;
+                    log.info("Redis后端首次使用，初始化耗时{}ms", (System.nanoTime() - startNanos) / 1_000_000);
+                }
+            }
+        }
+        return redisTemplate;
+    }
+
+    private RedisWaitDispatcher getWaitDispatcher() {
+        if (!properties.getWaitDispatcher().isEnabled()) {
+            return null;
+        }
+        if (waitDispatcher == null) {
+            synchronized (this) {
+                if (waitDispatcher == null) {
+                    waitDispatcher = new RedisWaitDispatcher(redisTemplate, properties.getWaitDispatcher());
+                }
+            }
+        }
+        return waitDispatcher;
+    }
+}
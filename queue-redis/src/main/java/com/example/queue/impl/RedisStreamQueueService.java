@@ -0,0 +1,506 @@
+package com.example.queue.impl;
+
+import com.example.queue.config.QueueProperties;
+import com.example.queue.core.AbstractQueueService;
+import com.example.queue.model.QueueMessage;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.lettuce.core.XAutoClaimArgs;
+import io.lettuce.core.api.async.RedisStreamAsyncCommands;
+import io.lettuce.core.models.stream.ClaimedMessages;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.RedisZSetCommands.Limit;
+import org.springframework.data.redis.connection.RedisStreamCommands;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamInfo;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.connection.stream.StringRecord;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Redis Streams队列实现
+ * 发送使用 XADD MAXLEN ~ 近似裁剪，接收使用消费者组 XREADGROUP COUNT/BLOCK 批量读取。
+ * 消息交付给调用方后记为已处理，累计到 ackBatchSize 条或 ackIntervalMs 毫秒后批量 XACK；
+ * 读入本地但消费者宕机未交付的消息留在待确认列表中，由其他消费者通过 XAUTOCLAIM 认领。
+ * 过期消息在交付时丢弃，与正常消息一样批量确认；流中间的条目无法按条件删除，不做服务端清理。
+ */
+@Slf4j
+public class RedisStreamQueueService extends AbstractQueueService {
+
+    private static final String PAYLOAD_FIELD = "payload";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final QueueProperties.Stream config;
+    private final String streamKey;
+    private final Consumer consumer;
+
+    /**
+     * 已读入但尚未交付的消息
+     */
+    private final BlockingDeque<StreamEntry> localBuffer = new LinkedBlockingDeque<>();
+
+    /**
+     * 已交付、等待批量XACK的记录ID
+     */
+    private final ConcurrentLinkedQueue<RecordId> pendingAcks = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingAckCount = new AtomicInteger();
+
+    /**
+     * 本实例持有的记录ID（本地缓冲中未交付的和已交付未确认的），XAUTOCLAIM 认领到这些ID时不再重复缓冲
+     */
+    private final Set<String> localIds = ConcurrentHashMap.newKeySet();
+
+    private final ScheduledExecutorService scheduler;
+
+    public RedisStreamQueueService(String queueName, StringRedisTemplate redisTemplate) {
+        this(queueName, redisTemplate, new QueueProperties.Stream());
+    }
+
+    public RedisStreamQueueService(String queueName, StringRedisTemplate redisTemplate, QueueProperties.Stream config) {
+        super(queueName, "REDIS_STREAM");
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.registerModule(new com.fasterxml.jackson.datatype.jsr310.JavaTimeModule());
+        this.objectMapper.disable(com.fasterxml.jackson.databind.SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        this.config = config;
+        this.streamKey = "stream:" + queueName;
+        String consumerName = config.getConsumer() != null && !config.getConsumer().trim().isEmpty()
+                ? config.getConsumer()
+                : ManagementFactory.getRuntimeMXBean().getName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        this.consumer = Consumer.from(config.getGroup(), consumerName);
+
+        createGroupIfAbsent();
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "redis-stream-" + queueName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::flushAcksQuietly,
+                config.getAckIntervalMs(), config.getAckIntervalMs(), TimeUnit.MILLISECONDS);
+        this.scheduler.scheduleWithFixedDelay(this::reclaimQuietly,
+                config.getClaimIntervalMs(), config.getClaimIntervalMs(), TimeUnit.MILLISECONDS);
+
+        log.info("初始化Redis Streams队列: {}, group={}, consumer={}", queueName, consumer.getGroup(), consumer.getName());
+    }
+
+    @Override
+    public boolean sendMessage(QueueMessage message) {
+        try {
+            if (message == null) {
+                log.warn("消息不能为空");
+                return false;
+            }
+
+            stampEnqueueTime(message);
+            StringRecord record = toRecord(objectMapper.writeValueAsString(message));
+            RecordId recordId = redisTemplate.execute((RedisCallback<RecordId>) connection ->
+                    ((StringRedisConnection) connection).xAdd(record, addOptions()));
+            if (recordId == null) {
+                log.warn("Redis Streams队列发送失败");
+                return false;
+            }
+            logOperation("发送消息", "messageId=" + message.getMessageId(), "recordId=" + recordId);
+            return true;
+        } catch (JsonProcessingException e) {
+            log.error("消息序列化失败: {}", e.getMessage(), e);
+            return false;
+        } catch (Exception e) {
+            log.error("发送消息失败: {}", e.getMessage(), e);
+            return false;
+        }
+    }
+
+    @Override
+    public int sendMessages(List<QueueMessage> messages) {
+        if (messages == null || messages.isEmpty()) {
+            return 0;
+        }
+
+        List<StringRecord> records = new ArrayList<>(messages.size());
+        for (QueueMessage message : messages) {
+            if (message == null) {
+                continue;
+            }
+            try {
+                stampEnqueueTime(message);
+                records.add(toRecord(objectMapper.writeValueAsString(message)));
+            } catch (JsonProcessingException e) {
+                log.error("消息序列化失败: {}", e.getMessage(), e);
+            }
+        }
+
+        try {
+            // 同一管道内发送全部XADD，只有一次网络往返
+            List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                RedisStreamCommands.XAddOptions options = addOptions();
+                for (StringRecord record : records) {
+                    stringConnection.xAdd(record, options);
+                }
+                return null;
+            });
+            int successCount = (int) results.stream().filter(result -> result != null).count();
+            log.info("批量发送消息完成，成功: {}/{}", successCount, messages.size());
+            return successCount;
+        } catch (Exception e) {
+            log.error("批量发送消息失败: {}", e.getMessage(), e);
+            return 0;
+        }
+    }
+
+    @Override
+    public QueueMessage receiveMessage() {
+        QueueMessage message = pollLive();
+        // 读入的消息全部过期时继续读取
+        while (message == null && read(config.getReadCount(), null) > 0) {
+            message = pollLive();
+        }
+        return message;
+    }
+
+    @Override
+    public QueueMessage receiveMessage(long timeoutSeconds) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        QueueMessage message = pollLive();
+        while (message == null) {
+            long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            // BLOCK 0 表示永久等待，剩余时间用完后只做非阻塞读取
+            if (read(config.getReadCount(), remainingMs > 0 ? Duration.ofMillis(remainingMs) : null) == 0) {
+                break;
+            }
+            message = pollLive();
+        }
+        if (message != null) {
+            logOperation("接收消息(超时)", "messageId=" + message.getMessageId(), "timeout=" + timeoutSeconds);
+        }
+        return message;
+    }
+
+    @Override
+    public List<QueueMessage> receiveMessages(int maxMessages) {
+        List<QueueMessage> messages = new ArrayList<>(Math.max(0, maxMessages));
+        if (maxMessages <= 0) {
+            return messages;
+        }
+        List<StreamEntry> entries = new ArrayList<>(maxMessages);
+        localBuffer.drainTo(entries, maxMessages);
+        while (true) {
+            if (entries.isEmpty()) {
+                if (read(Math.max(maxMessages, config.getReadCount()), null) == 0) {
+                    break;
+                }
+                localBuffer.drainTo(entries, maxMessages);
+            }
+            for (StreamEntry entry : entries) {
+                QueueMessage message = deliver(entry);
+                if (message != null) {
+                    messages.add(message);
+                }
+            }
+            if (!messages.isEmpty()) {
+                break;
+            }
+            entries.clear();
+        }
+        return messages;
+    }
+
+    /**
+     * 队列大小：尚未投递给消费者组的条数（lag）加本地缓冲
+     */
+    @Override
+    public long getQueueSize() {
+        return Math.max(0, getConsumerGroupLag()) + localBuffer.size();
+    }
+
+    @Override
+    public boolean clearQueue() {
+        try {
+            localBuffer.clear();
+            pendingAcks.clear();
+            pendingAckCount.set(0);
+            localIds.clear();
+            Boolean result = redisTemplate.delete(streamKey);
+            createGroupIfAbsent();
+            logOperation("清空队列");
+            return result != null && result;
+        } catch (Exception e) {
+            log.error("清空队列失败: {}", e.getMessage(), e);
+            return false;
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        scheduler.shutdownNow();
+        flushAcksQuietly();
+        // 本地缓冲中未交付的消息仍在待确认列表中，由其他消费者认领
+        if (!localBuffer.isEmpty()) {
+            log.info("Redis Streams队列关闭，{}条未交付消息留待认领: {}", localBuffer.size(), queueName);
+        }
+    }
+
+    /**
+     * 消费者组积压：Redis 7 直接读取 XINFO GROUPS 的 lag，
+     * 旧版本按 last-delivered-id 之后的条目数估算（最多统计10000条）
+     */
+    public long getConsumerGroupLag() {
+        try {
+            StreamInfo.XInfoGroups groups = redisTemplate.opsForStream().groups(streamKey);
+            for (int i = 0; i < groups.size(); i++) {
+                StreamInfo.XInfoGroup group = groups.get(i);
+                if (!consumer.getGroup().equals(group.groupName())) {
+                    continue;
+                }
+                Object lag = group.getRaw().get("lag");
+                if (lag instanceof Number) {
+                    return ((Number) lag).longValue();
+                }
+                Range<String> range = Range.rightUnbounded(Range.Bound.exclusive(group.lastDeliveredId()));
+                List<MapRecord<String, Object, Object>> undelivered = redisTemplate.opsForStream()
+                        .range(streamKey, range, Limit.limit().count(10000));
+                return undelivered != null ? undelivered.size() : 0;
+            }
+            return 0;
+        } catch (Exception e) {
+            log.error("获取消费者组积压失败: {}", e.getMessage(), e);
+            return -1;
+        }
+    }
+
+    /**
+     * 消费者组状态：长度、积压、待确认数
+     */
+    public Map<String, Object> getStreamInfo() {
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("streamKey", streamKey);
+        info.put("group", consumer.getGroup());
+        info.put("consumer", consumer.getName());
+        try {
+            Long length = redisTemplate.opsForStream().size(streamKey);
+            info.put("length", length != null ? length : 0);
+            info.put("lag", getConsumerGroupLag());
+            info.put("pending", redisTemplate.opsForStream().pending(streamKey, consumer.getGroup()).getTotalPendingMessages());
+        } catch (Exception e) {
+            info.put("error", e.getMessage());
+        }
+        info.put("localBuffered", localBuffer.size());
+        info.put("pendingAcks", pendingAckCount.get());
+        return info;
+    }
+
+    private RedisStreamCommands.XAddOptions addOptions() {
+        return RedisStreamCommands.XAddOptions.maxlen(config.getMaxLen()).approximateTrimming(true);
+    }
+
+    private StringRecord toRecord(String payload) {
+        return StreamRecords.string(Collections.singletonMap(PAYLOAD_FIELD, payload)).withStreamKey(streamKey);
+    }
+
+    /**
+     * XREADGROUP读取新消息到本地缓冲，读取前先提交累计的确认
+     * @return 读入的条数
+     */
+    @SuppressWarnings("unchecked")
+    private int read(int count, Duration block) {
+        flushAcksQuietly();
+        try {
+            StreamReadOptions options = StreamReadOptions.empty().count(count);
+            if (block != null) {
+                options = options.block(block);
+            }
+            List<MapRecord<String, Object, Object>> records = redisTemplate.opsForStream()
+                    .read(consumer, options, StreamOffset.create(streamKey, ReadOffset.lastConsumed()));
+            if (records == null) {
+                return 0;
+            }
+            for (MapRecord<String, Object, Object> record : records) {
+                Object payload = record.getValue().get(PAYLOAD_FIELD);
+                buffer(record.getId(), payload != null ? payload.toString() : null);
+            }
+            return records.size();
+        } catch (Exception e) {
+            log.error("读取Redis Streams失败: {}", e.getMessage(), e);
+            return 0;
+        }
+    }
+
+    /**
+     * 从本地缓冲交付第一条有效消息，过期或无法解析的条目确认后跳过
+     */
+    private QueueMessage pollLive() {
+        StreamEntry entry;
+        while ((entry = localBuffer.pollFirst()) != null) {
+            QueueMessage message = deliver(entry);
+            if (message != null) {
+                return message;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 交付一条消息并登记待确认
+     * @return 消息，过期或无法解析时返回null
+     */
+    private QueueMessage deliver(StreamEntry entry) {
+        if (entry == null) {
+            return null;
+        }
+        pendingAcks.add(entry.recordId);
+        if (pendingAckCount.incrementAndGet() >= config.getAckBatchSize()) {
+            flushAcksQuietly();
+        }
+        if (entry.payload == null) {
+            return null;
+        }
+        try {
+            QueueMessage message = objectMapper.readValue(entry.payload, QueueMessage.class);
+            if (message.isExpired(System.currentTimeMillis())) {
+                recordExpired(1);
+                return null;
+            }
+            logOperation("接收消息", "messageId=" + message.getMessageId(), "recordId=" + entry.recordId);
+            return recordDwell(message);
+        } catch (JsonProcessingException e) {
+            // 无法解析的消息同样确认掉，避免反复认领
+            log.error("消息反序列化失败: {}", e.getMessage(), e);
+            return null;
+        }
+    }
+
+    private void flushAcksQuietly() {
+        try {
+            List<RecordId> ids = new ArrayList<>();
+            RecordId id;
+            while ((id = pendingAcks.poll()) != null) {
+                ids.add(id);
+            }
+            if (ids.isEmpty()) {
+                return;
+            }
+            pendingAckCount.addAndGet(-ids.size());
+            try {
+                redisTemplate.opsForStream().acknowledge(streamKey, consumer.getGroup(), ids.toArray(new RecordId[0]));
+            } finally {
+                // 确认失败的消息交给空闲超时后的认领处理，本实例也可以重新认领
+                ids.forEach(recordId -> localIds.remove(recordId.getValue()));
+            }
+        } catch (Exception e) {
+            log.warn("批量确认失败，相关消息将在空闲超时后被重新认领: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 放入本地缓冲，本实例已持有的记录ID跳过
+     * @return 是否放入
+     */
+    private boolean buffer(RecordId recordId, String payload) {
+        if (!localIds.add(recordId.getValue())) {
+            return false;
+        }
+        localBuffer.addLast(new StreamEntry(recordId, payload));
+        return true;
+    }
+
+    /**
+     * 用XAUTOCLAIM认领其他消费者长时间未确认的消息（Lettuce原生命令，需要Redis 6.2+）
+     */
+    @SuppressWarnings("unchecked")
+    private void reclaimQuietly() {
+        try {
+            byte[] key = streamKey.getBytes(StandardCharsets.UTF_8);
+            io.lettuce.core.Consumer<byte[]> claimer = io.lettuce.core.Consumer.from(
+                    consumer.getGroup().getBytes(StandardCharsets.UTF_8),
+                    consumer.getName().getBytes(StandardCharsets.UTF_8));
+            String startId = "0-0";
+            int claimed = 0;
+            do {
+                XAutoClaimArgs<byte[]> args = XAutoClaimArgs.Builder
+                        .xautoclaim(claimer, config.getClaimMinIdleMs(), startId)
+                        .count(config.getReadCount());
+                ClaimedMessages<byte[], byte[]> result = redisTemplate.execute((RedisCallback<ClaimedMessages<byte[], byte[]>>) connection -> {
+                    RedisStreamAsyncCommands<byte[], byte[]> commands =
+                            (RedisStreamAsyncCommands<byte[], byte[]>) connection.getNativeConnection();
+                    try {
+                        return commands.xautoclaim(key, args).get(10, TimeUnit.SECONDS);
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e.getMessage(), e);
+                    }
+                });
+                if (result == null) {
+                    break;
+                }
+                for (io.lettuce.core.StreamMessage<byte[], byte[]> streamMessage : result.getMessages()) {
+                    byte[] payload = null;
+                    for (Map.Entry<byte[], byte[]> field : streamMessage.getBody().entrySet()) {
+                        if (PAYLOAD_FIELD.equals(new String(field.getKey(), StandardCharsets.UTF_8))) {
+                            payload = field.getValue();
+                        }
+                    }
+                    // 本实例已缓冲或已交付未确认的条目只是空闲时间到了，认领只刷新空闲时间，不再重复缓冲
+                    if (buffer(RecordId.of(streamMessage.getId()),
+                            payload != null ? new String(payload, StandardCharsets.UTF_8) : null)) {
+                        claimed++;
+                    }
+                }
+                startId = result.getId();
+            } while (!"0-0".equals(startId));
+
+            if (claimed > 0) {
+                log.info("认领空闲待确认消息: queue={}, count={}", queueName, claimed);
+            }
+        } catch (Exception e) {
+            log.warn("XAUTOCLAIM失败: {}", e.getMessage());
+        }
+    }
+
+    private void createGroupIfAbsent() {
+        try {
+            redisTemplate.execute((RedisCallback<String>) connection ->
+                    ((StringRedisConnection) connection).xGroupCreate(streamKey, ReadOffset.from("0"), consumer.getGroup(), true));
+        } catch (Exception e) {
+            // BUSYGROUP：消费者组已存在
+            log.debug("消费者组已存在或创建失败: {}", e.getMessage());
+        }
+    }
+
+    private static final class StreamEntry {
+        private final RecordId recordId;
+        private final String payload;
+
+        private StreamEntry(RecordId recordId, String payload) {
+            this.recordId = recordId;
+            this.payload = payload;
+        }
+    }
+}
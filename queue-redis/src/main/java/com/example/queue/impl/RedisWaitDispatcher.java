@@ -0,0 +1,279 @@
+package com.example.queue.impl;
+
+import com.example.queue.config.QueueProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Redis阻塞等待分发器
+ * 多个队列的阻塞接收不再各自占用一个连接执行BRPOP，而是登记为等待者，
+ * 由少量专用连接对所有有等待者的键执行一条多键BRPOP，弹出的元素通过Future交给对应键上最早的等待者。
+ * 每个工作线程有一个唤醒键，新键登记时向其写入一个元素，让正在阻塞的BRPOP立即返回并重建键集合。
+ * 多键BRPOP要求所有键在同一槽位，不适用于Redis集群。
+ */
+@Slf4j
+public class RedisWaitDispatcher {
+
+    private static final String WAKEUP_KEY_PREFIX = "queue:__wait-dispatcher:wakeup:";
+
+    private final RedisConnectionFactory connectionFactory;
+    private final StringRedisTemplate redisTemplate;
+    private final QueueProperties.WaitDispatcher config;
+    private final Worker[] workers;
+
+    private volatile boolean running = true;
+
+    public RedisWaitDispatcher(StringRedisTemplate redisTemplate, QueueProperties.WaitDispatcher config) {
+        this.redisTemplate = redisTemplate;
+        this.connectionFactory = redisTemplate.getRequiredConnectionFactory();
+        this.config = config;
+        int connections = Math.max(1, config.getConnections());
+        this.workers = new Worker[connections];
+        String instanceId = Long.toHexString(System.nanoTime());
+        for (int i = 0; i < connections; i++) {
+            workers[i] = new Worker(i, WAKEUP_KEY_PREFIX + instanceId + ":" + i);
+            workers[i].thread.start();
+        }
+        log.info("Redis阻塞等待分发器已启动: connections={}, blockSeconds={}", connections, config.getBlockSeconds());
+    }
+
+    /**
+     * 等待指定列表键右端弹出一个元素
+     * @return 弹出元素的原始字节，超时返回null
+     */
+    public byte[] await(String key, long timeoutSeconds) throws InterruptedException {
+        CompletableFuture<byte[]> future = register(key);
+        try {
+            return future.get(timeoutSeconds, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            // 与工作线程竞争：complete失败说明元素已经交给本等待者
+            return future.complete(null) ? null : future.getNow(null);
+        } catch (InterruptedException e) {
+            if (!future.complete(null)) {
+                // 元素已交付但调用方不再等待，放回队列头部
+                pushBack(key, future.getNow(null));
+            }
+            throw e;
+        } catch (ExecutionException e) {
+            log.error("等待Redis元素失败: key={}, {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 登记等待者，返回在元素弹出后完成的Future；调用方放弃等待时应以null完成该Future
+     */
+    public CompletableFuture<byte[]> register(String key) {
+        CompletableFuture<byte[]> future = new CompletableFuture<>();
+        if (!running) {
+            future.complete(null);
+            return future;
+        }
+        Worker worker = workers[Math.floorMod(key.hashCode(), workers.length)];
+        Queue<CompletableFuture<byte[]>> waiters = worker.waiters.computeIfAbsent(key, k -> new ConcurrentLinkedQueue<>());
+        waiters.add(future);
+        // 先登记再递增代数，工作线程据此发现在收集键之后加入的等待者
+        worker.generation.incrementAndGet();
+        if (!worker.activeKeys.contains(key)) {
+            worker.wakeup();
+        }
+        return future;
+    }
+
+    /**
+     * 当前登记的等待者数
+     */
+    public int getWaiterCount() {
+        int count = 0;
+        for (Worker worker : workers) {
+            for (Queue<CompletableFuture<byte[]>> waiters : worker.waiters.values()) {
+                count += waiters.size();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 停止工作线程，所有等待者以null完成
+     */
+    public void close() {
+        running = false;
+        for (Worker worker : workers) {
+            worker.wakeup();
+        }
+        for (Worker worker : workers) {
+            try {
+                worker.thread.join(TimeUnit.SECONDS.toMillis(config.getBlockSeconds() + 5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            worker.waiters.values().forEach(waiters -> waiters.forEach(future -> future.complete(null)));
+            worker.waiters.clear();
+        }
+        log.info("Redis阻塞等待分发器已关闭");
+    }
+
+    private void pushBack(String key, byte[] value) {
+        if (value == null) {
+            return;
+        }
+        try {
+            redisTemplate.execute((RedisCallback<Long>) connection ->
+                    connection.rPush(key.getBytes(StandardCharsets.UTF_8), value));
+        } catch (Exception e) {
+            log.error("归还Redis元素失败，消息丢失: key={}, {}", key, e.getMessage(), e);
+        }
+    }
+
+    private final class Worker {
+
+        private final String wakeupKey;
+        private final Thread thread;
+        private final Map<String, Queue<CompletableFuture<byte[]>>> waiters = new ConcurrentHashMap<>();
+
+        /**
+         * 当前这次BRPOP覆盖的键
+         */
+        private volatile List<String> activeKeys = new ArrayList<>();
+        private volatile boolean blocking;
+
+        /**
+         * 等待者登记的代数，每次登记递增
+         */
+        private final AtomicLong generation = new AtomicLong();
+
+        private Worker(int index, String wakeupKey) {
+            this.wakeupKey = wakeupKey;
+            this.thread = new Thread(this::run, "redis-wait-dispatcher-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        /**
+         * 空闲时直接唤醒线程，阻塞在BRPOP上时写入唤醒键
+         */
+        private void wakeup() {
+            LockSupport.unpark(thread);
+            if (blocking) {
+                try {
+                    redisTemplate.opsForList().leftPush(wakeupKey, "1");
+                } catch (Exception e) {
+                    log.warn("写入唤醒键失败，新等待者将在下一个阻塞周期生效: {}", e.getMessage());
+                }
+            }
+        }
+
+        private void run() {
+            RedisConnection connection = null;
+            while (running) {
+                try {
+                    // 收集键之前就标记为阻塞：此后登记的等待者要么被下面的代数检查发现，要么写入唤醒键
+                    blocking = true;
+                    long seen = generation.get();
+                    List<String> keys = collectKeys();
+                    activeKeys = keys;
+                    if (keys.isEmpty()) {
+                        // 空闲时由unpark唤醒，登记早于park时许可保留，park立即返回
+                        blocking = false;
+                        LockSupport.parkNanos(this, TimeUnit.SECONDS.toNanos(config.getBlockSeconds()));
+                        continue;
+                    }
+                    if (generation.get() != seen) {
+                        // 收集期间有新的等待者，重新收集
+                        continue;
+                    }
+                    if (connection == null || connection.isClosed()) {
+                        connection = connectionFactory.getConnection();
+                    }
+
+                    byte[][] rawKeys = new byte[keys.size() + 1][];
+                    for (int i = 0; i < keys.size(); i++) {
+                        rawKeys[i] = keys.get(i).getBytes(StandardCharsets.UTF_8);
+                    }
+                    rawKeys[keys.size()] = wakeupKey.getBytes(StandardCharsets.UTF_8);
+
+                    List<byte[]> result;
+                    try {
+                        result = connection.bRPop((int) Math.max(1, config.getBlockSeconds()), rawKeys);
+                    } finally {
+                        blocking = false;
+                    }
+                    if (result != null && result.size() == 2) {
+                        dispatch(new String(result.get(0), StandardCharsets.UTF_8), result.get(1));
+                    }
+                } catch (Exception e) {
+                    blocking = false;
+                    if (running) {
+                        log.warn("Redis阻塞等待失败，稍后重连: {}", e.getMessage());
+                    }
+                    closeQuietly(connection);
+                    connection = null;
+                    LockSupport.parkNanos(this, TimeUnit.SECONDS.toNanos(1));
+                }
+            }
+            closeQuietly(connection);
+            redisTemplate.delete(wakeupKey);
+        }
+
+        /**
+         * 清理已完成（超时或放弃）的等待者，返回仍有等待者的键
+         * 空的等待队列保留在映射中（键数量以队列数为上限），避免与register并发时丢失刚加入的等待者
+         */
+        private List<String> collectKeys() {
+            List<String> keys = new ArrayList<>();
+            for (Map.Entry<String, Queue<CompletableFuture<byte[]>>> entry : waiters.entrySet()) {
+                entry.getValue().removeIf(CompletableFuture::isDone);
+                if (!entry.getValue().isEmpty()) {
+                    keys.add(entry.getKey());
+                }
+            }
+            return keys;
+        }
+
+        /**
+         * 交给该键上最早的仍在等待的调用方，没有等待者时放回队列头部
+         */
+        private void dispatch(String key, byte[] value) {
+            if (wakeupKey.equals(key)) {
+                return;
+            }
+            Queue<CompletableFuture<byte[]>> queue = waiters.get(key);
+            if (queue != null) {
+                CompletableFuture<byte[]> future;
+                while ((future = queue.poll()) != null) {
+                    if (future.complete(value)) {
+                        return;
+                    }
+                }
+            }
+            pushBack(key, value);
+        }
+
+        private void closeQuietly(RedisConnection connection) {
+            if (connection == null) {
+                return;
+            }
+            try {
+                connection.close();
+            } catch (Exception e) {
+                log.debug("关闭Redis连接失败: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,359 @@
+package com.example.queue.impl;
+
+import com.example.queue.config.QueueProperties;
+import com.example.queue.model.QueueMessage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.DirectoryStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Redis写后缓冲
+ * 发送方只把消息放入本地有界队列，后台线程按批次凑满或等待超时后一次性写入Redis。
+ * 批次多次写入失败或关闭时无法写入的消息追加到本地落盘文件，下次启动时重放。
+ * 落盘文件按实例区分（&lt;队列名&gt;.&lt;实例ID&gt;.ndjson），同一主机上的多个实例互不干扰；
+ * 启动时用原子重命名认领该队列遗留的落盘文件，每个文件只由一个实例重放。
+ */
+@Slf4j
+public class RedisWriteBehindBuffer {
+
+    /**
+     * 批量写入回调，由队列服务实现实际的Redis写入
+     */
+    @FunctionalInterface
+    public interface BatchWriter {
+        void write(List<QueueMessage> messages) throws Exception;
+    }
+
+    private static final long IDLE_POLL_MS = 100;
+
+    private static final String SPOOL_SUFFIX = ".ndjson";
+
+    private final String queueName;
+    private final BatchWriter writer;
+    private final ObjectMapper objectMapper;
+    private final QueueProperties.WriteBehind config;
+    private final BlockingQueue<Pending> buffer;
+    private final String instanceId;
+    private final Path spoolFile;
+    private final Object spoolLock = new Object();
+
+    /**
+     * 发送方持读锁检查状态并入队，关闭时持写锁切换状态，关闭开始排空后不会再有消息进入缓冲
+     */
+    private final ReadWriteLock stateLock = new ReentrantReadWriteLock();
+    private final Thread flusher;
+
+    private final AtomicLong flushedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong spooledCount = new AtomicLong();
+
+    private volatile boolean running = true;
+
+    public RedisWriteBehindBuffer(String queueName, BatchWriter writer, ObjectMapper objectMapper,
+                                  QueueProperties.WriteBehind config) {
+        this.queueName = queueName;
+        this.writer = writer;
+        this.objectMapper = objectMapper;
+        this.config = config;
+        this.buffer = new ArrayBlockingQueue<>(Math.max(1, config.getCapacity()));
+        this.instanceId = (ManagementFactory.getRuntimeMXBean().getName() + "-" + UUID.randomUUID().toString().substring(0, 8))
+                .replaceAll("[^A-Za-z0-9_-]", "_");
+        this.spoolFile = Paths.get(config.getSpoolDir(), queueName + "." + instanceId + SPOOL_SUFFIX);
+        this.flusher = new Thread(this::runFlusher, "redis-write-behind-" + queueName);
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+        log.info("Redis写后缓冲已启动: queue={}, capacity={}, batchSize={}, flushInterval={}ms",
+                queueName, config.getCapacity(), config.getBatchSize(), config.getFlushIntervalMs());
+    }
+
+    /**
+     * 放入缓冲，不关心写入结果
+     * @return 缓冲已满或已关闭时返回false
+     */
+    public boolean offer(QueueMessage message) {
+        if (!enqueue(new Pending(message, null))) {
+            rejectedCount.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 放入缓冲，返回写入Redis后完成的Future
+     */
+    public CompletableFuture<Boolean> submit(QueueMessage message) {
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+        if (!enqueue(new Pending(message, future))) {
+            rejectedCount.incrementAndGet();
+            future.complete(false);
+        }
+        return future;
+    }
+
+    private boolean enqueue(Pending pending) {
+        stateLock.readLock().lock();
+        try {
+            return running && buffer.offer(pending);
+        } finally {
+            stateLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 缓冲中等待写入的消息数
+     */
+    public int size() {
+        return buffer.size();
+    }
+
+    public long getFlushedCount() {
+        return flushedCount.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    public long getSpooledCount() {
+        return spooledCount.get();
+    }
+
+    /**
+     * 丢弃缓冲中尚未写入的消息
+     */
+    public int clear() {
+        List<Pending> dropped = new ArrayList<>();
+        buffer.drainTo(dropped);
+        complete(dropped, false);
+        return dropped.size();
+    }
+
+    /**
+     * 停止后台线程，把剩余消息写入Redis，写不进去的落盘
+     */
+    public void close() {
+        stateLock.writeLock().lock();
+        try {
+            if (!running) {
+                return;
+            }
+            running = false;
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        List<Pending> batch = new ArrayList<>(config.getBatchSize());
+        while (buffer.drainTo(batch, Math.max(1, config.getBatchSize())) > 0) {
+            flush(batch);
+            batch.clear();
+        }
+        log.info("Redis写后缓冲已关闭: queue={}, flushed={}, spooled={}", queueName, flushedCount.get(), spooledCount.get());
+    }
+
+    private void runFlusher() {
+        replaySpool();
+        List<Pending> batch = new ArrayList<>(config.getBatchSize());
+        while (running) {
+            try {
+                fillBatch(batch);
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("写后缓冲刷新异常: {}", e.getMessage(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 取到第一条后最多再等待 flushIntervalMs 凑满一批
+     */
+    private void fillBatch(List<Pending> batch) throws InterruptedException {
+        Pending first = buffer.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        int batchSize = Math.max(1, config.getBatchSize());
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getFlushIntervalMs());
+        while (batch.size() < batchSize) {
+            buffer.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0) {
+                break;
+            }
+            Pending next = buffer.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        List<QueueMessage> messages = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            messages.add(pending.message);
+        }
+
+        for (int attempt = 0; ; attempt++) {
+            try {
+                writer.write(messages);
+                flushedCount.addAndGet(messages.size());
+                complete(batch, true);
+                return;
+            } catch (Exception e) {
+                if (attempt >= config.getMaxRetries()) {
+                    log.error("写后缓冲写入Redis失败，{}条消息落盘: {}", messages.size(), e.getMessage());
+                    spool(messages);
+                    complete(batch, false);
+                    return;
+                }
+                log.warn("写后缓冲写入Redis失败，第{}次重试: {}", attempt + 1, e.getMessage());
+                try {
+                    Thread.sleep(50L << Math.min(attempt, 6));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    spool(messages);
+                    complete(batch, false);
+                    return;
+                }
+            }
+        }
+    }
+
+    private void spool(List<QueueMessage> messages) {
+        synchronized (spoolLock) {
+            try {
+                Files.createDirectories(spoolFile.getParent());
+                try (BufferedWriter out = Files.newBufferedWriter(spoolFile, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                    for (QueueMessage message : messages) {
+                        out.write(objectMapper.writeValueAsString(message));
+                        out.newLine();
+                    }
+                }
+                spooledCount.addAndGet(messages.size());
+            } catch (IOException e) {
+                log.error("写后缓冲落盘失败，{}条消息丢失: {}", messages.size(), e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * 重放该队列遗留的落盘文件（包括旧版本不带实例ID的文件），成功后删除
+     */
+    private void replaySpool() {
+        Path dir = Paths.get(config.getSpoolDir());
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir,
+                file -> isSpoolFileOfQueue(file.getFileName().toString()))) {
+            stream.forEach(files::add);
+        } catch (IOException e) {
+            log.error("读取写后缓冲落盘目录失败: queue={}, {}", queueName, e.getMessage(), e);
+            return;
+        }
+        for (Path file : files) {
+            replaySpool(file);
+        }
+    }
+
+    /**
+     * 文件名为 &lt;队列名&gt;.ndjson 或 &lt;队列名&gt;.&lt;实例ID&gt;.ndjson，实例ID不含点号，不会匹配到名称以本队列名开头的其它队列
+     */
+    private boolean isSpoolFileOfQueue(String fileName) {
+        if (!fileName.startsWith(queueName) || !fileName.endsWith(SPOOL_SUFFIX)) {
+            return false;
+        }
+        String middle = fileName.substring(queueName.length(), fileName.length() - SPOOL_SUFFIX.length());
+        return middle.isEmpty() || (middle.length() > 1 && middle.charAt(0) == '.' && middle.indexOf('.', 1) < 0);
+    }
+
+    /**
+     * 原子重命名认领落盘文件后重放，重命名失败说明已被其它实例认领；重放失败时改回原名，下次启动再试
+     */
+    private void replaySpool(Path file) {
+        Path claimed = file.resolveSibling(file.getFileName() + ".replaying-" + instanceId);
+        try {
+            Files.move(file, claimed, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.debug("落盘文件已被其它实例认领: {}", file);
+            return;
+        }
+        List<QueueMessage> messages = new ArrayList<>();
+        try (BufferedReader in = Files.newBufferedReader(claimed, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    messages.add(objectMapper.readValue(line, QueueMessage.class));
+                }
+            }
+            int batchSize = Math.max(1, config.getBatchSize());
+            for (int i = 0; i < messages.size(); i += batchSize) {
+                writer.write(messages.subList(i, Math.min(messages.size(), i + batchSize)));
+            }
+            Files.delete(claimed);
+            log.info("写后缓冲重放落盘消息: queue={}, file={}, count={}", queueName, file.getFileName(), messages.size());
+        } catch (Exception e) {
+            // 保留落盘文件，下次启动再试；部分写入成功的消息会重复投递
+            log.error("写后缓冲重放落盘消息失败: queue={}, {}", queueName, e.getMessage(), e);
+            try {
+                Files.move(claimed, file, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException moveBack) {
+                log.error("恢复落盘文件失败: {}, {}", claimed, moveBack.getMessage());
+            }
+        }
+    }
+
+    private static void complete(List<Pending> batch, boolean result) {
+        for (Pending pending : batch) {
+            if (pending.future != null) {
+                pending.future.complete(result);
+            }
+        }
+    }
+
+    private static final class Pending {
+        private final QueueMessage message;
+        private final CompletableFuture<Boolean> future;
+
+        private Pending(QueueMessage message, CompletableFuture<Boolean> future) {
+            this.message = message;
+            this.future = future;
+        }
+    }
+}
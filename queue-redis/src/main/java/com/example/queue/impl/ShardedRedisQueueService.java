@@ -0,0 +1,346 @@
+package com.example.queue.impl;
+
+import com.example.queue.config.QueueProperties;
+import com.example.queue.core.AbstractQueueService;
+import com.example.queue.model.QueueMessage;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 分片Redis队列实现
+ * 一个逻辑队列分散到 N 个列表键 queue:{name:0} .. queue:{name:N-1}，
+ * 哈希标签包含分片序号，各分片落在不同的集群槽位上。
+ * 生产者轮询或按消息ID哈希选择分片。单条接收从轮转的起始分片开始逐个 RPOP，弹到消息即返回；
+ * 批量接收把所需数量分摊到各分片，在同一管道内批量弹出，弹出的总数不超过所需数量，不在本地缓存消息。
+ * 队列大小由一次管道化的 LLEN 汇总得到。
+ * 批量弹出使用 RPOP key count，需要Redis 6.2+。
+ * 弹出的过期消息直接丢弃，出现过期消息的分片随即在服务端清理队头的过期元素。
+ */
+@Slf4j
+public class ShardedRedisQueueService extends AbstractQueueService {
+
+    private static final long MIN_POLL_INTERVAL_MS = 5;
+    private static final long MAX_POLL_INTERVAL_MS = 100;
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final String[] shardKeys;
+    private final boolean hashStrategy;
+
+    /**
+     * 生产者轮询游标
+     */
+    private final AtomicInteger sendCursor = new AtomicInteger();
+
+    /**
+     * 消费者起始分片游标，每次接收后前进一位，保证各分片被公平消费
+     */
+    private final AtomicInteger receiveCursor = new AtomicInteger();
+
+    public ShardedRedisQueueService(String queueName, StringRedisTemplate redisTemplate, QueueProperties.Sharding sharding) {
+        super(queueName, "REDIS");
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.registerModule(new com.fasterxml.jackson.datatype.jsr310.JavaTimeModule());
+        this.objectMapper.disable(com.fasterxml.jackson.databind.SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        int shards = Math.max(1, sharding.getShards());
+        this.shardKeys = new String[shards];
+        for (int i = 0; i < shards; i++) {
+            shardKeys[i] = shardKey(queueName, i);
+        }
+        this.hashStrategy = "hash".equalsIgnoreCase(sharding.getStrategy());
+        log.info("初始化分片Redis队列: {}, 分片数: {}, 策略: {}", queueName, shards, hashStrategy ? "hash" : "round-robin");
+    }
+
+    /**
+     * 分片键，哈希标签 {name:i} 使不同分片映射到不同槽位
+     */
+    public static String shardKey(String queueName, int shard) {
+        return "queue:{" + queueName + ":" + shard + "}";
+    }
+
+    public int getShardCount() {
+        return shardKeys.length;
+    }
+
+    @Override
+    public boolean sendMessage(QueueMessage message) {
+        try {
+            if (message == null) {
+                log.warn("消息不能为空");
+                return false;
+            }
+
+            stampEnqueueTime(message);
+            String messageJson = ExpiryPrefix.wrap(objectMapper.writeValueAsString(message), message.getExpireAt());
+            String shardKey = shardKeys[selectShard(message)];
+            Long result = redisTemplate.opsForList().leftPush(shardKey, messageJson);
+            if (result == null || result <= 0) {
+                log.warn("Redis队列发送失败");
+                return false;
+            }
+            logOperation("发送消息", "messageId=" + message.getMessageId(), "shard=" + shardKey);
+            return true;
+        } catch (JsonProcessingException e) {
+            log.error("消息序列化失败: {}", e.getMessage(), e);
+            return false;
+        } catch (Exception e) {
+            log.error("发送消息失败: {}", e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * 按分片分组后，同一管道内每个分片一条多值LPUSH
+     */
+    @Override
+    public int sendMessages(List<QueueMessage> messages) {
+        if (messages == null || messages.isEmpty()) {
+            return 0;
+        }
+
+        List<List<String>> payloads = new ArrayList<>(shardKeys.length);
+        for (int i = 0; i < shardKeys.length; i++) {
+            payloads.add(new ArrayList<>());
+        }
+        int total = 0;
+        for (QueueMessage message : messages) {
+            if (message == null) {
+                continue;
+            }
+            try {
+                stampEnqueueTime(message);
+                payloads.get(selectShard(message)).add(ExpiryPrefix.wrap(objectMapper.writeValueAsString(message), message.getExpireAt()));
+                total++;
+            } catch (JsonProcessingException e) {
+                log.error("消息序列化失败: {}", e.getMessage(), e);
+            }
+        }
+
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                for (int i = 0; i < shardKeys.length; i++) {
+                    List<String> shardPayloads = payloads.get(i);
+                    if (!shardPayloads.isEmpty()) {
+                        stringConnection.lPush(shardKeys[i], shardPayloads.toArray(new String[0]));
+                    }
+                }
+                return null;
+            });
+            log.info("批量发送消息完成(分片模式)，成功: {}/{}", total, messages.size());
+            return total;
+        } catch (Exception e) {
+            log.error("批量发送消息失败: {}", e.getMessage(), e);
+            return 0;
+        }
+    }
+
+    /**
+     * 从轮转的起始分片开始逐个弹出，当前分片为空时才换下一个分片，全部为空时返回null
+     */
+    @Override
+    public QueueMessage receiveMessage() {
+        int start = Math.floorMod(receiveCursor.getAndIncrement(), shardKeys.length);
+        try {
+            for (int i = 0; i < shardKeys.length; i++) {
+                QueueMessage message = popShard(shardKeys[(start + i) % shardKeys.length]);
+                if (message != null) {
+                    logOperation("接收消息", "messageId=" + message.getMessageId());
+                    return recordDwell(message);
+                }
+            }
+        } catch (Exception e) {
+            log.error("接收消息失败: {}", e.getMessage(), e);
+        }
+        return null;
+    }
+
+    /**
+     * 跨槽位的键不能用一条BRPOP等待，这里按退避间隔轮询各分片直到超时
+     */
+    @Override
+    public QueueMessage receiveMessage(long timeoutSeconds) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        long interval = MIN_POLL_INTERVAL_MS;
+        try {
+            while (true) {
+                QueueMessage message = receiveMessage();
+                if (message != null) {
+                    return message;
+                }
+                long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMs <= 0) {
+                    return null;
+                }
+                Thread.sleep(Math.min(interval, remainingMs));
+                interval = Math.min(MAX_POLL_INTERVAL_MS, interval * 2);
+            }
+        } catch (InterruptedException e) {
+            log.warn("接收消息被中断: {}", e.getMessage());
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    @Override
+    public List<QueueMessage> receiveMessages(int maxMessages) {
+        List<QueueMessage> messages = new ArrayList<>(Math.max(0, maxMessages));
+        if (maxMessages <= 0) {
+            return messages;
+        }
+        // 部分分片为空或弹出的消息过期时继续向其余分片补足，直到一轮什么都没弹出
+        while (messages.size() < maxMessages) {
+            if (sweep(maxMessages - messages.size(), messages) == 0) {
+                break;
+            }
+        }
+        messages.forEach(this::recordDwell);
+        return messages;
+    }
+
+    /**
+     * 一次管道化的LLEN汇总所有分片
+     */
+    @Override
+    public long getQueueSize() {
+        try {
+            List<Object> sizes = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                for (String shardKey : shardKeys) {
+                    stringConnection.lLen(shardKey);
+                }
+                return null;
+            });
+            long total = 0;
+            for (Object size : sizes) {
+                if (size instanceof Number) {
+                    total += ((Number) size).longValue();
+                }
+            }
+            return total;
+        } catch (Exception e) {
+            log.error("获取队列大小失败: {}", e.getMessage(), e);
+            return 0;
+        }
+    }
+
+    @Override
+    public boolean clearQueue() {
+        try {
+            Long result = redisTemplate.delete(Arrays.asList(shardKeys));
+            logOperation("清空队列");
+            return result != null && result > 0;
+        } catch (Exception e) {
+            log.error("清空队列失败: {}", e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * 弹出分片中第一条未过期的消息，遇到过期消息时在服务端清理队头后继续
+     * @return 分片为空时返回null
+     */
+    private QueueMessage popShard(String shardKey) {
+        String raw;
+        while ((raw = redisTemplate.opsForList().rightPop(shardKey)) != null) {
+            try {
+                QueueMessage message = objectMapper.readValue(ExpiryPrefix.strip(raw), QueueMessage.class);
+                if (!message.isExpired(System.currentTimeMillis())) {
+                    return message;
+                }
+                recordExpired(1);
+                trimExpired(shardKey);
+            } catch (JsonProcessingException e) {
+                log.error("消息反序列化失败: {}", e.getMessage(), e);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 把 count 条分摊到各分片（从轮转的起始分片开始，前 count % N 个分片多分一条），
+     * 同一管道内对分到数量的分片执行 RPOP key n，未过期的消息追加到 into
+     * @return 从Redis弹出的元素数，为0表示所有分片都已空
+     */
+    @SuppressWarnings("unchecked")
+    private int sweep(int count, List<QueueMessage> into) {
+        int start = Math.floorMod(receiveCursor.getAndIncrement(), shardKeys.length);
+        int shards = Math.min(count, shardKeys.length);
+        try {
+            List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                for (int i = 0; i < shards; i++) {
+                    int perShard = count / shardKeys.length + (i < count % shardKeys.length ? 1 : 0);
+                    stringConnection.rPop(shardKeys[(start + i) % shardKeys.length], perShard);
+                }
+                return null;
+            });
+            long now = System.currentTimeMillis();
+            int popped = 0;
+            List<String> expiredShards = new ArrayList<>();
+            for (int i = 0; i < results.size(); i++) {
+                Object result = results.get(i);
+                if (!(result instanceof List)) {
+                    continue;
+                }
+                int expired = 0;
+                for (String raw : (List<String>) result) {
+                    popped++;
+                    try {
+                        QueueMessage message = objectMapper.readValue(ExpiryPrefix.strip(raw), QueueMessage.class);
+                        if (message.isExpired(now)) {
+                            expired++;
+                        } else {
+                            into.add(message);
+                        }
+                    } catch (JsonProcessingException e) {
+                        log.error("消息反序列化失败: {}", e.getMessage(), e);
+                    }
+                }
+                if (expired > 0) {
+                    recordExpired(expired);
+                    expiredShards.add(shardKeys[(start + i) % shardKeys.length]);
+                }
+            }
+            expiredShards.forEach(this::trimExpired);
+            return popped;
+        } catch (Exception e) {
+            log.error("分片批量弹出失败: {}", e.getMessage(), e);
+            return 0;
+        }
+    }
+
+    /**
+     * 用脚本删除分片队头连续的过期元素，清理失败不影响出队
+     */
+    private void trimExpired(String shardKey) {
+        try {
+            Long removed;
+            do {
+                removed = redisTemplate.execute(RedisQueueService.TRIM_EXPIRED_SCRIPT, Arrays.asList(shardKey, shardKey),
+                        String.valueOf(System.currentTimeMillis()), String.valueOf(RedisQueueService.TRIM_BATCH), "0");
+                recordExpired(removed != null ? removed : 0);
+            } while (removed != null && removed >= RedisQueueService.TRIM_BATCH);
+        } catch (Exception e) {
+            log.warn("清理过期消息失败: shard={}, {}", shardKey, e.getMessage());
+        }
+    }
+
+    private int selectShard(QueueMessage message) {
+        if (hashStrategy && message.getMessageId() != null) {
+            return Math.floorMod(message.getMessageId().hashCode(), shardKeys.length);
+        }
+        return Math.floorMod(sendCursor.getAndIncrement(), shardKeys.length);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.queue.config;
+
+import org.springframework.amqp.core.*;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 队列配置类
+ * 工厂、路由器等由 queue-spring-boot-starter 自动配置，这里只声明演示用的RabbitMQ队列
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "queue.rabbitmq", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class QueueConfig {
+    
+    /**
+     * RabbitMQ 队列配置（动态创建）
+     */
+    @Bean
+    public Queue testQueue() {
+        return QueueBuilder.durable("test-queue").build();
+    }
+    
+    /**
+     * RabbitMQ 绑定配置
+     */
+    @Bean
+    public Binding queueBinding(DirectExchange queueExchange) {
+        return BindingBuilder.bind(testQueue()).to(queueExchange).with("test-queue");
+    }
+    
+    /**
+     * 测试队列的死信队列，重试次数用尽的消息发往这里
+     */
+    @Bean
+    public Queue testDeadLetterQueue() {
+        return QueueBuilder.durable("test-queue-dlq").build();
+    }
+    
+    /**
+     * 死信队列绑定配置
+     */
+    @Bean
+    public Binding deadLetterBinding(DirectExchange queueExchange) {
+        return BindingBuilder.bind(testDeadLetterQueue()).to(queueExchange).with("test-queue-dlq");
+    }
+}
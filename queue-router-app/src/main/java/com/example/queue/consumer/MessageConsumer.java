@@ -0,0 +1,272 @@
+package com.example.queue.consumer;
+
+import com.example.queue.codec.EnvelopeCodec;
+import com.example.queue.impl.RabbitMQQueueService;
+import com.example.queue.metrics.QueueMetrics;
+import com.example.queue.model.QueueMessage;
+import com.example.queue.ordering.AckWatermark;
+import com.example.queue.ordering.KeyOrderedDispatcher;
+import com.example.queue.retry.RetryScheduler;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.ImmediateRequeueAmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.stereotype.Component;
+import com.rabbitmq.client.Channel;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * RabbitMQ 消息消费者
+ * 演示自动确认和手动确认两种模式
+ * 启用有序并行（queue.ordering.enabled）时，监听线程只负责解码和按排序键分发，
+ * 消息在有序通道上并行处理，投递按水位线手动确认
+ * 启用重试时，失败的消息交给重试调度器写入延迟队列后才确认本次投递；调度器无法接管时整个投递重新入队
+ * 监听容器在启动时连接RabbitMQ，关闭RabbitMQ后端（queue.rabbitmq.enabled=false）时不创建
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "queue.rabbitmq", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class MessageConsumer {
+    
+    private static final String QUEUE_KEY = "rabbitmq:test-queue";
+    
+    private final EnvelopeCodec envelopeCodec;
+    
+    @Autowired
+    private QueueMetrics queueMetrics;
+    
+    @Autowired
+    private RetryScheduler retryScheduler;
+    
+    @Autowired
+    private KeyOrderedDispatcher orderedDispatcher;
+    
+    /**
+     * 各信道的确认水位线，出现新信道时清理已关闭信道的水位线
+     */
+    private final Map<Channel, AckWatermark> watermarks = new ConcurrentHashMap<>();
+    
+    public MessageConsumer() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new com.fasterxml.jackson.datatype.jsr310.JavaTimeModule());
+        objectMapper.disable(com.fasterxml.jackson.databind.SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        this.envelopeCodec = new EnvelopeCodec(objectMapper, 1, Integer.MAX_VALUE);
+    }
+    
+    /**
+     * 自动确认模式（当前启用）
+     * Spring AMQP 自动处理确认，无需显式调用 basicAck()
+     * 接收原始消息体，信封会被解包后逐条处理
+     * 启用有序并行时改为手动确认，确认由 {@link AckWatermark} 在处理完成后发出
+     */
+    @RabbitListener(queues = "test-queue",
+            ackMode = "#{'${queue.ordering.enabled:false}' == 'true' ? 'MANUAL' : 'AUTO'}")
+    public void handleMessageAutoAck(Message amqpMessage, Channel channel) {
+        List<QueueMessage> messages;
+        try {
+            messages = RabbitMQQueueService.isBinary(amqpMessage)
+                    ? Collections.singletonList(RabbitMQQueueService.fromBinaryMessage(amqpMessage))
+                    : envelopeCodec.unpack(new String(amqpMessage.getBody(), StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            log.error("消息解码失败: {}", e.getMessage(), e);
+            messages = Collections.emptyList();
+        }
+        List<QueueMessage> live = new ArrayList<>(messages.size());
+        long now = System.currentTimeMillis();
+        for (QueueMessage message : messages) {
+            // 信封整体的 expiration 取最晚的一条，其中先到期的消息在这里丢弃
+            if (message.isExpired(now)) {
+                queueMetrics.recordExpired(QUEUE_KEY, 1);
+                log.debug("丢弃过期消息: {}", message.getMessageId());
+                continue;
+            }
+            // 排队时间在交给业务处理之前计算，不包含处理耗时
+            queueMetrics.recordDwell(QUEUE_KEY, message.getEnqueueTimeNanos());
+            live.add(message);
+        }
+        
+        if (!orderedDispatcher.isEnabled()) {
+            boolean requeue = false;
+            for (QueueMessage message : live) {
+                requeue |= !handleMessage(message);
+            }
+            if (requeue) {
+                // 自动确认模式下抛出此异常时容器拒绝本次投递并重新入队，信封中已处理的消息会再投递一次
+                throw new ImmediateRequeueAmqpException("重试未被接管，投递重新入队");
+            }
+            return;
+        }
+        
+        // 先登记投递再分发，保证任何一条消息完成时水位线已知道这次投递
+        long deliveryTag = amqpMessage.getMessageProperties().getDeliveryTag();
+        AckWatermark watermark = watermarkOf(channel);
+        watermark.register(deliveryTag, live.size());
+        for (QueueMessage message : live) {
+            orderedDispatcher.dispatch(orderedDispatcher.keyOf(message), () -> {
+                boolean settled = false;
+                try {
+                    settled = handleMessage(message);
+                } finally {
+                    watermark.complete(deliveryTag, !settled);
+                }
+            });
+        }
+    }
+    
+    /**
+     * 信道对应的水位线，确认在水位线的锁内发出，同一信道上的确认按标签顺序进行
+     */
+    private AckWatermark watermarkOf(Channel channel) {
+        AckWatermark watermark = watermarks.get(channel);
+        if (watermark != null) {
+            return watermark;
+        }
+        watermarks.keySet().removeIf(existing -> !existing.isOpen());
+        return watermarks.computeIfAbsent(channel, key -> new AckWatermark(deliveryTag -> {
+            try {
+                channel.basicAck(deliveryTag, true);
+            } catch (IOException | RuntimeException e) {
+                // 信道已关闭时未确认的投递由Broker重新投递
+                log.warn("批量确认失败: deliveryTag={}, {}", deliveryTag, e.getMessage());
+            }
+        }, deliveryTag -> {
+            try {
+                channel.basicNack(deliveryTag, false, true);
+            } catch (IOException | RuntimeException e) {
+                log.warn("拒绝投递失败: deliveryTag={}, {}", deliveryTag, e.getMessage());
+            }
+        }));
+    }
+    
+    /**
+     * 处理单条消息
+     * @return 消息已处理或已交给重试调度器接管时返回true，需要重新入队时返回false
+     */
+    private boolean handleMessage(QueueMessage message) {
+        try {
+            log.info("=== 消费者收到消息（自动确认） ===");
+            log.info("消息ID: {}", message.getMessageId());
+            log.info("消息内容: {}", message.getContent());
+            log.info("消息类型: {}", message.getMessageType());
+            log.info("创建时间: {}", message.getCreateTime());
+            log.info("优先级: {}", message.getPriority());
+            log.info("=================================");
+            
+            // 模拟消息处理
+            long handlerStart = System.nanoTime();
+            try {
+                processMessage(message);
+            } finally {
+                queueMetrics.recordHandler(QUEUE_KEY, System.nanoTime() - handlerStart);
+            }
+            
+            // 方法正常返回 = Spring 自动调用 basicAck()
+            // 如果这里抛出异常 = Spring 自动调用 basicNack()
+            return true;
+            
+        } catch (Exception e) {
+            log.error("处理消息失败: {}", e.getMessage(), e);
+            // 启用重试时交给重试调度器写入延迟队列，接管后本次投递照常确认，不会立即重新入队形成热循环
+            if (retryScheduler.isEnabled()) {
+                return retryScheduler.scheduleRetry(QUEUE_KEY, message, e) != RetryScheduler.Outcome.REQUEUE;
+            }
+            return true;
+        }
+    }
+    
+    /**
+     * 手动确认模式（注释掉，需要时启用）
+     * 必须显式调用 basicAck() 或 basicNack()
+     */
+    /*
+    @RabbitListener(queues = "test-queue", ackMode = "MANUAL")
+    public void handleMessageManualAck(QueueMessage message, 
+                                     Channel channel,
+                                     @Header(AmqpHeaders.DELIVERY_TAG) long deliveryTag) {
+        try {
+            log.info("=== 消费者收到消息（手动确认） ===");
+            log.info("消息ID: {}", message.getMessageId());
+            log.info("消息内容: {}", message.getContent());
+            log.info("Delivery Tag: {}", deliveryTag);
+            log.info("=================================");
+            
+            // 模拟消息处理
+            processMessage(message);
+            
+            // 手动确认消息 - 必须显式调用
+            channel.basicAck(deliveryTag, false);
+            log.info("消息确认成功: {}", message.getMessageId());
+            
+        } catch (Exception e) {
+            log.error("处理消息失败: {}", e.getMessage(), e);
+            try {
+                if (retryScheduler.isEnabled()
+                        && retryScheduler.scheduleRetry(QUEUE_KEY, message, e) != RetryScheduler.Outcome.REQUEUE) {
+                    // 重试已写入延迟队列或进入死信队列后才确认本次投递
+                    channel.basicAck(deliveryTag, false);
+                } else {
+                    // 手动拒绝消息，重新入队 - 必须显式调用
+                    channel.basicNack(deliveryTag, false, true);
+                    log.warn("消息拒绝，重新入队: {}", message.getMessageId());
+                }
+            } catch (Exception ackException) {
+                log.error("确认消息失败: {}", ackException.getMessage(), ackException);
+            }
+        }
+    }
+    */
+    
+    /**
+     * 处理消息的业务逻辑
+     */
+    private void processMessage(QueueMessage message) {
+        try {
+            // 模拟业务处理时间
+            Thread.sleep(100);
+            
+            // 根据消息类型进行不同处理，二进制消息可能没有类型，按默认处理
+            String messageType = message.getMessageType() != null ? message.getMessageType() : "DEFAULT";
+            switch (messageType) {
+                case "API":
+                    log.info("处理API消息: {}", message.getContent());
+                    break;
+                case "SYSTEM":
+                    log.info("处理系统消息: {}", message.getContent());
+                    break;
+                case "USER":
+                    log.info("处理用户消息: {}", message.getContent());
+                    break;
+                case "CONSUMER_TEST":
+                    log.info("处理消费者测试消息: {}", message.getContent());
+                    break;
+                case "BATCH_TEST":
+                    log.info("处理批量测试消息: {}", message.getContent());
+                    break;
+                default:
+                    log.info("处理默认消息: {}", message.getContent());
+                    break;
+            }
+            
+            log.info("消息处理完成: {}", message.getMessageId());
+            
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("消息处理被中断: {}", message.getMessageId());
+        } catch (Exception e) {
+            log.error("消息处理异常: {}", e.getMessage(), e);
+            throw e; // 重新抛出异常，让上层处理
+        }
+    }
+}
\ No newline at end of file
@@ -6,7 +6,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -36,22 +38,16 @@ public class ConsumerTestController {
             
             log.info("准备发送 {} 条测试消息给消费者", count);
             
-            int successCount = 0;
+            // 一次性批量发送，不再逐条休眠；需要按速率压测请使用 /api/loadtest
+            List<QueueMessage> messages = new ArrayList<>(count);
             for (int i = 0; i < count; i++) {
-                QueueMessage message = new QueueMessage(
+                messages.add(new QueueMessage(
                     UUID.randomUUID().toString(),
                     content + " - 第" + (i + 1) + "条",
                     messageType
-                );
-                
-                boolean sendResult = queueRouter.sendMessage(message);
-                if (sendResult) {
-                    successCount++;
-                }
-                
-                // 稍微延迟，避免消息发送过快
-                Thread.sleep(100);
+                ));
             }
+            int successCount = queueRouter.sendMessages(messages);
             
             result.put("success", true);
             result.put("message", "测试消息发送完成");
@@ -0,0 +1,89 @@
+package com.example.queue.controller;
+
+import com.example.queue.fanout.FanOutPublisher;
+import com.example.queue.fanout.FanOutResult;
+import com.example.queue.model.QueueMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * 扇出发布控制器
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/fanout")
+public class FanOutController {
+
+    @Autowired
+    private FanOutPublisher fanOutPublisher;
+
+    /**
+     * 发送到请求中指定的目标
+     * 请求体：targets（队列键列表）、ack（all/any/N）、timeoutMs、content、messageType
+     */
+    @PostMapping("/send")
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> send(@RequestBody Map<String, Object> request) {
+        Map<String, Object> result = new HashMap<>();
+
+        try {
+            List<String> targets = ((List<Object>) request.get("targets")).stream()
+                    .map(String::valueOf)
+                    .collect(Collectors.toList());
+            String ack = String.valueOf(request.getOrDefault("ack", "all"));
+            long timeoutMs = ((Number) request.getOrDefault("timeoutMs", 1000)).longValue();
+
+            FanOutResult fanOutResult = fanOutPublisher.publish(toMessage(request), targets, ack, timeoutMs, null);
+            fillResult(result, fanOutResult);
+        } catch (Exception e) {
+            result.put("success", false);
+            result.put("message", "扇出发布失败: " + e.getMessage());
+            log.error("扇出发布失败", e);
+        }
+
+        return result;
+    }
+
+    /**
+     * 发送到预定义的扇出组
+     */
+    @PostMapping("/{group}/send")
+    public Map<String, Object> sendToGroup(@PathVariable String group, @RequestBody Map<String, Object> request) {
+        Map<String, Object> result = new HashMap<>();
+
+        try {
+            FanOutResult fanOutResult = fanOutPublisher.publish(group, toMessage(request));
+            fillResult(result, fanOutResult);
+            result.put("group", group);
+        } catch (Exception e) {
+            result.put("success", false);
+            result.put("message", "扇出发布失败: " + e.getMessage());
+            log.error("扇出发布失败", e);
+        }
+
+        return result;
+    }
+
+    private QueueMessage toMessage(Map<String, Object> request) {
+        String content = (String) request.get("content");
+        String messageType = (String) request.getOrDefault("messageType", "API");
+        return new QueueMessage(UUID.randomUUID().toString(), content, messageType);
+    }
+
+    private void fillResult(Map<String, Object> result, FanOutResult fanOutResult) {
+        result.put("success", fanOutResult.isSuccess());
+        result.put("message", fanOutResult.isSuccess() ? "扇出发布成功" : "扇出发布未满足确认策略");
+        result.put("messageId", fanOutResult.getMessageId());
+        result.put("acks", fanOutResult.getAcks());
+        result.put("requiredAcks", fanOutResult.getRequiredAcks());
+        result.put("elapsedMs", fanOutResult.getElapsedMs());
+        result.put("targets", fanOutResult.getTargets());
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.queue.controller;
+
+import com.example.queue.loadtest.LoadTestRequest;
+import com.example.queue.loadtest.LoadTestRun;
+import com.example.queue.loadtest.LoadTestService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 压测控制器
+ * 异步执行压测，通过 runId 查询吞吐、错误数和延迟分位数
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/loadtest")
+public class LoadTestController {
+
+    @Autowired
+    private LoadTestService loadTestService;
+
+    /**
+     * 启动压测
+     */
+    @PostMapping("/start")
+    public Map<String, Object> start(@RequestBody LoadTestRequest request) {
+        Map<String, Object> result = new HashMap<>();
+
+        try {
+            LoadTestRun run = loadTestService.start(request);
+            result.put("success", true);
+            result.put("message", "压测已启动");
+            result.put("runId", run.getRunId());
+            result.put("queueName", run.getQueueName());
+        } catch (Exception e) {
+            result.put("success", false);
+            result.put("message", "启动压测失败: " + e.getMessage());
+            log.error("启动压测失败", e);
+        }
+
+        return result;
+    }
+
+    /**
+     * 用同一组参数对比多个队列类型，依次执行
+     */
+    @PostMapping("/compare")
+    public Map<String, Object> compare(@RequestBody LoadTestRequest request,
+                                       @RequestParam(defaultValue = "java,redis,rabbitmq") String queueTypes) {
+        Map<String, Object> result = new HashMap<>();
+
+        try {
+            List<String> types = Arrays.stream(queueTypes.split(","))
+                    .map(String::trim)
+                    .filter(type -> !type.isEmpty())
+                    .collect(Collectors.toList());
+            List<LoadTestRun> runs = loadTestService.compare(request, types);
+            result.put("success", true);
+            result.put("message", "对比压测已启动");
+            result.put("runIds", runs.stream().map(LoadTestRun::getRunId).collect(Collectors.toList()));
+        } catch (Exception e) {
+            result.put("success", false);
+            result.put("message", "启动对比压测失败: " + e.getMessage());
+            log.error("启动对比压测失败", e);
+        }
+
+        return result;
+    }
+
+    /**
+     * 查询压测结果
+     */
+    @GetMapping("/{runId}")
+    public Map<String, Object> getRun(@PathVariable String runId) {
+        Map<String, Object> result = new HashMap<>();
+
+        LoadTestRun run = loadTestService.getRun(runId);
+        if (run == null) {
+            result.put("success", false);
+            result.put("message", "压测不存在: " + runId);
+        } else {
+            result.put("success", true);
+            result.put("data", run.toReport());
+        }
+
+        return result;
+    }
+
+    /**
+     * 查询最近的压测列表
+     */
+    @GetMapping("/runs")
+    public Map<String, Object> getRuns() {
+        Map<String, Object> result = new HashMap<>();
+
+        List<Map<String, Object>> reports = loadTestService.getRuns().stream()
+                .map(LoadTestRun::toReport)
+                .collect(Collectors.toList());
+        result.put("success", true);
+        result.put("data", reports);
+        result.put("count", reports.size());
+
+        return result;
+    }
+
+    /**
+     * 停止压测
+     */
+    @PostMapping("/{runId}/stop")
+    public Map<String, Object> stop(@PathVariable String runId) {
+        Map<String, Object> result = new HashMap<>();
+
+        boolean stopped = loadTestService.stop(runId);
+        result.put("success", stopped);
+        result.put("message", stopped ? "已请求停止压测" : "压测不存在: " + runId);
+
+        return result;
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.queue.controller;
+
+import com.example.queue.config.QueueProperties;
+import com.example.queue.core.QueueService;
+import com.example.queue.longpoll.LongPollDispatcher;
+import com.example.queue.model.QueueMessage;
+import com.example.queue.router.QueueRouter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * 长轮询与流式接收控制器
+ * 等待期间请求处于Servlet异步模式，不占用Servlet线程，消息由 {@link LongPollDispatcher} 的分发线程交付
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/queue")
+public class LongPollController {
+
+    /**
+     * DeferredResult 比分发器的等待超时多留的时间，正常情况下由分发器先完成
+     */
+    private static final long DEFERRED_GRACE_MS = 5000;
+
+    @Autowired
+    private QueueRouter queueRouter;
+
+    @Autowired
+    private LongPollDispatcher longPollDispatcher;
+
+    @Autowired
+    private QueueProperties queueProperties;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private AsyncTaskExecutor taskExecutor;
+
+    /**
+     * 长轮询接收：有消息时立即返回，没有消息时最多等待 timeoutMs 毫秒
+     */
+    @GetMapping("/receive/wait")
+    public DeferredResult<Map<String, Object>> receiveWait(@RequestParam(defaultValue = "30000") long timeoutMs,
+                                                           @RequestParam(defaultValue = "1") int maxMessages) {
+        long waitMs = Math.max(0, Math.min(timeoutMs, queueProperties.getLongPoll().getMaxTimeoutMs()));
+        DeferredResult<Map<String, Object>> deferred = new DeferredResult<>(waitMs + DEFERRED_GRACE_MS);
+
+        String queueType = queueRouter.getCurrentQueueType().getValue();
+        String queueName = queueRouter.getCurrentQueueName();
+        CompletableFuture<List<QueueMessage>> future;
+        try {
+            QueueService queueService = queueRouter.getQueueService(queueRouter.getCurrentQueueType(), queueName);
+            future = longPollDispatcher.receive(queueType + ":" + queueName, queueService, maxMessages, waitMs);
+        } catch (Exception e) {
+            log.error("长轮询接收失败", e);
+            deferred.setResult(failure("长轮询接收失败: " + e.getMessage()));
+            return deferred;
+        }
+
+        // 客户端断开或请求超时时取消等待，已取出的消息由分发器交给下一个等待者
+        deferred.onTimeout(() -> future.cancel(false));
+        deferred.onError(error -> future.cancel(false));
+        future.whenComplete((messages, error) -> {
+            Map<String, Object> result;
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                if (cause instanceof CancellationException) {
+                    return;
+                }
+                result = failure("长轮询接收失败: " + cause.getMessage());
+            } else {
+                result = new HashMap<>();
+                result.put("success", !messages.isEmpty());
+                result.put("message", messages.isEmpty() ? "等待超时，队列中没有消息" : "消息接收成功");
+                result.put("data", messages);
+                result.put("count", messages.size());
+            }
+            result.put("queueType", queueType);
+            result.put("queueName", queueName);
+            deferred.setResult(result);
+        });
+        return deferred;
+    }
+
+    /**
+     * 流式接收（Server-Sent Events）：每条消息一个 message 事件，事件ID为消息ID
+     * 每次只向分发器取一批，上一批写出之后才取下一批，客户端读得慢时不会在服务端堆积消息；
+     * 没有消息时按心跳间隔发送注释行保持连接。写出失败时未写出的消息发回原队列
+     * @param batchSize 每批最大消息数，0表示使用 queue.long-poll.stream-batch-size
+     */
+    @GetMapping(value = "/receive/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter receiveStream(@RequestParam(defaultValue = "0") int batchSize) {
+        QueueProperties.LongPoll config = queueProperties.getLongPoll();
+        // 超时为0表示不限时，连接的存活由心跳写出是否成功判断
+        SseEmitter emitter = new SseEmitter(0L);
+        String queueName = queueRouter.getCurrentQueueName();
+        QueueService queueService = queueRouter.getQueueService(queueRouter.getCurrentQueueType(), queueName);
+        StreamSubscription subscription = new StreamSubscription(emitter,
+                queueRouter.getCurrentQueueType().getValue() + ":" + queueName, queueService,
+                batchSize > 0 ? batchSize : config.getStreamBatchSize(), config.getStreamHeartbeatMs());
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(error -> subscription.close());
+        subscription.next();
+        return emitter;
+    }
+
+    private Map<String, Object> failure(String message) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", false);
+        result.put("message", message);
+        return result;
+    }
+
+    /**
+     * 单个SSE连接的拉取循环，任何时刻最多一个未完成的接收
+     */
+    private final class StreamSubscription {
+
+        private final SseEmitter emitter;
+        private final String queueKey;
+        private final QueueService queueService;
+        private final int batchSize;
+        private final long heartbeatMs;
+
+        private volatile boolean closed;
+        private volatile CompletableFuture<List<QueueMessage>> pending;
+
+        private StreamSubscription(SseEmitter emitter, String queueKey, QueueService queueService,
+                                   int batchSize, long heartbeatMs) {
+            this.emitter = emitter;
+            this.queueKey = queueKey;
+            this.queueService = queueService;
+            this.batchSize = batchSize;
+            this.heartbeatMs = heartbeatMs;
+        }
+
+        private void next() {
+            if (closed) {
+                return;
+            }
+            CompletableFuture<List<QueueMessage>> future = longPollDispatcher.receive(queueKey, queueService, batchSize, heartbeatMs);
+            pending = future;
+            // 写出在任务线程池上进行，不占用分发线程；立即完成时也换线程，避免连续批次递归
+            future.whenComplete((messages, error) -> taskExecutor.execute(() -> write(messages, error)));
+            if (closed) {
+                future.cancel(false);
+            }
+        }
+
+        private void write(List<QueueMessage> messages, Throwable error) {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                if (!(cause instanceof CancellationException)) {
+                    log.warn("流式接收失败: queue={}, {}", queueKey, cause.getMessage());
+                    emitter.completeWithError(cause);
+                }
+                return;
+            }
+            int written = 0;
+            try {
+                if (messages.isEmpty()) {
+                    emitter.send(SseEmitter.event().comment("keepalive"));
+                }
+                for (QueueMessage message : messages) {
+                    emitter.send(SseEmitter.event()
+                            .id(message.getMessageId())
+                            .name("message")
+                            .data(message, MediaType.APPLICATION_JSON));
+                    written++;
+                }
+            } catch (Exception e) {
+                closed = true;
+                requeue(messages.subList(written, messages.size()), e);
+                return;
+            }
+            next();
+        }
+
+        /**
+         * 连接已断开，未写出的消息发回原队列（至少一次，可能与已写出但客户端未收到的消息重复）
+         */
+        private void requeue(List<QueueMessage> unsent, Exception cause) {
+            if (unsent.isEmpty()) {
+                log.debug("流式接收连接已断开: queue={}, {}", queueKey, cause.getMessage());
+                return;
+            }
+            int sent = queueService.sendMessages(unsent);
+            log.info("流式接收连接已断开，{}条未写出消息发回队列: queue={}, 成功{}条", unsent.size(), queueKey, sent);
+        }
+
+        private void close() {
+            closed = true;
+            CompletableFuture<List<QueueMessage>> current = pending;
+            if (current != null) {
+                current.cancel(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.queue.controller;
+
+import com.example.queue.longpoll.LongPollDispatcher;
+import com.example.queue.metrics.QueueMetrics;
+import com.example.queue.ordering.KeyOrderedDispatcher;
+import com.example.queue.retry.RetryScheduler;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 队列指标控制器
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/metrics")
+public class MetricsController {
+
+    @Autowired
+    private QueueMetrics queueMetrics;
+
+    @Autowired
+    private RetryScheduler retryScheduler;
+
+    @Autowired
+    private KeyOrderedDispatcher orderedDispatcher;
+
+    @Autowired
+    private LongPollDispatcher longPollDispatcher;
+
+    /**
+     * 各队列的排队时间（dwell）与处理时间（handler）分位数，单位微秒
+     */
+    @GetMapping("/latency")
+    public Map<String, Object> getLatency() {
+        Map<String, Object> result = new HashMap<>();
+
+        result.put("success", true);
+        result.put("data", queueMetrics.snapshot());
+
+        return result;
+    }
+
+    /**
+     * 清空延迟统计
+     */
+    @PostMapping("/latency/reset")
+    public Map<String, Object> resetLatency() {
+        Map<String, Object> result = new HashMap<>();
+
+        queueMetrics.reset();
+        result.put("success", true);
+        result.put("message", "延迟统计已清空");
+
+        return result;
+    }
+
+    /**
+     * 各队列的重试、等待重试、死信数量与退避延迟分布
+     */
+    @GetMapping("/retry")
+    public Map<String, Object> getRetry() {
+        Map<String, Object> result = new HashMap<>();
+
+        result.put("success", true);
+        result.put("enabled", retryScheduler.isEnabled());
+        result.put("data", retryScheduler.snapshot());
+
+        return result;
+    }
+
+    /**
+     * 有序并行通道的积压、完成与失败数
+     */
+    @GetMapping("/ordering")
+    public Map<String, Object> getOrdering() {
+        Map<String, Object> result = new HashMap<>();
+
+        result.put("success", true);
+        result.put("enabled", orderedDispatcher.isEnabled());
+        result.put("data", orderedDispatcher.snapshot());
+
+        return result;
+    }
+
+    /**
+     * 长轮询与流式接收的等待者数量、交付与超时数
+     */
+    @GetMapping("/long-poll")
+    public Map<String, Object> getLongPoll() {
+        Map<String, Object> result = new HashMap<>();
+
+        result.put("success", true);
+        result.put("data", longPollDispatcher.snapshot());
+
+        return result;
+    }
+}
@@ -0,0 +1,420 @@
+package com.example.queue.controller;
+
+import com.example.queue.codec.MessageStreamReader;
+import com.example.queue.core.QueueService;
+import com.example.queue.impl.OffHeapQueueService;
+import com.example.queue.impl.RedisStreamQueueService;
+import com.example.queue.model.QueueMessage;
+import com.example.queue.resilience.ResilientQueueService;
+import com.example.queue.router.QueueRouter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 队列测试控制器
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/queue")
+public class QueueTestController {
+    
+    /**
+     * 流式导入的批次上限
+     */
+    private static final int MAX_INGEST_BATCH = 10000;
+    
+    /**
+     * 流式导入的单帧上限（字节）
+     */
+    private static final int MAX_INGEST_FRAME_BYTES = 64 * 1024 * 1024;
+    
+    @Autowired
+    private QueueRouter queueRouter;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    /**
+     * 切换队列类型
+     */
+    @PostMapping("/switch")
+    public Map<String, Object> switchQueue(@RequestParam String queueType, 
+                                         @RequestParam String queueName) {
+        Map<String, Object> result = new HashMap<>();
+        
+        try {
+            queueRouter.switchQueue(queueType, queueName);
+            result.put("success", true);
+            result.put("message", "队列切换成功");
+            result.put("currentQueueType", queueRouter.getCurrentQueueType().getValue());
+            result.put("currentQueueName", queueRouter.getCurrentQueueName());
+        } catch (Exception e) {
+            result.put("success", false);
+            result.put("message", "队列切换失败: " + e.getMessage());
+            log.error("队列切换失败", e);
+        }
+        
+        return result;
+    }
+    
+    /**
+     * 发送消息
+     */
+    @PostMapping("/send")
+    public Map<String, Object> sendMessage(@RequestBody Map<String, Object> request) {
+        Map<String, Object> result = new HashMap<>();
+        
+        try {
+            String content = (String) request.get("content");
+            String messageType = (String) request.getOrDefault("messageType", "API");
+            
+            QueueMessage message = new QueueMessage(
+                UUID.randomUUID().toString(),
+                content,
+                messageType
+            );
+            // 过期时间：ttlMillis为相对时间，expireAt为绝对时间（纪元毫秒），都不传则不过期
+            if (request.get("ttlMillis") != null) {
+                message.expireAfter(((Number) request.get("ttlMillis")).longValue());
+            } else if (request.get("expireAt") != null) {
+                message.setExpireAt(((Number) request.get("expireAt")).longValue());
+            }
+            
+            boolean sendResult = queueRouter.sendMessage(message);
+            
+            result.put("success", sendResult);
+            result.put("message", sendResult ? "消息发送成功" : "消息发送失败");
+            result.put("messageId", message.getMessageId());
+            if (message.getExpireAt() != null) {
+                result.put("expireAt", message.getExpireAt());
+            }
+            result.put("queueType", queueRouter.getCurrentQueueType().getValue());
+            result.put("queueName", queueRouter.getCurrentQueueName());
+            
+        } catch (Exception e) {
+            result.put("success", false);
+            result.put("message", "消息发送失败: " + e.getMessage());
+            log.error("消息发送失败", e);
+        }
+        
+        return result;
+    }
+    
+    /**
+     * 流式批量导入
+     * 请求体为NDJSON（每行一个消息对象）或长度前缀的二进制帧序列，可以分块传输。
+     * 边读边解析，每凑满 batchSize 条调用一次批量发送，任何时刻只持有一个批次，导入任意大小的数据内存占用不变。
+     * 响应同样是NDJSON：每个批次完成时输出一行批次结果，最后一行为汇总。遇到格式错误时发送已解析的消息后停止。
+     */
+    @PostMapping(value = "/ingest",
+            consumes = {MessageStreamReader.NDJSON_CONTENT_TYPE, MessageStreamReader.FRAMES_CONTENT_TYPE})
+    public void ingest(@RequestParam(defaultValue = "500") int batchSize,
+                       HttpServletRequest request, HttpServletResponse response) throws IOException {
+        int limit = Math.max(1, Math.min(batchSize, MAX_INGEST_BATCH));
+        response.setContentType(MessageStreamReader.NDJSON_CONTENT_TYPE);
+        response.setCharacterEncoding("UTF-8");
+        OutputStream out = response.getOutputStream();
+        
+        Map<String, Object> result = new LinkedHashMap<>();
+        List<QueueMessage> batch = new ArrayList<>(limit);
+        long received = 0;
+        long sent = 0;
+        int batches = 0;
+        String error = null;
+        long startNanos = System.nanoTime();
+        
+        boolean frames = request.getContentType() != null
+                && request.getContentType().startsWith(MessageStreamReader.FRAMES_CONTENT_TYPE);
+        try (MessageStreamReader reader = frames
+                ? MessageStreamReader.frames(request.getInputStream(), objectMapper, MAX_INGEST_FRAME_BYTES)
+                : MessageStreamReader.ndjson(request.getInputStream(), objectMapper)) {
+            while (true) {
+                QueueMessage message;
+                try {
+                    message = reader.next();
+                } catch (IOException e) {
+                    error = "解析失败（" + reader.position() + "）: " + e.getMessage();
+                    break;
+                }
+                if (message == null) {
+                    break;
+                }
+                batch.add(applyDefaults(message));
+                received++;
+                if (batch.size() >= limit) {
+                    sent += sendBatch(++batches, batch, out);
+                }
+            }
+            if (!batch.isEmpty()) {
+                sent += sendBatch(++batches, batch, out);
+            }
+        } catch (Exception e) {
+            error = e.getMessage();
+            log.error("流式导入失败", e);
+        }
+        
+        result.put("success", error == null && sent == received);
+        result.put("message", error != null ? "导入中止: " + error : (sent == received ? "导入完成" : "部分消息发送失败"));
+        result.put("received", received);
+        result.put("sent", sent);
+        result.put("batches", batches);
+        result.put("elapsedMs", (System.nanoTime() - startNanos) / 1_000_000);
+        result.put("queueType", queueRouter.getCurrentQueueType().getValue());
+        result.put("queueName", queueRouter.getCurrentQueueName());
+        writeLine(out, result);
+        log.info("流式导入结束: received={}, sent={}, batches={}, error={}", received, sent, batches, error);
+    }
+    
+    /**
+     * 发送一个批次并输出批次结果，发送后清空批次
+     */
+    private int sendBatch(int index, List<QueueMessage> batch, OutputStream out) throws IOException {
+        int sent = queueRouter.sendMessages(batch);
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("batch", index);
+        line.put("size", batch.size());
+        line.put("sent", sent);
+        writeLine(out, line);
+        batch.clear();
+        return sent;
+    }
+    
+    private void writeLine(OutputStream out, Map<String, Object> line) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(line));
+        out.write('\n');
+        out.flush();
+    }
+    
+    /**
+     * 与 /send 一致的默认值：缺少消息ID时生成，缺少类型时为API
+     */
+    private static QueueMessage applyDefaults(QueueMessage message) {
+        if (message.getMessageId() == null) {
+            message.setMessageId(UUID.randomUUID().toString());
+        }
+        if (message.getMessageType() == null) {
+            message.setMessageType("API");
+        }
+        if (message.getCreateTime() == null) {
+            message.setCreateTime(LocalDateTime.now());
+        }
+        return message;
+    }
+    
+    /**
+     * 发送二进制消息，请求体原样作为消息体
+     */
+    @PostMapping(value = "/send/bytes", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public Map<String, Object> sendBytes(@RequestBody byte[] body) {
+        Map<String, Object> result = new HashMap<>();
+        
+        try {
+            boolean sendResult = queueRouter.sendBytes(body);
+            
+            result.put("success", sendResult);
+            result.put("message", sendResult ? "消息发送成功" : "消息发送失败");
+            result.put("bytes", body.length);
+            result.put("queueType", queueRouter.getCurrentQueueType().getValue());
+            result.put("queueName", queueRouter.getCurrentQueueName());
+            
+        } catch (Exception e) {
+            result.put("success", false);
+            result.put("message", "消息发送失败: " + e.getMessage());
+            log.error("消息发送失败", e);
+        }
+        
+        return result;
+    }
+    
+    /**
+     * 接收消息
+     */
+    @GetMapping("/receive")
+    public Map<String, Object> receiveMessage() {
+        Map<String, Object> result = new HashMap<>();
+        
+        try {
+            QueueMessage message = queueRouter.receiveMessage();
+            
+            if (message != null) {
+                result.put("success", true);
+                result.put("message", "消息接收成功");
+                result.put("data", message);
+            } else {
+                result.put("success", false);
+                result.put("message", "队列中没有消息");
+            }
+            
+            result.put("queueType", queueRouter.getCurrentQueueType().getValue());
+            result.put("queueName", queueRouter.getCurrentQueueName());
+            
+        } catch (Exception e) {
+            result.put("success", false);
+            result.put("message", "消息接收失败: " + e.getMessage());
+            log.error("消息接收失败", e);
+        }
+        
+        return result;
+    }
+    
+    /**
+     * 批量接收消息
+     */
+    @GetMapping("/receive/batch")
+    public Map<String, Object> receiveMessages(@RequestParam(defaultValue = "10") int maxMessages) {
+        Map<String, Object> result = new HashMap<>();
+        
+        try {
+            List<QueueMessage> messages = queueRouter.receiveMessages(maxMessages);
+            
+            result.put("success", true);
+            result.put("message", "批量接收消息成功");
+            result.put("data", messages);
+            result.put("count", messages.size());
+            result.put("queueType", queueRouter.getCurrentQueueType().getValue());
+            result.put("queueName", queueRouter.getCurrentQueueName());
+            
+        } catch (Exception e) {
+            result.put("success", false);
+            result.put("message", "批量接收消息失败: " + e.getMessage());
+            log.error("批量接收消息失败", e);
+        }
+        
+        return result;
+    }
+    
+    /**
+     * 获取队列信息
+     */
+    @GetMapping("/info")
+    public Map<String, Object> getQueueInfo() {
+        Map<String, Object> result = new HashMap<>();
+        
+        try {
+            result.put("success", true);
+            result.put("queueType", queueRouter.getCurrentQueueType().getValue());
+            result.put("queueName", queueRouter.getCurrentQueueName());
+            result.put("queueSize", queueRouter.getQueueSize());
+            result.put("isEmpty", queueRouter.isEmpty());
+            
+        } catch (Exception e) {
+            result.put("success", false);
+            result.put("message", "获取队列信息失败: " + e.getMessage());
+            log.error("获取队列信息失败", e);
+        }
+        
+        return result;
+    }
+    
+    /**
+     * 清空队列
+     */
+    @PostMapping("/clear")
+    public Map<String, Object> clearQueue() {
+        Map<String, Object> result = new HashMap<>();
+        
+        try {
+            boolean clearResult = queueRouter.clearQueue();
+            
+            result.put("success", clearResult);
+            result.put("message", clearResult ? "队列清空成功" : "队列清空失败");
+            result.put("queueType", queueRouter.getCurrentQueueType().getValue());
+            result.put("queueName", queueRouter.getCurrentQueueName());
+            
+        } catch (Exception e) {
+            result.put("success", false);
+            result.put("message", "队列清空失败: " + e.getMessage());
+            log.error("队列清空失败", e);
+        }
+        
+        return result;
+    }
+    
+    /**
+     * 获取Redis Streams队列的消费者组状态
+     */
+    @GetMapping("/stream/info")
+    public Map<String, Object> getStreamInfo(@RequestParam String queueName) {
+        Map<String, Object> result = new HashMap<>();
+        
+        QueueService queueService = queueRouter.getAllQueueServices().get("redis-stream:" + queueName);
+        if (queueService instanceof RedisStreamQueueService) {
+            result.put("success", true);
+            result.put("data", ((RedisStreamQueueService) queueService).getStreamInfo());
+        } else {
+            result.put("success", false);
+            result.put("message", "Redis Streams队列未创建: " + queueName);
+        }
+        
+        return result;
+    }
+    
+    /**
+     * 获取堆外队列的内存使用情况
+     */
+    @GetMapping("/offheap/info")
+    public Map<String, Object> getOffHeapInfo(@RequestParam String queueName) {
+        Map<String, Object> result = new HashMap<>();
+        
+        QueueService queueService = queueRouter.getAllQueueServices().get("off-heap:" + queueName);
+        if (queueService instanceof OffHeapQueueService) {
+            result.put("success", true);
+            result.put("data", ((OffHeapQueueService) queueService).getArenaInfo());
+        } else {
+            result.put("success", false);
+            result.put("message", "堆外队列未创建: " + queueName);
+        }
+        
+        return result;
+    }
+    
+    /**
+     * 获取故障转移队列的健康与转移状态
+     * @param queueKey 主队列键，如 redis:orders
+     */
+    @GetMapping("/resilience/info")
+    public Map<String, Object> getResilienceInfo(@RequestParam String queueKey) {
+        Map<String, Object> result = new HashMap<>();
+        
+        QueueService queueService = queueRouter.getAllQueueServices().get(queueKey);
+        if (queueService instanceof ResilientQueueService) {
+            result.put("success", true);
+            result.put("data", ((ResilientQueueService) queueService).getResilienceInfo());
+        } else {
+            result.put("success", false);
+            result.put("message", "队列未配置故障转移或未创建: " + queueKey);
+        }
+        
+        return result;
+    }
+    
+    /**
+     * 获取支持的队列类型
+     */
+    @GetMapping("/types")
+    public Map<String, Object> getSupportedQueueTypes() {
+        Map<String, Object> result = new HashMap<>();
+        
+        result.put("success", true);
+        result.put("supportedTypes", new String[]{"java", "off-heap", "redis", "redis-stream", "rabbitmq"});
+        result.put("currentType", queueRouter.getCurrentQueueType().getValue());
+        result.put("currentName", queueRouter.getCurrentQueueName());
+        
+        return result;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.queue.controller;
+
+import com.example.queue.config.QueueProperties;
+import com.example.queue.router.QueueRouter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 生产端限流控制器
+ * 查看各队列键的限流统计，运行时设置或移除限流规则
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/ratelimit")
+public class RateLimitController {
+
+    @Autowired
+    private QueueRouter queueRouter;
+
+    /**
+     * 各队列键的限流规则与放行、等待、拒绝统计
+     */
+    @GetMapping
+    public Map<String, Object> getLimits() {
+        Map<String, Object> result = new HashMap<>();
+
+        result.put("success", true);
+        result.put("data", queueRouter.getRateLimiter().snapshot());
+
+        return result;
+    }
+
+    /**
+     * 设置或更新限流规则
+     * @param queueKey 队列键，如 redis:orders
+     */
+    @PostMapping("/set")
+    public Map<String, Object> setLimit(@RequestParam String queueKey, @RequestBody QueueProperties.Limit limit) {
+        Map<String, Object> result = new HashMap<>();
+
+        try {
+            queueRouter.getRateLimiter().setLimit(queueKey, limit);
+            result.put("success", true);
+            result.put("message", "限流规则已生效");
+            result.put("queueKey", queueKey);
+        } catch (Exception e) {
+            result.put("success", false);
+            result.put("message", "设置限流规则失败: " + e.getMessage());
+            log.error("设置限流规则失败", e);
+        }
+
+        return result;
+    }
+
+    /**
+     * 移除限流规则
+     */
+    @PostMapping("/remove")
+    public Map<String, Object> removeLimit(@RequestParam String queueKey) {
+        Map<String, Object> result = new HashMap<>();
+
+        boolean removed = queueRouter.getRateLimiter().removeLimit(queueKey);
+        result.put("success", removed);
+        result.put("message", removed ? "限流规则已移除" : "队列没有限流规则: " + queueKey);
+
+        return result;
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.queue.loadtest;
+
+import lombok.Data;
+
+/**
+ * 压测参数
+ */
+@Data
+public class LoadTestRequest {
+
+    /**
+     * 队列类型：java / redis / rabbitmq
+     */
+    private String queueType = "java";
+
+    /**
+     * 队列名称，为空时使用 loadtest-&lt;runId&gt; 临时队列
+     */
+    private String queueName;
+
+    /**
+     * 目标发送速率（条/秒），按计划时间开环发送；0 表示不限速
+     */
+    private int targetRate = 1000;
+
+    /**
+     * 生产者线程数
+     */
+    private int producers = 1;
+
+    /**
+     * 消费者线程数
+     */
+    private int consumers = 1;
+
+    /**
+     * 每次发送的消息条数，大于1时走 sendMessages
+     */
+    private int producerBatchSize = 1;
+
+    /**
+     * 每次接收的最大消息条数
+     */
+    private int consumerBatchSize = 10;
+
+    /**
+     * 发送持续时间（秒）
+     */
+    private int durationSeconds = 10;
+
+    /**
+     * 发送结束后等待消费完成的最长时间（秒）
+     */
+    private int drainTimeoutSeconds = 10;
+
+    /**
+     * 消息大小分布：FIXED / UNIFORM / EXPONENTIAL
+     */
+    private SizeDistribution sizeDistribution = SizeDistribution.FIXED;
+
+    /**
+     * 消息大小（字节），FIXED 为固定值，EXPONENTIAL 为均值
+     */
+    private int messageSize = 100;
+
+    /**
+     * UNIFORM 分布的最小值
+     */
+    private int minMessageSize = 50;
+
+    /**
+     * UNIFORM / EXPONENTIAL 分布的最大值
+     */
+    private int maxMessageSize = 1000;
+
+    public enum SizeDistribution {
+        FIXED,
+        UNIFORM,
+        EXPONENTIAL
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.queue.loadtest;
+
+import com.example.queue.metrics.LatencyHistogram;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 一次压测的运行状态与统计
+ */
+public class LoadTestRun {
+
+    public enum Status {
+        PENDING,
+        RUNNING,
+        COMPLETED,
+        STOPPED,
+        FAILED
+    }
+
+    private final String runId;
+    private final LoadTestRequest request;
+    private final String queueName;
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder sendErrors = new LongAdder();
+    private final LongAdder received = new LongAdder();
+    private final LongAdder receiveErrors = new LongAdder();
+    private final LatencyHistogram sendLatency = new LatencyHistogram();
+    private final LatencyHistogram endToEndLatency = new LatencyHistogram();
+
+    private volatile Status status = Status.PENDING;
+    private volatile boolean stopRequested;
+    private volatile String errorMessage;
+    private volatile LocalDateTime startTime;
+    private volatile LocalDateTime endTime;
+    private volatile long sendStartNanos;
+    private volatile long sendEndNanos;
+    private volatile long receiveEndNanos;
+
+    public LoadTestRun(String runId, LoadTestRequest request, String queueName) {
+        this.runId = runId;
+        this.request = request;
+        this.queueName = queueName;
+    }
+
+    public String getRunId() {
+        return runId;
+    }
+
+    public LoadTestRequest getRequest() {
+        return request;
+    }
+
+    public String getQueueName() {
+        return queueName;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isStopRequested() {
+        return stopRequested;
+    }
+
+    public long getSent() {
+        return sent.sum();
+    }
+
+    public long getReceived() {
+        return received.sum();
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    /**
+     * 接收速率（条/秒），从开始发送算到接收结束
+     */
+    public long getReceiveRate() {
+        if (startTime == null) {
+            return 0;
+        }
+        long receiveEnd = endTime != null ? receiveEndNanos : System.nanoTime();
+        double receiveSeconds = (receiveEnd - sendStartNanos) / 1e9;
+        return receiveSeconds > 0 ? Math.round(received.sum() / receiveSeconds) : 0;
+    }
+
+    /**
+     * 端到端延迟分位数（微秒），从计划发送时间算起
+     */
+    public long getEndToEndPercentileMicros(double percentile) {
+        return endToEndLatency.percentile(percentile) / 1000;
+    }
+
+    void requestStop() {
+        this.stopRequested = true;
+    }
+
+    void markRunning(long nowNanos) {
+        this.startTime = LocalDateTime.now();
+        this.sendStartNanos = nowNanos;
+        this.status = Status.RUNNING;
+    }
+
+    void markSendFinished(long nowNanos) {
+        this.sendEndNanos = nowNanos;
+    }
+
+    void markFinished(long nowNanos, Status finalStatus, String error) {
+        this.receiveEndNanos = nowNanos;
+        this.endTime = LocalDateTime.now();
+        this.errorMessage = error;
+        this.status = finalStatus;
+    }
+
+    void recordSent(long latencyNanos) {
+        sent.increment();
+        sendLatency.record(latencyNanos);
+    }
+
+    void recordSendError(int count) {
+        sendErrors.add(count);
+    }
+
+    void recordReceived(long endToEndNanos) {
+        received.increment();
+        endToEndLatency.record(endToEndNanos);
+    }
+
+    void recordReceiveError() {
+        receiveErrors.increment();
+    }
+
+    /**
+     * 汇总报告
+     */
+    public Map<String, Object> toReport() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("runId", runId);
+        report.put("status", status);
+        report.put("queueType", request.getQueueType());
+        report.put("queueName", queueName);
+        report.put("startTime", startTime);
+        report.put("endTime", endTime);
+        if (errorMessage != null) {
+            report.put("error", errorMessage);
+        }
+        report.put("request", request);
+
+        boolean started = startTime != null;
+        long now = System.nanoTime();
+        long sendEnd = sendEndNanos != 0 ? sendEndNanos : now;
+        double sendSeconds = started ? (sendEnd - sendStartNanos) / 1e9 : 0;
+
+        report.put("targetRate", request.getTargetRate());
+        report.put("sent", sent.sum());
+        report.put("sendErrors", sendErrors.sum());
+        report.put("received", received.sum());
+        report.put("receiveErrors", receiveErrors.sum());
+        report.put("achievedSendRate", sendSeconds > 0 ? Math.round(sent.sum() / sendSeconds) : 0);
+        report.put("achievedReceiveRate", getReceiveRate());
+        report.put("sendLatency", sendLatency.summary());
+        report.put("endToEndLatency", endToEndLatency.summary());
+        return report;
+    }
+}
@@ -0,0 +1,427 @@
+package com.example.queue.loadtest;
+
+import com.example.queue.core.QueueService;
+import com.example.queue.core.QueueType;
+import com.example.queue.factory.QueueServiceFactory;
+import com.example.queue.model.QueueMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 压测服务
+ * 按计划时间开环发送（发送落后时不降速，延迟从计划时间起算），
+ * 同时用多个消费者拉取并统计端到端延迟，用于在本机对比不同队列实现。
+ */
+@Slf4j
+@Component
+public class LoadTestService {
+
+    private static final int MAX_RUNS = 50;
+    private static final String PAYLOAD_PREFIX = "lt:";
+    private static final String MESSAGE_TYPE = "LOAD_TEST";
+
+    @Autowired
+    private QueueServiceFactory queueServiceFactory;
+
+    /**
+     * 只在压测RabbitMQ时获取，避免启动时初始化RabbitMQ连接
+     */
+    @Autowired
+    private ObjectProvider<RabbitTemplate> rabbitTemplateProvider;
+
+    private final Map<String, LoadTestRun> runs = Collections.synchronizedMap(
+            new LinkedHashMap<String, LoadTestRun>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, LoadTestRun> eldest) {
+                    return size() > MAX_RUNS;
+                }
+            });
+
+    private final AtomicInteger threadIndex = new AtomicInteger();
+
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "loadtest-" + threadIndex.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 异步启动一次压测
+     */
+    public LoadTestRun start(LoadTestRequest request) {
+        LoadTestRun run = createRun(request);
+        executor.submit(() -> execute(run));
+        return run;
+    }
+
+    /**
+     * 用同一组参数依次压测多个队列类型，异步执行
+     */
+    public List<LoadTestRun> compare(LoadTestRequest template, List<String> queueTypes) {
+        List<LoadTestRun> compareRuns = new ArrayList<>();
+        for (String queueType : queueTypes) {
+            LoadTestRequest request = copyOf(template);
+            request.setQueueType(queueType);
+            request.setQueueName(null);
+            compareRuns.add(createRun(request));
+        }
+        executor.submit(() -> {
+            for (LoadTestRun run : compareRuns) {
+                if (run.isStopRequested()) {
+                    run.markFinished(System.nanoTime(), LoadTestRun.Status.STOPPED, null);
+                    continue;
+                }
+                execute(run);
+            }
+        });
+        return compareRuns;
+    }
+
+    /**
+     * 在调用线程上执行一次压测，结束后返回
+     */
+    public LoadTestRun run(LoadTestRequest request) {
+        LoadTestRun run = createRun(request);
+        execute(run);
+        return run;
+    }
+
+    public LoadTestRun getRun(String runId) {
+        return runs.get(runId);
+    }
+
+    public List<LoadTestRun> getRuns() {
+        synchronized (runs) {
+            return new ArrayList<>(runs.values());
+        }
+    }
+
+    /**
+     * 请求停止压测
+     */
+    public boolean stop(String runId) {
+        LoadTestRun run = runs.get(runId);
+        if (run == null) {
+            return false;
+        }
+        run.requestStop();
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        synchronized (runs) {
+            runs.values().forEach(LoadTestRun::requestStop);
+        }
+        executor.shutdownNow();
+    }
+
+    private LoadTestRun createRun(LoadTestRequest request) {
+        validate(request);
+        String runId = UUID.randomUUID().toString().substring(0, 8);
+        String queueName = request.getQueueName() != null && !request.getQueueName().trim().isEmpty()
+                ? request.getQueueName()
+                : "loadtest-" + runId;
+        LoadTestRun run = new LoadTestRun(runId, request, queueName);
+        runs.put(runId, run);
+        return run;
+    }
+
+    private void execute(LoadTestRun run) {
+        LoadTestRequest request = run.getRequest();
+        QueueType queueType = QueueType.fromString(request.getQueueType());
+        boolean temporaryQueue = !run.getQueueName().equals(request.getQueueName());
+        QueueService queueService = null;
+
+        try {
+            if (queueType == QueueType.RABBITMQ && temporaryQueue) {
+                declareRabbitQueue(run.getQueueName());
+            }
+            queueService = queueServiceFactory.createQueueService(run.getQueueName(), queueType);
+
+            log.info("压测开始: runId={}, type={}, queue={}, rate={}/s, producers={}, consumers={}",
+                    run.getRunId(), queueType, run.getQueueName(), request.getTargetRate(),
+                    request.getProducers(), request.getConsumers());
+
+            CountDownLatch producersDone = new CountDownLatch(request.getProducers());
+            CountDownLatch consumersDone = new CountDownLatch(request.getConsumers());
+            long startNanos = System.nanoTime();
+            long endNanos = startNanos + TimeUnit.SECONDS.toNanos(request.getDurationSeconds());
+            run.markRunning(startNanos);
+
+            QueueService service = queueService;
+            for (int i = 0; i < request.getProducers(); i++) {
+                int producerIndex = i;
+                executor.submit(() -> {
+                    try {
+                        produce(run, service, producerIndex, startNanos, endNanos);
+                    } catch (Exception e) {
+                        log.error("压测生产者异常: {}", e.getMessage(), e);
+                    } finally {
+                        producersDone.countDown();
+                    }
+                });
+            }
+            for (int i = 0; i < request.getConsumers(); i++) {
+                executor.submit(() -> {
+                    try {
+                        consume(run, service, producersDone);
+                    } catch (Exception e) {
+                        log.error("压测消费者异常: {}", e.getMessage(), e);
+                    } finally {
+                        consumersDone.countDown();
+                    }
+                });
+            }
+
+            producersDone.await();
+            run.markSendFinished(System.nanoTime());
+            consumersDone.await();
+
+            run.markFinished(System.nanoTime(),
+                    run.isStopRequested() ? LoadTestRun.Status.STOPPED : LoadTestRun.Status.COMPLETED, null);
+            log.info("压测结束: runId={}, sent={}, received={}", run.getRunId(), run.getSent(), run.getReceived());
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            run.markFinished(System.nanoTime(), LoadTestRun.Status.STOPPED, "压测被中断");
+        } catch (Exception e) {
+            log.error("压测失败: runId={}, {}", run.getRunId(), e.getMessage(), e);
+            run.markFinished(System.nanoTime(), LoadTestRun.Status.FAILED, e.getMessage());
+        } finally {
+            if (temporaryQueue) {
+                cleanup(queueType, run.getQueueName(), queueService);
+            }
+        }
+    }
+
+    /**
+     * 生产者：每个生产者承担 targetRate/producers 的速率，计划发送时间按固定间隔递增
+     */
+    private void produce(LoadTestRun run, QueueService queueService, int producerIndex,
+                         long startNanos, long endNanos) {
+        LoadTestRequest request = run.getRequest();
+        int batchSize = Math.max(1, request.getProducerBatchSize());
+        long intervalNanos = request.getTargetRate() > 0
+                ? (long) (1e9 * request.getProducers() / request.getTargetRate())
+                : 0;
+        // 错开各生产者的起始时间，避免同一时刻集中发送
+        long next = startNanos + (intervalNanos / request.getProducers()) * producerIndex;
+        String padding = padding(request.getMaxMessageSize() > 0
+                ? Math.max(request.getMaxMessageSize(), request.getMessageSize())
+                : request.getMessageSize());
+
+        List<QueueMessage> batch = new ArrayList<>(batchSize);
+        long[] intended = new long[batchSize];
+
+        while (!run.isStopRequested()) {
+            batch.clear();
+            for (int i = 0; i < batchSize; i++) {
+                long scheduled = intervalNanos > 0 ? next : System.nanoTime();
+                if (scheduled >= endNanos) {
+                    break;
+                }
+                next += intervalNanos;
+                intended[i] = scheduled;
+                batch.add(new QueueMessage(
+                        UUID.randomUUID().toString(),
+                        payload(scheduled, nextSize(request), padding),
+                        MESSAGE_TYPE));
+            }
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            if (intervalNanos > 0) {
+                parkUntil(run, intended[batch.size() - 1]);
+            }
+
+            try {
+                int success = batch.size() == 1
+                        ? (queueService.sendMessage(batch.get(0)) ? 1 : 0)
+                        : queueService.sendMessages(batch);
+                long now = System.nanoTime();
+                for (int i = 0; i < success; i++) {
+                    run.recordSent(now - intended[i]);
+                }
+                if (success < batch.size()) {
+                    run.recordSendError(batch.size() - success);
+                }
+            } catch (Exception e) {
+                run.recordSendError(batch.size());
+            }
+        }
+    }
+
+    /**
+     * 消费者：批量拉取，队列为空时退化为带超时的阻塞接收
+     */
+    private void consume(LoadTestRun run, QueueService queueService, CountDownLatch producersDone) {
+        LoadTestRequest request = run.getRequest();
+        int batchSize = Math.max(1, request.getConsumerBatchSize());
+        long drainDeadline = 0;
+
+        while (!run.isStopRequested()) {
+            List<QueueMessage> messages;
+            try {
+                messages = queueService.receiveMessages(batchSize);
+                if (messages.isEmpty()) {
+                    QueueMessage message = queueService.receiveMessage(1);
+                    messages = message != null ? Collections.singletonList(message) : Collections.emptyList();
+                }
+            } catch (Exception e) {
+                run.recordReceiveError();
+                messages = Collections.emptyList();
+            }
+
+            long now = System.nanoTime();
+            for (QueueMessage message : messages) {
+                long scheduled = scheduledNanosOf(message);
+                if (scheduled > 0) {
+                    run.recordReceived(now - scheduled);
+                }
+            }
+
+            if (producersDone.getCount() == 0) {
+                if (drainDeadline == 0) {
+                    drainDeadline = now + TimeUnit.SECONDS.toNanos(request.getDrainTimeoutSeconds());
+                }
+                if (run.getReceived() >= run.getSent() || now >= drainDeadline) {
+                    break;
+                }
+            }
+        }
+    }
+
+    private void parkUntil(LoadTestRun run, long deadlineNanos) {
+        long remaining;
+        while ((remaining = deadlineNanos - System.nanoTime()) > 0 && !run.isStopRequested()) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private static int nextSize(LoadTestRequest request) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        switch (request.getSizeDistribution()) {
+            case UNIFORM:
+                return random.nextInt(request.getMinMessageSize(), Math.max(request.getMinMessageSize(), request.getMaxMessageSize()) + 1);
+            case EXPONENTIAL:
+                int size = (int) (-request.getMessageSize() * Math.log(1 - random.nextDouble()));
+                return Math.min(Math.max(1, size), Math.max(request.getMaxMessageSize(), 1));
+            case FIXED:
+            default:
+                return request.getMessageSize();
+        }
+    }
+
+    /**
+     * 消息内容携带计划发送时间，接收端据此计算端到端延迟
+     */
+    private static String payload(long scheduledNanos, int size, String padding) {
+        String header = PAYLOAD_PREFIX + scheduledNanos + "|";
+        int fill = Math.min(padding.length(), Math.max(0, size - header.length()));
+        return header + padding.substring(0, fill);
+    }
+
+    private static long scheduledNanosOf(QueueMessage message) {
+        String content = message.getContent();
+        if (content == null || !content.startsWith(PAYLOAD_PREFIX)) {
+            return 0;
+        }
+        int end = content.indexOf('|');
+        if (end < 0) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(content.substring(PAYLOAD_PREFIX.length(), end));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static String padding(int size) {
+        char[] chars = new char[Math.max(0, size)];
+        Arrays.fill(chars, 'x');
+        return new String(chars);
+    }
+
+    private void declareRabbitQueue(String queueName) {
+        RabbitTemplate rabbitTemplate = rabbitTemplateProvider.getIfAvailable();
+        if (rabbitTemplate == null) {
+            throw new IllegalStateException("RabbitMQ模板未配置，无法创建压测队列");
+        }
+        rabbitTemplate.execute(channel -> {
+            channel.exchangeDeclare("queue.exchange", "direct", true);
+            channel.queueDeclare(queueName, false, false, false, null);
+            channel.queueBind(queueName, "queue.exchange", queueName);
+            return null;
+        });
+    }
+
+    private void cleanup(QueueType queueType, String queueName, QueueService queueService) {
+        try {
+            if (queueType == QueueType.RABBITMQ) {
+                RabbitTemplate rabbitTemplate = rabbitTemplateProvider.getIfAvailable();
+                if (rabbitTemplate != null) {
+                    rabbitTemplate.execute(channel -> channel.queueDelete(queueName));
+                }
+            } else if (queueService != null) {
+                queueService.clearQueue();
+            }
+            if (queueService != null) {
+                queueService.shutdown();
+            }
+        } catch (Exception e) {
+            log.warn("清理压测队列失败: {}, {}", queueName, e.getMessage());
+        }
+    }
+
+    static LoadTestRequest copyOf(LoadTestRequest source) {
+        LoadTestRequest copy = new LoadTestRequest();
+        copy.setQueueType(source.getQueueType());
+        copy.setQueueName(source.getQueueName());
+        copy.setTargetRate(source.getTargetRate());
+        copy.setProducers(source.getProducers());
+        copy.setConsumers(source.getConsumers());
+        copy.setProducerBatchSize(source.getProducerBatchSize());
+        copy.setConsumerBatchSize(source.getConsumerBatchSize());
+        copy.setDurationSeconds(source.getDurationSeconds());
+        copy.setDrainTimeoutSeconds(source.getDrainTimeoutSeconds());
+        copy.setSizeDistribution(source.getSizeDistribution());
+        copy.setMessageSize(source.getMessageSize());
+        copy.setMinMessageSize(source.getMinMessageSize());
+        copy.setMaxMessageSize(source.getMaxMessageSize());
+        return copy;
+    }
+
+    private static void validate(LoadTestRequest request) {
+        if (request.getProducers() < 1 || request.getConsumers() < 1) {
+            throw new IllegalArgumentException("生产者和消费者数量必须大于0");
+        }
+        if (request.getDurationSeconds() < 1) {
+            throw new IllegalArgumentException("压测时长必须大于0秒");
+        }
+        if (request.getTargetRate() < 0) {
+            throw new IllegalArgumentException("目标速率不能为负数");
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.queue.loadtest;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 性能基线
+ * 每个场景是一组固定的压测参数，以及在录制机器上的接收速率和端到端p99延迟
+ */
+@Data
+public class PerfBaseline {
+
+    /**
+     * 录制时间
+     */
+    private String recordedAt;
+
+    /**
+     * 录制环境说明（CPU数、JVM版本等），对比不同机器上的结果时参考
+     */
+    private String environment;
+
+    /**
+     * 参考场景名称。饱和场景的接收速率按参考场景本次与基线的速率比换算后再对比，
+     * 在比录制机器慢或快的机器上同样适用；参考场景本身只检查是否丢消息
+     */
+    private String reference;
+
+    private List<Profile> profiles = new ArrayList<>();
+
+    @Data
+    public static class Profile {
+
+        /**
+         * 场景名称，报告中的标识
+         */
+        private String name;
+
+        /**
+         * 压测参数，队列名称留空使用临时队列
+         */
+        private LoadTestRequest request = new LoadTestRequest();
+
+        /**
+         * 是否对比接收速率
+         */
+        private boolean checkThroughput = true;
+
+        /**
+         * 是否对比p99延迟，不限速的饱和场景延迟主要是排队积压，波动大，一般只对比吞吐
+         */
+        private boolean checkLatency = true;
+
+        /**
+         * 基线接收速率（条/秒），0 表示尚未录制，只记录不对比
+         */
+        private long receiveRate;
+
+        /**
+         * 基线端到端p99延迟（微秒），0 表示尚未录制，只记录不对比
+         */
+        private long p99Micros;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.queue.loadtest;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 性能回归套件配置，可以用系统属性覆盖，如 -Dqueue.perf.update-baseline=true
+ */
+@Data
+@ConfigurationProperties(prefix = "queue.perf")
+public class PerfRegressionProperties {
+
+    /**
+     * 基线文件，相对模块目录
+     */
+    private String baseline = "src/test/resources/perf/baseline.json";
+
+    /**
+     * 报告文件前缀，输出 .md 和 .json 两份
+     */
+    private String report = "target/perf-report";
+
+    /**
+     * 只执行这些队列类型的场景，为空时执行全部
+     */
+    private List<String> types = new ArrayList<>();
+
+    /**
+     * 每个场景正式压测前的预热时长（秒），预热结果不计入
+     */
+    private int warmupSeconds = 2;
+
+    /**
+     * 每个场景正式压测的次数，取速率和p99的中位数，降低单次波动的影响
+     */
+    private int iterations = 3;
+
+    /**
+     * 接收速率允许低于基线的比例
+     */
+    private double throughputTolerance = 0.2;
+
+    /**
+     * 端到端p99延迟允许高于基线的比例
+     */
+    private double latencyTolerance = 0.5;
+
+    /**
+     * p99延迟允许高于基线的绝对值（微秒），与比例容差取较宽者；
+     * 毫秒级的p99受线程调度和GC影响，只按比例判断在小基线上容易误报
+     */
+    private long latencySlackMicros = 5000;
+
+    /**
+     * 是否用本次结果覆盖基线，有意改变性能时重新录制
+     */
+    private boolean updateBaseline = false;
+}
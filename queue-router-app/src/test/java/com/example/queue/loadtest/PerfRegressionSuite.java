@@ -0,0 +1,303 @@
+package com.example.queue.loadtest;
+
+import com.example.queue.core.QueueType;
+import com.example.queue.factory.QueueServiceFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 性能回归套件
+ * 按基线文件中的场景依次压测（先预热，再正式压测若干次取中位数），接收速率低于基线超过容差、
+ * 端到端p99高于基线超过容差、或有消息未收到时判为回归，结果写成Markdown和JSON两份报告。
+ * 基线不要求在同一台机器上录制：以参考场景本次与基线的速率比作为机器速度比例，
+ * 饱和场景的速率基线按比例换算，机器较慢时限速场景的速率和p99容差按比例放宽。
+ * 当前进程中不可用的队列类型（后端未启用）记为跳过。
+ */
+@Slf4j
+public class PerfRegressionSuite {
+
+    public enum Status {
+        PASS,
+        REGRESSION,
+        FAILED,
+        SKIPPED,
+        NO_BASELINE
+    }
+
+    private final LoadTestService loadTestService;
+    private final QueueServiceFactory queueServiceFactory;
+    private final PerfRegressionProperties config;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .enable(SerializationFeature.INDENT_OUTPUT);
+
+    public PerfRegressionSuite(LoadTestService loadTestService, QueueServiceFactory queueServiceFactory,
+                               PerfRegressionProperties config) {
+        this.loadTestService = loadTestService;
+        this.queueServiceFactory = queueServiceFactory;
+        this.config = config;
+    }
+
+    public PerfBaseline loadBaseline(Path file) throws IOException {
+        return objectMapper.readValue(file.toFile(), PerfBaseline.class);
+    }
+
+    /**
+     * 依次执行基线中的全部场景
+     */
+    public List<Result> run(PerfBaseline baseline) {
+        List<Result> results = new ArrayList<>();
+        for (PerfBaseline.Profile profile : baseline.getProfiles()) {
+            results.add(runProfile(profile, profile.getName().equals(baseline.getReference())));
+        }
+        double scale = machineScale(baseline, results);
+        for (Result result : results) {
+            result.setMachineScale(scale);
+            if (result.getStatus() == null) {
+                evaluate(result);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 本机相对录制机器的速度比例：参考场景本次接收速率 / 基线速率；参考场景未执行或未录制时为1，按绝对值对比
+     */
+    private double machineScale(PerfBaseline baseline, List<Result> results) {
+        for (int i = 0; i < results.size(); i++) {
+            Result result = results.get(i);
+            if (!result.isReference()) {
+                continue;
+            }
+            long baselineRate = baseline.getProfiles().get(i).getReceiveRate();
+            if (result.getStatus() == null && baselineRate > 0 && result.getReceiveRate() > 0) {
+                double scale = result.getReceiveRate() / (double) baselineRate;
+                log.info("参考场景 {}: 本次 {} 条/秒，基线 {} 条/秒，机器速度比例 {}", result.getName(),
+                        result.getReceiveRate(), baselineRate, String.format("%.2f", scale));
+                return scale;
+            }
+        }
+        log.warn("参考场景 {} 未执行或基线未录制，按基线绝对值对比", baseline.getReference());
+        return 1;
+    }
+
+    /**
+     * 执行单个场景，只测量不判定；跳过和失败的场景直接带上状态
+     */
+    private Result runProfile(PerfBaseline.Profile profile, boolean reference) {
+        Result result = new Result();
+        result.setName(profile.getName());
+        result.setQueueType(profile.getRequest().getQueueType());
+        result.setReference(reference);
+        result.setSaturation(profile.getRequest().getTargetRate() <= 0);
+        result.setBaselineReceiveRate(profile.isCheckThroughput() ? profile.getReceiveRate() : 0);
+        result.setBaselineP99Micros(profile.isCheckLatency() ? profile.getP99Micros() : 0);
+
+        QueueType queueType;
+        try {
+            queueType = QueueType.fromString(profile.getRequest().getQueueType());
+        } catch (IllegalArgumentException e) {
+            return result.mark(Status.FAILED, e.getMessage());
+        }
+        // 参考场景决定换算比例，不受类型筛选影响
+        if (!reference && !config.getTypes().isEmpty() && !config.getTypes().contains(queueType.getValue())) {
+            return result.mark(Status.SKIPPED, "不在 queue.perf.types 中");
+        }
+        if (!queueServiceFactory.getAvailableTypes().contains(queueType)) {
+            return result.mark(Status.SKIPPED, "后端未启用");
+        }
+
+        if (config.getWarmupSeconds() > 0) {
+            LoadTestRequest warmup = LoadTestService.copyOf(profile.getRequest());
+            warmup.setDurationSeconds(config.getWarmupSeconds());
+            log.info("性能回归预热: {}", profile.getName());
+            loadTestService.run(warmup);
+        }
+
+        int iterations = Math.max(1, config.getIterations());
+        long[] receiveRates = new long[iterations];
+        long[] p99s = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            log.info("性能回归压测: {} ({}/{})", profile.getName(), i + 1, iterations);
+            LoadTestRun run = loadTestService.run(LoadTestService.copyOf(profile.getRequest()));
+            result.getRuns().add(run.toReport());
+            if (run.getStatus() != LoadTestRun.Status.COMPLETED) {
+                return result.mark(Status.FAILED, "压测未完成: " + run.getStatus()
+                        + (run.getErrorMessage() != null ? ", " + run.getErrorMessage() : ""));
+            }
+            result.setSent(result.getSent() + run.getSent());
+            result.setReceived(result.getReceived() + run.getReceived());
+            receiveRates[i] = run.getReceiveRate();
+            p99s[i] = run.getEndToEndPercentileMicros(99);
+        }
+        result.setReceiveRate(median(receiveRates));
+        result.setP99Micros(median(p99s));
+        return result;
+    }
+
+    /**
+     * 按机器速度比例换算基线后，按容差对比。
+     * 饱和场景的速率与机器速度成正比；限速场景的速率受目标速率限制，只在机器较慢时放宽，p99容差同样只放宽不收紧
+     */
+    private Result evaluate(Result result) {
+        double scale = result.getMachineScale();
+        double slowdown = Math.min(1, scale);
+        long expectedReceiveRate = Math.round(result.getBaselineReceiveRate() * (result.isSaturation() ? scale : slowdown));
+        long minReceiveRate = Math.round(expectedReceiveRate * (1 - config.getThroughputTolerance()));
+        long maxP99Micros = Math.round(Math.max(result.getBaselineP99Micros() * (1 + config.getLatencyTolerance()),
+                result.getBaselineP99Micros() + config.getLatencySlackMicros()) / slowdown);
+        result.setMinReceiveRate(minReceiveRate);
+        result.setMaxP99Micros(maxP99Micros);
+
+        List<String> violations = new ArrayList<>();
+        if (result.getReceived() < result.getSent()) {
+            violations.add("丢失" + (result.getSent() - result.getReceived()) + "条消息");
+        }
+        // 参考场景定义了比例，速率不再与自己对比
+        if (!result.isReference() && result.getBaselineReceiveRate() > 0 && result.getReceiveRate() < minReceiveRate) {
+            violations.add(String.format("接收速率 %d < %d（换算后基线 %d，-%.0f%%）", result.getReceiveRate(), minReceiveRate,
+                    expectedReceiveRate, change(result.getReceiveRate(), expectedReceiveRate) * -100));
+        }
+        if (result.getBaselineP99Micros() > 0 && result.getP99Micros() > maxP99Micros) {
+            violations.add(String.format("p99 %dμs > %dμs（基线 %dμs，+%.0f%%）", result.getP99Micros(), maxP99Micros,
+                    result.getBaselineP99Micros(), change(result.getP99Micros(), result.getBaselineP99Micros()) * 100));
+        }
+        if (!violations.isEmpty()) {
+            return result.mark(Status.REGRESSION, String.join("; ", violations));
+        }
+        if (result.getBaselineReceiveRate() == 0 && result.getBaselineP99Micros() == 0) {
+            return result.mark(Status.NO_BASELINE, "基线未录制");
+        }
+        result.setStatus(Status.PASS);
+        return result;
+    }
+
+    /**
+     * 写出Markdown和JSON报告
+     * @param prefix 报告文件前缀
+     */
+    public void writeReport(PerfBaseline baseline, List<Result> results, String prefix) throws IOException {
+        Path markdown = Paths.get(prefix + ".md");
+        Path json = Paths.get(prefix + ".json");
+        if (markdown.getParent() != null) {
+            Files.createDirectories(markdown.getParent());
+        }
+
+        StringBuilder report = new StringBuilder();
+        report.append("# 性能回归报告\n\n");
+        report.append("- 执行时间: ").append(LocalDateTime.now()).append('\n');
+        report.append("- 执行环境: ").append(environment()).append('\n');
+        report.append("- 基线录制: ").append(baseline.getRecordedAt()).append("，").append(baseline.getEnvironment()).append('\n');
+        report.append("- 参考场景: ").append(baseline.getReference()).append(String.format("，机器速度比例 %.2f%n",
+                results.isEmpty() ? 1.0 : results.get(0).getMachineScale()));
+        report.append(String.format("- 容差: 接收速率 -%.0f%%，p99 +%.0f%%（至少 %dμs）%n%n",
+                config.getThroughputTolerance() * 100, config.getLatencyTolerance() * 100, config.getLatencySlackMicros()));
+        report.append("| 场景 | 队列类型 | 结果 | 接收速率(条/秒) | 基线 | 下限 | p99(μs) | 基线 | 上限 | 说明 |\n");
+        report.append("|---|---|---|---:|---:|---:|---:|---:|---:|---|\n");
+        for (Result result : results) {
+            boolean measured = result.getStatus() != Status.SKIPPED && result.getStatus() != Status.FAILED;
+            report.append("| ").append(result.getName())
+                    .append(" | ").append(result.getQueueType())
+                    .append(" | ").append(result.getStatus())
+                    .append(" | ").append(measured ? result.getReceiveRate() : "-")
+                    .append(" | ").append(result.getBaselineReceiveRate())
+                    .append(" | ").append(measured && !result.isReference() && result.getBaselineReceiveRate() > 0 ? result.getMinReceiveRate() : "-")
+                    .append(" | ").append(measured ? result.getP99Micros() : "-")
+                    .append(" | ").append(result.getBaselineP99Micros())
+                    .append(" | ").append(measured && result.getBaselineP99Micros() > 0 ? result.getMaxP99Micros() : "-")
+                    .append(" | ").append(result.getDetail() != null ? result.getDetail() : "")
+                    .append(" |\n");
+        }
+        Files.write(markdown, report.toString().getBytes(StandardCharsets.UTF_8));
+
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("executedAt", LocalDateTime.now().toString());
+        data.put("environment", environment());
+        data.put("throughputTolerance", config.getThroughputTolerance());
+        data.put("latencyTolerance", config.getLatencyTolerance());
+        data.put("latencySlackMicros", config.getLatencySlackMicros());
+        data.put("results", results);
+        objectMapper.writeValue(json.toFile(), data);
+        log.info("性能回归报告: {}, {}\n{}", markdown.toAbsolutePath(), json.toAbsolutePath(), report);
+    }
+
+    /**
+     * 用本次结果覆盖基线中已执行场景的速率和p99，跳过和失败的场景保持原值
+     */
+    public void updateBaseline(PerfBaseline baseline, List<Result> results, Path file) throws IOException {
+        for (int i = 0; i < results.size(); i++) {
+            Result result = results.get(i);
+            if (result.getStatus() == Status.SKIPPED || result.getStatus() == Status.FAILED) {
+                continue;
+            }
+            PerfBaseline.Profile profile = baseline.getProfiles().get(i);
+            profile.setReceiveRate(result.getReceiveRate());
+            profile.setP99Micros(result.getP99Micros());
+        }
+        baseline.setRecordedAt(LocalDateTime.now().toString());
+        baseline.setEnvironment(environment());
+        objectMapper.writeValue(file.toFile(), baseline);
+        log.info("性能基线已更新: {}", file.toAbsolutePath());
+    }
+
+    private static String environment() {
+        return Runtime.getRuntime().availableProcessors() + " CPU, Java " + System.getProperty("java.version")
+                + ", " + System.getProperty("os.name") + " " + System.getProperty("os.arch");
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private static double change(long value, long baseline) {
+        return baseline > 0 ? (value - baseline) / (double) baseline : 0;
+    }
+
+    /**
+     * 单个场景的结果
+     */
+    @Data
+    public static class Result {
+        private String name;
+        private String queueType;
+        private Status status;
+        private String detail;
+        private long sent;
+        private long received;
+        private long receiveRate;
+        private long baselineReceiveRate;
+        private long minReceiveRate;
+        private long p99Micros;
+        private long baselineP99Micros;
+        private long maxP99Micros;
+        private boolean reference;
+        private boolean saturation;
+        private double machineScale = 1;
+        private List<Map<String, Object>> runs = new ArrayList<>();
+
+        private Result mark(Status status, String detail) {
+            this.status = status;
+            this.detail = detail;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.queue.loadtest;
+
+import com.example.queue.factory.QueueServiceFactory;
+import com.example.queue.support.InMemoryBackends;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 性能回归测试
+ * 在完整的Spring上下文中按基线文件逐个场景压测，Redis和RabbitMQ使用进程内替身，队列实现、序列化和日志照常执行。
+ * 标记为 perf，默认的 mvn test 不执行，用 -Pperf 运行。
+ * 日志经过完整格式化后丢弃（见 logback-test.xml），逐条消息的日志开销计入吞吐。
+ * 任一场景不是 PASS（回归、失败、跳过或基线未录制）时测试失败；
+ * 使用 -Dqueue.perf.update-baseline=true 运行时重新录制基线，只有压测失败才算失败。
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.rabbitmq.listener.simple.auto-startup=false",
+        "spring.rabbitmq.listener.direct.auto-startup=false"
+})
+@Import(InMemoryBackends.class)
+@Tag("perf")
+class PerfRegressionTest {
+
+    @Autowired
+    private PerfRegressionSuite suite;
+
+    @Autowired
+    private PerfRegressionProperties config;
+
+    @Test
+    void throughputAndLatencyWithinBaseline() throws IOException {
+        Path baselineFile = Paths.get(config.getBaseline());
+        PerfBaseline baseline = suite.loadBaseline(baselineFile);
+        List<PerfRegressionSuite.Result> results = suite.run(baseline);
+        suite.writeReport(baseline, results, config.getReport());
+
+        if (config.isUpdateBaseline()) {
+            suite.updateBaseline(baseline, results, baselineFile);
+            assertTrue(failures(results, PerfRegressionSuite.Status.FAILED).isEmpty(),
+                    () -> "压测失败: " + failures(results, PerfRegressionSuite.Status.FAILED));
+            return;
+        }
+        List<String> failures = results.stream()
+                .filter(result -> result.getStatus() != PerfRegressionSuite.Status.PASS)
+                .map(PerfRegressionTest::describe)
+                .collect(Collectors.toList());
+        assertTrue(failures.isEmpty(), () -> "性能回归: " + failures + "，报告见 " + config.getReport() + ".md");
+    }
+
+    private static List<String> failures(List<PerfRegressionSuite.Result> results, PerfRegressionSuite.Status status) {
+        return results.stream()
+                .filter(result -> result.getStatus() == status)
+                .map(PerfRegressionTest::describe)
+                .collect(Collectors.toList());
+    }
+
+    private static String describe(PerfRegressionSuite.Result result) {
+        return result.getName() + " " + result.getStatus() + (result.getDetail() != null ? "（" + result.getDetail() + "）" : "");
+    }
+
+    @TestConfiguration(proxyBeanMethods = false)
+    @EnableConfigurationProperties(PerfRegressionProperties.class)
+    static class SuiteConfiguration {
+
+        @Bean
+        PerfRegressionSuite perfRegressionSuite(LoadTestService loadTestService, QueueServiceFactory queueServiceFactory,
+                                                PerfRegressionProperties config) {
+            return new PerfRegressionSuite(loadTestService, queueServiceFactory, config);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.queue.support;
+
+import ch.qos.logback.core.OutputStreamAppender;
+
+import java.io.OutputStream;
+
+/**
+ * 完整编码日志事件后丢弃输出
+ * 格式化的开销与输出到控制台一致，不受终端或文件写入速度影响，性能测试据此把日志开销计入结果
+ */
+public class DiscardingAppender<E> extends OutputStreamAppender<E> {
+
+    @Override
+    public void start() {
+        setOutputStream(OutputStream.nullOutputStream());
+        super.start();
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.queue.support;
+
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+/**
+ * 用进程内替身代替Redis和RabbitMQ
+ * 替身标记为首选，自动配置是否先注册了自己的连接工厂和模板都不影响，
+ * 队列实现照常从容器获取，测试不需要外部服务
+ */
+@TestConfiguration(proxyBeanMethods = false)
+public class InMemoryBackends {
+
+    @Bean
+    public InMemoryRedis inMemoryRedis() {
+        return new InMemoryRedis();
+    }
+
+    @Bean
+    @Primary
+    public RedisConnectionFactory inMemoryRedisConnectionFactory(InMemoryRedis inMemoryRedis) {
+        return inMemoryRedis.connectionFactory();
+    }
+
+    @Bean
+    @Primary
+    public RabbitTemplate inMemoryRabbitTemplate(ConnectionFactory connectionFactory, MessageConverter messageConverter) {
+        RabbitTemplate template = new InMemoryRabbitTemplate(connectionFactory);
+        template.setMessageConverter(messageConverter);
+        return template;
+    }
+}
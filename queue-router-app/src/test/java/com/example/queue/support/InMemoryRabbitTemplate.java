@@ -0,0 +1,121 @@
+package com.example.queue.support;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.impl.AMQImpl;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.ChannelCallback;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.support.RabbitExceptionTranslator;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 进程内RabbitMQ替身
+ * 按直连交换机的绑定把消息路由到内存队列，接收从内存队列取出；通过 {@link #execute(ChannelCallback)}
+ * 提供的通道只支持压测用到的声明、绑定、删除、清空和被动声明（查询消息数）。
+ * 连接工厂只用于满足模板的初始化校验，不会建立连接；消息的TTL等Broker特性不模拟。
+ */
+public class InMemoryRabbitTemplate extends RabbitTemplate {
+
+    /**
+     * 交换机 -> 路由键 -> 绑定的队列
+     */
+    private final Map<String, Map<String, Set<String>>> bindings = new ConcurrentHashMap<>();
+    private final Map<String, BlockingQueue<Message>> queues = new ConcurrentHashMap<>();
+
+    public InMemoryRabbitTemplate(ConnectionFactory connectionFactory) {
+        super(connectionFactory);
+    }
+
+    @Override
+    public void send(String exchange, String routingKey, Message message, CorrelationData correlationData) {
+        Set<String> targets = bindings.getOrDefault(exchange, Map.of()).get(routingKey);
+        if (targets == null) {
+            // 无法路由的消息被Broker丢弃
+            return;
+        }
+        for (String target : targets) {
+            BlockingQueue<Message> queue = queues.get(target);
+            if (queue != null) {
+                queue.add(new Message(message.getBody(), message.getMessageProperties()));
+            }
+        }
+    }
+
+    /**
+     * @param timeoutMillis 0 不等待，负数一直等待
+     */
+    @Override
+    public Message receive(String queueName, long timeoutMillis) {
+        BlockingQueue<Message> queue = queues.get(queueName);
+        if (queue == null) {
+            return null;
+        }
+        try {
+            if (timeoutMillis == 0) {
+                return queue.poll();
+            }
+            return timeoutMillis < 0 ? queue.take() : queue.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    @Override
+    public <T> T execute(ChannelCallback<T> action) {
+        Channel channel = (Channel) Proxy.newProxyInstance(Channel.class.getClassLoader(), new Class<?>[]{Channel.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "exchangeDeclare":
+                            bindings.computeIfAbsent((String) args[0], name -> new ConcurrentHashMap<>());
+                            return new AMQImpl.Exchange.DeclareOk();
+                        case "queueDeclare":
+                            queues.computeIfAbsent((String) args[0], name -> new LinkedBlockingQueue<>());
+                            return new AMQImpl.Queue.DeclareOk((String) args[0], queues.get(args[0]).size(), 0);
+                        case "queueBind":
+                            bindings.computeIfAbsent((String) args[1], name -> new ConcurrentHashMap<>())
+                                    .computeIfAbsent((String) args[2], key -> ConcurrentHashMap.newKeySet())
+                                    .add((String) args[0]);
+                            return new AMQImpl.Queue.BindOk();
+                        case "queueDelete":
+                            BlockingQueue<Message> deleted = queues.remove(args[0]);
+                            bindings.values().forEach(routes -> routes.values().forEach(targets -> targets.remove(args[0])));
+                            return new AMQImpl.Queue.DeleteOk(deleted != null ? deleted.size() : 0);
+                        case "queueDeclarePassive":
+                            BlockingQueue<Message> queue = queues.get(args[0]);
+                            if (queue == null) {
+                                throw new IOException("NOT_FOUND - no queue '" + args[0] + "'");
+                            }
+                            return new AMQImpl.Queue.DeclareOk((String) args[0], queue.size(), 0);
+                        case "queuePurge":
+                            BlockingQueue<Message> purged = queues.get(args[0]);
+                            int count = purged != null ? purged.size() : 0;
+                            if (purged != null) {
+                                purged.clear();
+                            }
+                            return new AMQImpl.Queue.PurgeOk(count);
+                        case "isOpen":
+                            return true;
+                        case "toString":
+                            return "InMemoryRabbitChannel";
+                        default:
+                            throw new UnsupportedOperationException("内存RabbitMQ不支持的通道操作: " + method);
+                    }
+                });
+        try {
+            return action.doInRabbit(channel);
+        } catch (Exception e) {
+            throw RabbitExceptionTranslator.convertRabbitAccessException(e);
+        }
+    }
+}
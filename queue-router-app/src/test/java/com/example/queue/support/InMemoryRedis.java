@@ -0,0 +1,729 @@
+package com.example.queue.support;
+
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.api.async.RedisStreamAsyncCommands;
+import io.lettuce.core.models.stream.ClaimedMessages;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisSentinelConnection;
+import org.springframework.data.redis.connection.RedisStreamCommands;
+import org.springframework.data.redis.connection.stream.ByteRecord;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 进程内Redis替身
+ * 实现压测用到的列表、字符串、Streams命令和队列实现中的Lua脚本，通过 {@link #connectionFactory()} 接入Spring Data Redis，
+ * 队列实现自身的代码（序列化、脚本调用、管道、日志）照常执行，只省掉网络往返。
+ * 所有命令在一把锁下串行执行，与Redis的单线程模型一致；阻塞命令在锁的条件变量上等待。
+ * Lua脚本没有解释器，按脚本中的命令识别后用Java实现同样的语义。遇到不认识的脚本或命令直接抛出异常，
+ * 队列实现改用新命令后压测不会悄悄测成别的东西。
+ */
+public class InMemoryRedis {
+
+    private static final byte[] EXPIRY_MARKER = "#EXP:".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ENVELOPE_MARKER = "#ENV:".getBytes(StandardCharsets.US_ASCII);
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Map<String, Object> data = new HashMap<>();
+
+    /**
+     * SCRIPT缓存：SHA1 -> 脚本
+     */
+    private final Map<String, String> scripts = new HashMap<>();
+
+    public RedisConnectionFactory connectionFactory() {
+        return new RedisConnectionFactory() {
+            @Override
+            public RedisConnection getConnection() {
+                return (RedisConnection) Proxy.newProxyInstance(RedisConnection.class.getClassLoader(),
+                        new Class<?>[]{RedisConnection.class}, new ConnectionHandler());
+            }
+
+            @Override
+            public RedisClusterConnection getClusterConnection() {
+                throw new UnsupportedOperationException("内存Redis不支持集群连接");
+            }
+
+            @Override
+            public boolean getConvertPipelineAndTxResults() {
+                return true;
+            }
+
+            @Override
+            public RedisSentinelConnection getSentinelConnection() {
+                throw new UnsupportedOperationException("内存Redis不支持哨兵连接");
+            }
+
+            @Override
+            public DataAccessException translateExceptionIfPossible(RuntimeException ex) {
+                return null;
+            }
+        };
+    }
+
+    /**
+     * 清空所有键
+     */
+    public void flushAll() {
+        lock.lock();
+        try {
+            data.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 一个连接：管道状态属于连接，命令在共享数据上执行
+     */
+    private final class ConnectionHandler implements InvocationHandler {
+
+        private List<Object> pipelineResults;
+        private boolean closed;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            switch (method.getName()) {
+                case "close":
+                    closed = true;
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "isPipelined":
+                    return pipelineResults != null;
+                case "isQueueing":
+                    return false;
+                case "openPipeline":
+                    if (pipelineResults == null) {
+                        pipelineResults = new ArrayList<>();
+                    }
+                    return null;
+                case "closePipeline":
+                    List<Object> results = pipelineResults != null ? pipelineResults : Collections.emptyList();
+                    pipelineResults = null;
+                    return results;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "InMemoryRedisConnection";
+                case "getNativeConnection":
+                    return nativeCommands();
+                default:
+                    break;
+            }
+            // listCommands() 等分组访问返回连接本身，RedisConnection 继承了全部命令接口
+            if (method.getName().endsWith("Commands") && method.getParameterCount() == 0) {
+                return proxy;
+            }
+            Object result = execute(method, args != null ? args : new Object[0]);
+            if (pipelineResults != null) {
+                pipelineResults.add(result);
+                return null;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Lettuce原生命令只支持XAUTOCLAIM，且总是返回没有可认领的消息：
+     * 进程内每个队列只有一个消费者，不存在其他消费者遗留的空闲待确认消息
+     */
+    private static Object nativeCommands() {
+        return Proxy.newProxyInstance(RedisStreamAsyncCommands.class.getClassLoader(),
+                new Class<?>[]{RedisStreamAsyncCommands.class}, (proxy, method, args) -> {
+                    if ("xautoclaim".equals(method.getName())) {
+                        return new CompletedFuture<>(new ClaimedMessages<>("0-0", Collections.emptyList()));
+                    }
+                    throw new UnsupportedOperationException("内存Redis不支持的原生命令: " + method);
+                });
+    }
+
+    private static final class CompletedFuture<T> extends CompletableFuture<T> implements RedisFuture<T> {
+
+        private CompletedFuture(T value) {
+            complete(value);
+        }
+
+        @Override
+        public String getError() {
+            return null;
+        }
+
+        @Override
+        public boolean await(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+
+    private Object execute(Method method, Object[] args) {
+        lock.lock();
+        try {
+            switch (method.getName()) {
+                case "lPush":
+                    return push(key(args[0]), (byte[][]) args[1], true);
+                case "rPush":
+                    return push(key(args[0]), (byte[][]) args[1], false);
+                case "rPop":
+                    return args.length == 1 ? rPop(key(args[0])) : rPop(key(args[0]), (Long) args[1]);
+                case "bRPop":
+                    return bRPop((Integer) args[0], (byte[][]) args[1]);
+                case "lLen":
+                    return lLen(key(args[0]));
+                case "lIndex":
+                    return lIndex(key(args[0]), (Long) args[1]);
+                case "del":
+                case "unlink":
+                    return del((byte[][]) args[0]);
+                case "exists":
+                    return args[0] instanceof byte[][] ? exists((byte[][]) args[0]) : (Object) data.containsKey(key(args[0]));
+                case "get":
+                    return string(key(args[0]));
+                case "set":
+                    if (args.length != 2) {
+                        break;
+                    }
+                    data.put(key(args[0]), args[1]);
+                    return true;
+                case "incrBy":
+                    if (!(args[1] instanceof Long)) {
+                        break;
+                    }
+                    return incrBy(key(args[0]), (Long) args[1]);
+                case "decrBy":
+                    return incrBy(key(args[0]), -(Long) args[1]);
+                case "eval":
+                    return eval(new String((byte[]) args[0], StandardCharsets.UTF_8), (Integer) args[2], (byte[][]) args[3]);
+                case "evalSha":
+                    return evalSha(args[0] instanceof byte[] ? key(args[0]) : (String) args[0], (Integer) args[2], (byte[][]) args[3]);
+                case "xAdd":
+                    return xAdd(byteRecord(args[0]), (RedisStreamCommands.XAddOptions) args[1]);
+                case "xGroupCreate":
+                    return xGroupCreate(key(args[0]), (String) args[1], (ReadOffset) args[2], args.length > 3 && (Boolean) args[3]);
+                case "xReadGroup":
+                    return args.length == 2
+                            ? xReadGroup((Consumer) args[0], StreamReadOptions.empty(), (StreamOffset<?>[]) args[1])
+                            : xReadGroup((Consumer) args[0], (StreamReadOptions) args[1], (StreamOffset<?>[]) args[2]);
+                case "xAck":
+                    return xAck(key(args[0]), (String) args[1], (RecordId[]) args[2]);
+                case "xLen":
+                    Stream stream = stream(key(args[0]), false);
+                    return stream != null ? (long) stream.entries.size() : 0L;
+                default:
+                    break;
+            }
+            throw new UnsupportedOperationException("内存Redis不支持的命令: " + method);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ---------------------------------------------------------------- 列表与字符串
+
+    private long push(String key, byte[][] values, boolean left) {
+        Deque<byte[]> list = list(key, true);
+        for (byte[] value : values) {
+            if (left) {
+                list.addFirst(value);
+            } else {
+                list.addLast(value);
+            }
+        }
+        changed.signalAll();
+        return list.size();
+    }
+
+    private byte[] rPop(String key) {
+        Deque<byte[]> list = list(key, false);
+        if (list == null) {
+            return null;
+        }
+        byte[] value = list.pollLast();
+        removeIfEmpty(key, list);
+        return value;
+    }
+
+    private List<byte[]> rPop(String key, long count) {
+        Deque<byte[]> list = list(key, false);
+        if (list == null) {
+            return null;
+        }
+        List<byte[]> values = new ArrayList<>((int) Math.min(count, list.size()));
+        while (values.size() < count && !list.isEmpty()) {
+            values.add(list.pollLast());
+        }
+        removeIfEmpty(key, list);
+        return values;
+    }
+
+    /**
+     * BRPOP：按键的顺序检查，都为空时等待，超时0表示永久等待
+     */
+    private List<byte[]> bRPop(int timeoutSeconds, byte[][] keys) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        while (true) {
+            for (byte[] rawKey : keys) {
+                byte[] value = rPop(key(rawKey));
+                if (value != null) {
+                    List<byte[]> result = new ArrayList<>(2);
+                    result.add(rawKey);
+                    result.add(value);
+                    return result;
+                }
+            }
+            if (!await(timeoutSeconds > 0 ? deadline - System.nanoTime() : Long.MAX_VALUE)) {
+                return null;
+            }
+        }
+    }
+
+    private long lLen(String key) {
+        Deque<byte[]> list = list(key, false);
+        return list != null ? list.size() : 0;
+    }
+
+    private byte[] lIndex(String key, long index) {
+        Deque<byte[]> list = list(key, false);
+        if (list == null) {
+            return null;
+        }
+        long position = index < 0 ? list.size() + index : index;
+        if (position < 0 || position >= list.size()) {
+            return null;
+        }
+        Iterator<byte[]> iterator = list.iterator();
+        for (long i = 0; i < position; i++) {
+            iterator.next();
+        }
+        return iterator.next();
+    }
+
+    private long del(byte[][] keys) {
+        long removed = 0;
+        for (byte[] key : keys) {
+            if (data.remove(key(key)) != null) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private long exists(byte[][] keys) {
+        long count = 0;
+        for (byte[] key : keys) {
+            if (data.containsKey(key(key))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private long incrBy(String key, long delta) {
+        byte[] current = string(key);
+        long value = (current != null ? Long.parseLong(new String(current, StandardCharsets.US_ASCII)) : 0) + delta;
+        data.put(key, String.valueOf(value).getBytes(StandardCharsets.US_ASCII));
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Deque<byte[]> list(String key, boolean create) {
+        Object value = data.get(key);
+        if (value == null) {
+            if (!create) {
+                return null;
+            }
+            value = new ArrayDeque<byte[]>();
+            data.put(key, value);
+        }
+        if (!(value instanceof Deque)) {
+            throw wrongType(key);
+        }
+        return (Deque<byte[]>) value;
+    }
+
+    /**
+     * 列表为空时Redis删除该键
+     */
+    private void removeIfEmpty(String key, Deque<byte[]> list) {
+        if (list.isEmpty()) {
+            data.remove(key);
+        }
+    }
+
+    private byte[] string(String key) {
+        Object value = data.get(key);
+        if (value != null && !(value instanceof byte[])) {
+            throw wrongType(key);
+        }
+        return (byte[]) value;
+    }
+
+    // ---------------------------------------------------------------- 脚本
+
+    private Object evalSha(String sha, int numKeys, byte[][] keysAndArgs) {
+        String script = scripts.get(sha);
+        if (script == null) {
+            // 与Redis一致，调用方收到NOSCRIPT后改用EVAL
+            throw new InvalidDataAccessApiUsageException("NOSCRIPT No matching script. Please use EVAL.");
+        }
+        return runScript(script, numKeys, keysAndArgs);
+    }
+
+    private Object eval(String script, int numKeys, byte[][] keysAndArgs) {
+        scripts.put(sha1(script), script);
+        return runScript(script, numKeys, keysAndArgs);
+    }
+
+    /**
+     * 按脚本调用的命令识别RedisQueueService中的脚本
+     */
+    private Object runScript(String script, int numKeys, byte[][] keysAndArgs) {
+        List<String> keys = new ArrayList<>(numKeys);
+        for (int i = 0; i < numKeys; i++) {
+            keys.add(key(keysAndArgs[i]));
+        }
+        List<byte[]> argv = new ArrayList<>();
+        for (int i = numKeys; i < keysAndArgs.length; i++) {
+            argv.add(keysAndArgs[i]);
+        }
+
+        if (script.contains("'LINDEX'")) {
+            return trimExpired(keys, argv);
+        }
+        if (script.contains("'LPUSH'") && script.contains("'INCRBY'")) {
+            push(keys.get(0), new byte[][]{argv.get(0)}, true);
+            return incrBy(keys.get(1), number(argv.get(1)));
+        }
+        if (script.contains("redis.call('RPOP', KEYS[1], ARGV[1])")) {
+            List<byte[]> values = rPop(keys.get(0), number(argv.get(0)));
+            if (values == null) {
+                return Collections.emptyList();
+            }
+            long count = 0;
+            for (byte[] value : values) {
+                count += logicalCount(value);
+            }
+            incrBy(keys.get(1), -count);
+            return values;
+        }
+        if (script.contains("redis.call('RPOP', KEYS[1])")) {
+            byte[] value = rPop(keys.get(0));
+            if (value != null) {
+                incrBy(keys.get(1), -logicalCount(value));
+            }
+            return value;
+        }
+        throw new UnsupportedOperationException("内存Redis不认识的脚本:\n" + script);
+    }
+
+    /**
+     * 从队头连续删除带过期时间前缀且已过期的元素，只读取前缀的固定位置
+     */
+    private long trimExpired(List<String> keys, List<byte[]> argv) {
+        long now = number(argv.get(0));
+        long limit = number(argv.get(1));
+        long removed = 0;
+        while (removed < limit) {
+            byte[] value = lIndex(keys.get(0), -1);
+            if (value == null || !startsWith(value, EXPIRY_MARKER) || value.length < 22 || value[21] != ':') {
+                break;
+            }
+            long expireAt;
+            try {
+                expireAt = Long.parseLong(new String(value, 5, 16, StandardCharsets.US_ASCII));
+            } catch (NumberFormatException e) {
+                break;
+            }
+            if (expireAt > now) {
+                break;
+            }
+            rPop(keys.get(0));
+            removed++;
+        }
+        if (removed > 0 && "1".equals(new String(argv.get(2), StandardCharsets.US_ASCII))) {
+            incrBy(keys.get(1), -removed);
+        }
+        return removed;
+    }
+
+    /**
+     * 元素包含的逻辑消息数：信封按帧头，其余为1
+     */
+    private static long logicalCount(byte[] value) {
+        if (!startsWith(value, ENVELOPE_MARKER)) {
+            return 1;
+        }
+        int end = ENVELOPE_MARKER.length;
+        while (end < value.length && Character.isDigit(value[end])) {
+            end++;
+        }
+        return end > ENVELOPE_MARKER.length
+                ? Long.parseLong(new String(value, ENVELOPE_MARKER.length, end - ENVELOPE_MARKER.length, StandardCharsets.US_ASCII))
+                : 1;
+    }
+
+    // ---------------------------------------------------------------- Streams
+
+    private RecordId xAdd(ByteRecord record, RedisStreamCommands.XAddOptions options) {
+        Stream stream = stream(key(record.getStream()), !options.isNoMkStream());
+        if (stream == null) {
+            return null;
+        }
+        StreamId id;
+        if (record.getId().shouldBeAutoGenerated()) {
+            long millis = System.currentTimeMillis();
+            id = millis > stream.lastId.millis
+                    ? new StreamId(millis, 0)
+                    : new StreamId(stream.lastId.millis, stream.lastId.sequence + 1);
+        } else {
+            id = StreamId.parse(record.getId().getValue());
+            if (id.compareTo(stream.lastId) <= 0) {
+                throw new InvalidDataAccessApiUsageException(
+                        "ERR The ID specified in XADD is equal or smaller than the target stream top item");
+            }
+        }
+        stream.entries.put(id, new LinkedHashMap<>(record.getValue()));
+        stream.lastId = id;
+        if (options.hasMaxlen()) {
+            while (stream.entries.size() > options.getMaxlen()) {
+                stream.entries.pollFirstEntry();
+            }
+        }
+        changed.signalAll();
+        return RecordId.of(id.toString());
+    }
+
+    private String xGroupCreate(String key, String group, ReadOffset offset, boolean mkStream) {
+        Stream stream = stream(key, mkStream);
+        if (stream == null) {
+            throw new InvalidDataAccessApiUsageException(
+                    "ERR The XGROUP subcommand requires the key to exist. Note that for CREATE you may want to use the MKSTREAM option");
+        }
+        if (stream.groups.containsKey(group)) {
+            throw new InvalidDataAccessApiUsageException("BUSYGROUP Consumer Group name already exists");
+        }
+        StreamId start = "$".equals(offset.getOffset()) ? stream.lastId : StreamId.parse(offset.getOffset());
+        stream.groups.put(group, new Group(start));
+        return "OK";
+    }
+
+    /**
+     * XREADGROUP，只支持读取新消息（偏移量 &gt;）
+     */
+    private List<ByteRecord> xReadGroup(Consumer consumer, StreamReadOptions options, StreamOffset<?>[] offsets) {
+        long count = options.getCount() != null && options.getCount() > 0 ? options.getCount() : Long.MAX_VALUE;
+        Long block = options.getBlock();
+        long deadline = block != null ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(block) : 0;
+        while (true) {
+            List<ByteRecord> records = new ArrayList<>();
+            for (StreamOffset<?> offset : offsets) {
+                if (!ReadOffset.lastConsumed().equals(offset.getOffset())) {
+                    throw new UnsupportedOperationException("内存Redis的XREADGROUP只支持读取新消息: " + offset.getOffset());
+                }
+                byte[] rawKey = (byte[]) offset.getKey();
+                Stream stream = stream(key(rawKey), false);
+                Group group = stream != null ? stream.groups.get(consumer.getGroup()) : null;
+                if (group == null) {
+                    throw new InvalidDataAccessApiUsageException("NOGROUP No such key or consumer group " + consumer.getGroup());
+                }
+                for (Map.Entry<StreamId, Map<byte[], byte[]>> entry : stream.entries.tailMap(group.lastDelivered, false).entrySet()) {
+                    if (records.size() >= count) {
+                        break;
+                    }
+                    group.lastDelivered = entry.getKey();
+                    if (!options.isNoack()) {
+                        group.pending.put(entry.getKey(), consumer.getName());
+                    }
+                    records.add(StreamRecords.newRecord().in(rawKey)
+                            .withId(RecordId.of(entry.getKey().toString()))
+                            .ofBytes(entry.getValue()));
+                }
+            }
+            if (!records.isEmpty() || block == null) {
+                return records;
+            }
+            if (!await(block > 0 ? deadline - System.nanoTime() : Long.MAX_VALUE)) {
+                return records;
+            }
+        }
+    }
+
+    private long xAck(String key, String group, RecordId[] ids) {
+        Stream stream = stream(key, false);
+        Group consumerGroup = stream != null ? stream.groups.get(group) : null;
+        if (consumerGroup == null) {
+            return 0;
+        }
+        long acknowledged = 0;
+        for (RecordId id : ids) {
+            if (consumerGroup.pending.remove(StreamId.parse(id.getValue())) != null) {
+                acknowledged++;
+            }
+        }
+        return acknowledged;
+    }
+
+    private Stream stream(String key, boolean create) {
+        Object value = data.get(key);
+        if (value == null) {
+            if (!create) {
+                return null;
+            }
+            value = new Stream();
+            data.put(key, value);
+        }
+        if (!(value instanceof Stream)) {
+            throw wrongType(key);
+        }
+        return (Stream) value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ByteRecord byteRecord(Object record) {
+        return ByteRecord.of((MapRecord<byte[], byte[], byte[]>) record);
+    }
+
+    private static final class Stream {
+        private final NavigableMap<StreamId, Map<byte[], byte[]>> entries = new TreeMap<>();
+        private final Map<String, Group> groups = new HashMap<>();
+        private StreamId lastId = StreamId.ZERO;
+    }
+
+    private static final class Group {
+        private final Map<StreamId, String> pending = new HashMap<>();
+        private StreamId lastDelivered;
+
+        private Group(StreamId lastDelivered) {
+            this.lastDelivered = lastDelivered;
+        }
+    }
+
+    private static final class StreamId implements Comparable<StreamId> {
+        private static final StreamId ZERO = new StreamId(0, 0);
+
+        private final long millis;
+        private final long sequence;
+
+        private StreamId(long millis, long sequence) {
+            this.millis = millis;
+            this.sequence = sequence;
+        }
+
+        private static StreamId parse(String value) {
+            int dash = value.indexOf('-');
+            return dash < 0
+                    ? new StreamId(Long.parseLong(value), 0)
+                    : new StreamId(Long.parseLong(value.substring(0, dash)), Long.parseLong(value.substring(dash + 1)));
+        }
+
+        @Override
+        public int compareTo(StreamId other) {
+            int result = Long.compare(millis, other.millis);
+            return result != 0 ? result : Long.compare(sequence, other.sequence);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof StreamId && compareTo((StreamId) other) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(millis) * 31 + Long.hashCode(sequence);
+        }
+
+        @Override
+        public String toString() {
+            return millis + "-" + sequence;
+        }
+    }
+
+    // ---------------------------------------------------------------- 工具
+
+    /**
+     * 在锁的条件变量上等待数据变化，调用方持有锁
+     * @return 是否还有剩余时间
+     */
+    private boolean await(long remainingNanos) {
+        if (remainingNanos <= 0) {
+            return false;
+        }
+        try {
+            changed.awaitNanos(remainingNanos);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static String key(Object raw) {
+        return new String((byte[]) raw, StandardCharsets.UTF_8);
+    }
+
+    private static long number(byte[] raw) {
+        return Long.parseLong(new String(raw, StandardCharsets.US_ASCII));
+    }
+
+    private static boolean startsWith(byte[] value, byte[] prefix) {
+        if (value.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (value[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static InvalidDataAccessApiUsageException wrongType(String key) {
+        return new InvalidDataAccessApiUsageException("WRONGTYPE Operation against a key holding the wrong kind of value: " + key);
+    }
+
+    private static String sha1(String script) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(script.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.queue.autoconfigure;
+
+import com.example.queue.config.QueueProperties;
+import com.example.queue.core.QueueServiceProvider;
+import com.example.queue.factory.QueueServiceFactory;
+import com.example.queue.fanout.FanOutPublisher;
+import com.example.queue.longpoll.LongPollDispatcher;
+import com.example.queue.metrics.QueueMetrics;
+import com.example.queue.ordering.KeyOrderedDispatcher;
+import com.example.queue.retry.RetryScheduler;
+import com.example.queue.router.QueueRouter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+
+import java.util.stream.Collectors;
+
+/**
+ * 队列路由器自动配置
+ * 工厂收集容器中所有的 {@link QueueServiceProvider}：queue-redis、queue-rabbitmq 模块在classpath上且未关闭时
+ * 各自注册一个提供者，否则只能使用Java和堆外队列。各后端的连接在第一次创建该类型的队列时才初始化。
+ */
+@AutoConfiguration
+@EnableConfigurationProperties(QueueProperties.class)
+public class QueueAutoConfiguration {
+    
+    /**
+     * 队列延迟指标
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public QueueMetrics queueMetrics() {
+        return new QueueMetrics();
+    }
+    
+    /**
+     * 队列服务工厂，在路由器之后销毁，关闭各后端的共享资源
+     */
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnMissingBean
+    public QueueServiceFactory queueServiceFactory(QueueProperties queueProperties, QueueMetrics queueMetrics,
+                                                   ObjectProvider<QueueServiceProvider> providers) {
+        return new QueueServiceFactory(queueProperties, queueMetrics, providers.orderedStream().collect(Collectors.toList()));
+    }
+    
+    /**
+     * 队列路由器，创建时恢复进程内队列快照，容器关闭时写入快照并关闭所有队列服务
+     */
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnMissingBean
+    public QueueRouter queueRouter(QueueServiceFactory queueServiceFactory, QueueProperties queueProperties) {
+        QueueRouter queueRouter = new QueueRouter(queueServiceFactory, queueProperties);
+        queueRouter.restoreSnapshots();
+        return queueRouter;
+    }
+    
+    /**
+     * 消费失败重试调度器
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public RetryScheduler retryScheduler(QueueRouter queueRouter, QueueProperties queueProperties) {
+        return new RetryScheduler(queueRouter, queueProperties);
+    }
+    
+    /**
+     * 消费端按键有序并行分发器，通道线程在第一次分发时才创建
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public KeyOrderedDispatcher keyOrderedDispatcher(QueueProperties queueProperties) {
+        return new KeyOrderedDispatcher(queueProperties);
+    }
+    
+    /**
+     * 长轮询分发器
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public LongPollDispatcher longPollDispatcher(QueueProperties queueProperties) {
+        return new LongPollDispatcher(queueProperties);
+    }
+    
+    /**
+     * 扇出发布器
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public FanOutPublisher fanOutPublisher(QueueRouter queueRouter, QueueProperties queueProperties) {
+        return new FanOutPublisher(queueRouter, queueProperties);
+    }
+}